@@ -1,41 +1,17 @@
 plugins {
     java
-    id("org.springframework.boot") version "3.5.5"
-    id("io.spring.dependency-management") version "1.1.7"
+    id("org.springframework.boot")
+    id("io.spring.dependency-management")
 }
 
 tasks.register("prepareKotlinBuildScriptModel") {
     // no-op for IDE compatibility with Kotlin DSL model task
 }
 
-java {
-    toolchain {
-        languageVersion.set(JavaLanguageVersion.of(21))
-    }
-}
-
 springBoot {
     mainClass.set("org.dacrewj.agent.DacrewAgentShellApplication")
 }
 
-repositories {
-    mavenCentral()
-    maven {
-        name = "embabel-releases"
-        url = uri("https://repo.embabel.com/artifactory/libs-release")
-        mavenContent { releasesOnly() }
-    }
-    maven {
-        name = "embabel-snapshots"
-        url = uri("https://repo.embabel.com/artifactory/libs-snapshot")
-        mavenContent { snapshotsOnly() }
-    }
-    maven {
-        name = "spring-milestones"
-        url = uri("https://repo.spring.io/milestone")
-    }
-}
-
 val embabelVersion = "0.1.3-SNAPSHOT"
 val springShellVersion = "3.4.1"
 
@@ -47,6 +23,10 @@ dependencies {
     implementation("org.springframework.shell:spring-shell-starter:$springShellVersion")
     implementation("org.springframework.boot:spring-boot-starter-amqp")
     implementation("org.springframework.boot:spring-boot-starter-web")
+    implementation("org.springframework.boot:spring-boot-starter-actuator")
+    implementation("io.micrometer:micrometer-tracing-bridge-brave")
+    implementation("io.micrometer:context-propagation")
+    implementation("io.zipkin.reporter2:zipkin-reporter-brave")
 
     // Embabel
     implementation("com.embabel.agent:embabel-agent-starter:$embabelVersion")
@@ -0,0 +1,216 @@
+package org.dacrewj.agent.agents;
+
+import com.embabel.agent.api.common.Ai;
+import com.fasterxml.jackson.annotation.JsonPropertyDescription;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Collects short requirements for a bounded time or count window and critiques them together in a single LLM call,
+ * so that the reviewer persona and instructions are sent once per batch rather than once per requirement.
+ * <p>
+ * Requirements for which the batch answer has no critique (e.g. a key the model dropped or renamed), or whose batch
+ * call failed, get null from {@link #critique(PreparedRequirement)} and are critiqued individually by the caller.
+ */
+@Component
+public class CritiqueBatcher {
+
+	private static final Logger logger = LoggerFactory.getLogger(CritiqueBatcher.class);
+
+	private final RequirementReviewerConfig.Batching batching;
+	private final BatchCall batchCall;
+	private final MeterRegistry meterRegistry;
+	private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+			.name("critique-batcher")
+			.daemon(true)
+			.factory());
+
+	private List<Pending> pending = new ArrayList<>();
+	private ScheduledFuture<?> windowTimer;
+
+	public CritiqueBatcher(RequirementReviewerConfig config, Ai ai, MeterRegistry meterRegistry) {
+		this(config.batching(), requirements -> critiqueTogether(config, ai, requirements), meterRegistry);
+	}
+
+	CritiqueBatcher(RequirementReviewerConfig.Batching batching, BatchCall batchCall, MeterRegistry meterRegistry) {
+		this.batching = batching;
+		this.batchCall = batchCall;
+		this.meterRegistry = meterRegistry;
+	}
+
+	@PreDestroy
+	void shutdown() {
+		scheduler.shutdownNow();
+		dispatch(takeBatch(), false);
+	}
+
+	/**
+	 * @return whether the requirement is short enough to be critiqued in a batch
+	 */
+	public boolean accepts(PreparedRequirement requirement) {
+		return batching.enabled() && requirement.estimatedTokens() <= batching.maxTokens();
+	}
+
+	/**
+	 * Adds the requirement to the current batch and waits for the batch to be critiqued.
+	 *
+	 * @return the requirement's critique, or null if it must be critiqued individually
+	 */
+	public Critique critique(PreparedRequirement requirement) {
+		var future = submit(requirement);
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			future.cancel(true);
+			throw new CancellationException("Interrupted while waiting for the critique batch of " + requirement.key());
+		} catch (ExecutionException e) {
+			return null;
+		}
+	}
+
+	CompletableFuture<Critique> submit(PreparedRequirement requirement) {
+		var entry = new Pending(requirement, new CompletableFuture<>());
+		List<Pending> full = null;
+		synchronized (this) {
+			pending.add(entry);
+			if (pending.size() >= batching.maxSize()) {
+				full = takeBatch();
+			} else if (pending.size() == 1) {
+				List<Pending> opened = pending;
+				windowTimer = scheduler.schedule(() -> closeWindow(opened), batching.window().toMillis(), TimeUnit.MILLISECONDS);
+			}
+		}
+		if (full != null) {
+			dispatchAsync(full);
+		}
+		return entry.future();
+	}
+
+	private void closeWindow(List<Pending> opened) {
+		List<Pending> batch;
+		synchronized (this) {
+			if (pending != opened) {
+				// Already dispatched because it filled up
+				return;
+			}
+			batch = takeBatch();
+		}
+		dispatchAsync(batch);
+	}
+
+	private void dispatchAsync(List<Pending> batch) {
+		Thread.ofVirtual().name("critique-batch").start(() -> dispatch(batch, true));
+	}
+
+	private synchronized List<Pending> takeBatch() {
+		if (windowTimer != null) {
+			windowTimer.cancel(false);
+			windowTimer = null;
+		}
+		List<Pending> batch = pending;
+		pending = new ArrayList<>();
+		return batch;
+	}
+
+	private void dispatch(List<Pending> batch, boolean call) {
+		if (batch.isEmpty()) {
+			return;
+		}
+		if (!call || batch.size() == 1) {
+			// Nothing to share the prompt with: let the caller do its usual individual call
+			batch.forEach(p -> p.future().complete(null));
+			return;
+		}
+		DistributionSummary.builder("dacrew.critique.batch.size").register(meterRegistry).record(batch.size());
+		Map<String, Critique> critiques;
+		try {
+			critiques = batchCall.critique(batch.stream().map(Pending::requirement).toList());
+		} catch (RuntimeException e) {
+			logger.warn("Batched critique of {} requirements failed, falling back to individual calls: {}", batch.size(), e.toString());
+			critiques = Map.of();
+		}
+		int fallbacks = 0;
+		for (Pending p : batch) {
+			Critique critique = critiques.get(p.requirement().key());
+			if (critique == null) {
+				fallbacks++;
+			}
+			p.future().complete(critique);
+		}
+		if (fallbacks > 0) {
+			logger.info("Batched critique had no result for {} of {} requirements; critiquing them individually", fallbacks, batch.size());
+			Counter.builder("dacrew.critique.batch.fallbacks").register(meterRegistry).increment(fallbacks);
+		}
+	}
+
+	private static Map<String, Critique> critiqueTogether(RequirementReviewerConfig config, Ai ai, List<PreparedRequirement> requirements) {
+		String listing = requirements.stream()
+				.map(r -> """
+						Key: %s
+						Summary: %s
+						Description: %s
+						""".formatted(r.key(), r.summary(), r.description()))
+				.collect(Collectors.joining("\n---\n"));
+		BatchCritique answer = ai.withLlm(config.llm())
+				.withPromptElements(config.reviewer())
+				.createObject("""
+						Create a critique for each of the following %d draft requirements, based on its summary and
+						description. Return exactly one entry per requirement, with the requirement's key copied
+						unchanged.
+						
+						Each critique comprises a list of criticisms. A criticismText must name the best-practice
+						principle, which has been ignored or contradicted by the requirement, and then explain
+						specifics of how the requirement ignores or contradicts the principle.
+						Do not include suggestion improvements in the criticismText.
+						Order each list of criticisms in terms of seriousness, starting with the most serious item
+						at position 0 in the list.
+						If a requirement is flawless, then give it an empty list of criticisms.
+						
+						%s
+						""".formatted(requirements.size(), listing), BatchCritique.class);
+		var byKey = new HashMap<String, Critique>();
+		if (answer == null || answer.critiques() == null) {
+			return byKey;
+		}
+		for (KeyedCritique keyed : answer.critiques()) {
+			if (keyed != null && keyed.key() != null && keyed.criticisms() != null) {
+				byKey.putIfAbsent(keyed.key().strip(), new Critique(keyed.criticisms()));
+			}
+		}
+		return byKey;
+	}
+
+	/**
+	 * Critiques several requirements in one call, returning the critiques by requirement key.
+	 */
+	@FunctionalInterface
+	interface BatchCall {
+		Map<String, Critique> critique(List<PreparedRequirement> requirements);
+	}
+
+	private record Pending(PreparedRequirement requirement, CompletableFuture<Critique> future) {}
+
+	record BatchCritique(@JsonPropertyDescription("One critique per requirement") List<KeyedCritique> critiques) {}
+
+	record KeyedCritique(
+			@JsonPropertyDescription("Key of the requirement, exactly as given") String key,
+			@JsonPropertyDescription("A critique") List<Criticism> criticisms) {}
+}
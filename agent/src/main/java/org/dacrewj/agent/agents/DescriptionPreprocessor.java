@@ -0,0 +1,241 @@
+package org.dacrewj.agent.agents;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+import org.dacrewj.contract.AdfDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Turns the raw Jira description of a {@link DraftRequirement} into plain text which fits the configured token budget.
+ * <p>
+ * ADF documents and Jira wiki markup are reduced to plain text first. If the text still exceeds the budget it is
+ * split into chunks at paragraph and line boundaries, each chunk is summarised, and the process is repeated on the
+ * joined summaries until the result fits (hierarchical summarisation).
+ */
+public final class DescriptionPreprocessor {
+
+	private static final Logger logger = LoggerFactory.getLogger(DescriptionPreprocessor.class);
+
+	private static final int MAX_ROUNDS = 4;
+	private static final int CHARS_PER_TOKEN = 4;
+
+	private static final ObjectMapper mapper = new ObjectMapper();
+
+	private static final Pattern BLOCK_MACRO = Pattern.compile("\\{(code|noformat|quote|panel|color)(:[^}]*)?}");
+	private static final Pattern HEADING = Pattern.compile("(?m)^h[1-6]\\.\\s*");
+	private static final Pattern LIST_MARKER = Pattern.compile("(?m)^\\s*[*#-]+\\s+");
+	private static final Pattern LINK = Pattern.compile("\\[([^|\\]]+)\\|[^]]+]");
+	private static final Pattern BARE_LINK = Pattern.compile("\\[((?:https?|mailto):[^]]+)]");
+	private static final Pattern MENTION = Pattern.compile("\\[~[^]]+]");
+	private static final Pattern IMAGE = Pattern.compile("!([^!\\s]+\\.(?:png|jpe?g|gif|svg))(\\|[^!]*)?!", Pattern.CASE_INSENSITIVE);
+	private static final Pattern EMPHASIS = Pattern.compile("(?<![\\w*_+^~?-])([*_+^~-]|\\?\\?)(\\S(?:.*?\\S)?)\\1(?![\\w*_+^~?-])");
+	private static final Pattern MONOSPACE = Pattern.compile("\\{\\{(.*?)}}");
+	private static final Pattern TABLE_SEPARATOR = Pattern.compile("\\|\\|?");
+	private static final Pattern TRAILING_SPACE = Pattern.compile("(?m)[ \\t]+$");
+	private static final Pattern BLANK_LINES = Pattern.compile("\\n{3,}");
+
+	private static final Set<String> ADF_LINE_BREAKS = Set.of(
+			"paragraph", "heading", "listItem", "codeBlock", "blockquote", "rule", "tableRow", "hardBreak");
+
+	private final int tokenBudget;
+	private final int chunkTokens;
+
+	public DescriptionPreprocessor(int tokenBudget, int chunkTokens) {
+		this.tokenBudget = tokenBudget;
+		this.chunkTokens = chunkTokens;
+	}
+
+	/**
+	 * @param summariser summarises a batch of chunks, returning one summary per chunk in the same order;
+	 *                   the argument is the target length of each summary in words
+	 */
+	public PreparedRequirement prepare(DraftRequirement requirement, Summariser summariser) {
+		String text = toPlainText(requirement.description());
+		int tokens = estimateTokens(text);
+		if (tokens <= tokenBudget) {
+			return new PreparedRequirement(requirement.source(), requirement.key(), requirement.summary(), text, tokens, false);
+		}
+		logger.info("Description of {} has ~{} tokens, condensing to a budget of {}", requirement.key(), tokens, tokenBudget);
+		String condensed = condense(text, summariser);
+		return new PreparedRequirement(requirement.source(), requirement.key(), requirement.summary(), condensed, estimateTokens(condensed), true);
+	}
+
+	String condense(String text, Summariser summariser) {
+		for (int round = 0; round < MAX_ROUNDS && estimateTokens(text) > tokenBudget; round++) {
+			List<String> chunks = chunk(text, chunkTokens);
+			int wordsPerSummary = Math.max(20, tokenBudget * 3 / 4 / chunks.size());
+			List<String> summaries = summariser.summarise(chunks, wordsPerSummary);
+			String next = String.join("\n\n", summaries);
+			logger.debug("Condensing round {}: {} chunks, ~{} -> ~{} tokens", round + 1, chunks.size(), estimateTokens(text), estimateTokens(next));
+			if (estimateTokens(next) >= estimateTokens(text)) {
+				break;
+			}
+			text = next;
+		}
+		return truncate(text, tokenBudget);
+	}
+
+	/**
+	 * Cuts text which summarising could not bring within maxTokens, measured with {@link #estimateTokens} as the
+	 * budget itself is, at the last word boundary that fits.
+	 */
+	static String truncate(String text, int maxTokens) {
+		if (estimateTokens(text) <= maxTokens) {
+			return text;
+		}
+		int words = 0;
+		boolean inWord = false;
+		int end = 0;
+		int lastBreak = -1;
+		for (int i = 0; i < text.length(); i++) {
+			boolean whitespace = Character.isWhitespace(text.charAt(i));
+			if (!whitespace && !inWord) {
+				words++;
+			}
+			inWord = !whitespace;
+			// The estimate of the prefix up to and including i
+			if (Math.max((i + CHARS_PER_TOKEN) / CHARS_PER_TOKEN, words * 4 / 3) > maxTokens) {
+				break;
+			}
+			end = i + 1;
+			if (whitespace) {
+				lastBreak = i;
+			}
+		}
+		if (!Character.isWhitespace(text.charAt(end)) && lastBreak > 0) {
+			end = lastBreak;
+		}
+		return text.substring(0, end).strip();
+	}
+
+	/**
+	 * Reduces an ADF document (as JSON) or Jira wiki markup to plain text.
+	 */
+	public static String toPlainText(String description) {
+		if (description == null || description.isBlank()) {
+			return "";
+		}
+		String text = description.strip();
+		if (text.startsWith("{") && text.contains("\"type\"")) {
+			try {
+				AdfDocument document = mapper.readValue(text, AdfDocument.class);
+				return normaliseWhitespace(adfText(document.content(), new StringBuilder()).toString());
+			} catch (Exception e) {
+				// not ADF after all, treat as wiki markup
+			}
+		}
+		text = BLOCK_MACRO.matcher(text).replaceAll("");
+		text = HEADING.matcher(text).replaceAll("");
+		text = LIST_MARKER.matcher(text).replaceAll("- ");
+		text = IMAGE.matcher(text).replaceAll("");
+		text = MENTION.matcher(text).replaceAll("");
+		text = LINK.matcher(text).replaceAll("$1");
+		text = BARE_LINK.matcher(text).replaceAll("$1");
+		text = MONOSPACE.matcher(text).replaceAll("$1");
+		text = EMPHASIS.matcher(text).replaceAll("$2");
+		text = TABLE_SEPARATOR.matcher(text).replaceAll(" | ");
+		return normaliseWhitespace(text);
+	}
+
+	private static StringBuilder adfText(List<AdfDocument.Node> nodes, StringBuilder sb) {
+		if (nodes == null) {
+			return sb;
+		}
+		for (AdfDocument.Node node : nodes) {
+			if (node == null) {
+				continue;
+			}
+			if (node.text() != null) {
+				sb.append(node.text());
+			}
+			adfText(node.content(), sb);
+			if (node.type() != null && ADF_LINE_BREAKS.contains(node.type())) {
+				sb.append('\n');
+			}
+		}
+		return sb;
+	}
+
+	private static String normaliseWhitespace(String text) {
+		text = text.replace("\r\n", "\n");
+		text = TRAILING_SPACE.matcher(text).replaceAll("");
+		text = BLANK_LINES.matcher(text).replaceAll("\n\n");
+		return text.strip();
+	}
+
+	/**
+	 * Rough token estimate for English prose and code: about four characters, or three quarters of a word, per token.
+	 */
+	public static int estimateTokens(String text) {
+		if (text == null || text.isEmpty()) {
+			return 0;
+		}
+		int words = 0;
+		boolean inWord = false;
+		for (int i = 0; i < text.length(); i++) {
+			boolean whitespace = Character.isWhitespace(text.charAt(i));
+			if (!whitespace && !inWord) {
+				words++;
+			}
+			inWord = !whitespace;
+		}
+		return Math.max((text.length() + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN, words * 4 / 3);
+	}
+
+	/**
+	 * Splits text into chunks of at most maxTokens, preferring paragraph and then line boundaries.
+	 */
+	public static List<String> chunk(String text, int maxTokens) {
+		var chunks = new ArrayList<String>();
+		var current = new StringBuilder();
+		int currentTokens = 0;
+		for (String piece : pieces(text, maxTokens)) {
+			int pieceTokens = estimateTokens(piece);
+			if (!current.isEmpty() && currentTokens + pieceTokens > maxTokens) {
+				chunks.add(current.toString().strip());
+				current.setLength(0);
+				currentTokens = 0;
+			}
+			if (!current.isEmpty()) {
+				current.append('\n');
+			}
+			current.append(piece);
+			currentTokens += pieceTokens;
+		}
+		if (!current.toString().isBlank()) {
+			chunks.add(current.toString().strip());
+		}
+		return chunks;
+	}
+
+	private static List<String> pieces(String text, int maxTokens) {
+		var pieces = new ArrayList<String>();
+		for (String paragraph : text.split("\\n\\s*\\n")) {
+			if (estimateTokens(paragraph) <= maxTokens) {
+				pieces.add(paragraph + "\n");
+				continue;
+			}
+			for (String line : paragraph.split("\\n")) {
+				if (estimateTokens(line) <= maxTokens) {
+					pieces.add(line);
+					continue;
+				}
+				// A single huge line (e.g. a log dump): cut it into fixed-size slices
+				int size = Math.max(1, maxTokens * CHARS_PER_TOKEN / 2);
+				for (int i = 0; i < line.length(); i += size) {
+					pieces.add(line.substring(i, Math.min(line.length(), i + size)));
+				}
+			}
+		}
+		return pieces;
+	}
+
+	@FunctionalInterface
+	public interface Summariser {
+		List<String> summarise(List<String> chunks, int wordsPerSummary);
+	}
+}
@@ -0,0 +1,125 @@
+package org.dacrewj.agent.agents;
+
+import com.embabel.common.ai.model.LlmOptions;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hedges LLM calls to cut tail latency: if a call has not answered within the configured delay, a duplicate request
+ * is sent (to the same model or to the configured alternate model), whichever answers first wins and the other one
+ * is cancelled.
+ * <p>
+ * Metrics:
+ * <ul>
+ *     <li>dacrew.llm.calls - calls made through the hedger, tagged by call</li>
+ *     <li>dacrew.llm.hedges - hedge requests sent, tagged by call and outcome (won/lost); hedge rate is hedges / calls</li>
+ *     <li>dacrew.llm.latency - latency observed by the caller, tagged by call and winner (primary/hedge), with
+ *     p50/p99; compare its p99 against a run with hedging disabled to see the improvement</li>
+ * </ul>
+ */
+@Component
+public class LlmHedger {
+
+	private static final Logger logger = LoggerFactory.getLogger(LlmHedger.class);
+
+	private final RequirementReviewerConfig.Hedging hedging;
+	private final MeterRegistry meterRegistry;
+	private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+	public LlmHedger(RequirementReviewerConfig config, MeterRegistry meterRegistry) {
+		this.hedging = config.hedging();
+		this.meterRegistry = meterRegistry;
+	}
+
+	@PreDestroy
+	void shutdown() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Performs the call with the given model, hedging it if hedging is enabled.
+	 *
+	 * @param name label of the call site used in metrics, e.g. "suggestion"
+	 * @param llm  the model for the primary request
+	 * @param call the LLM call, invoked with the model to use
+	 */
+	public <T> T call(String name, LlmOptions llm, Function<LlmOptions, T> call) {
+		Counter.builder("dacrew.llm.calls").tag("call", name).register(meterRegistry).increment();
+		long start = System.nanoTime();
+		if (!hedging.enabled()) {
+			T result = call.apply(llm);
+			record(name, "primary", start);
+			return result;
+		}
+
+		var completion = new ExecutorCompletionService<T>(executor);
+		Future<T> primary = completion.submit(() -> call.apply(llm));
+		Future<T> hedge = null;
+		try {
+			Future<T> first = completion.poll(hedging.delay().toNanos(), TimeUnit.NANOSECONDS);
+			if (first == null) {
+				var hedgeLlm = hedging.alternateLlm() != null ? hedging.alternateLlm() : llm;
+				logger.debug("LLM call '{}' exceeded {}; sending hedge request to the {} model", name, hedging.delay(),
+						hedging.alternateLlm() != null ? "alternate" : "same");
+				hedge = completion.submit(() -> call.apply(hedgeLlm));
+				first = completion.take();
+			}
+			T result;
+			try {
+				result = first.get();
+			} catch (ExecutionException e) {
+				if (hedge == null) {
+					throw e;
+				}
+				// The other request may still succeed
+				logger.debug("LLM call '{}' failed on {} request, waiting for the other: {}", name, first == hedge ? "hedge" : "primary", e.getCause().toString());
+				first = completion.take();
+				result = first.get();
+			}
+			String winner = first == primary ? "primary" : "hedge";
+			if (hedge != null) {
+				(first == primary ? hedge : primary).cancel(true);
+				Counter.builder("dacrew.llm.hedges").tag("call", name).tag("outcome", first == hedge ? "won" : "lost")
+						.register(meterRegistry).increment();
+			}
+			record(name, winner, start);
+			return result;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CancellationException("Interrupted while waiting for LLM call '" + name + "'");
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException runtime) {
+				throw runtime;
+			}
+			throw new CompletionException(e.getCause());
+		} finally {
+			primary.cancel(true);
+			if (hedge != null) {
+				hedge.cancel(true);
+			}
+		}
+	}
+
+	private void record(String name, String winner, long start) {
+		Timer.builder("dacrew.llm.latency")
+				.tag("call", name)
+				.tag("winner", winner)
+				.publishPercentiles(0.5, 0.99)
+				.register(meterRegistry)
+				.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+	}
+}
@@ -0,0 +1,149 @@
+package org.dacrewj.agent.agents;
+
+import com.embabel.common.ai.model.LlmOptions;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs an LLM call through the configured cascade of cheaper models before falling back to the main model.
+ * <p>
+ * Each tier answers together with a confidence between 0 and 1. The answer of the first tier whose confidence reaches
+ * its minConfidence is used; otherwise the call escalates to the next tier and finally to the main model. Tiers are
+ * skipped for requirements whose estimated size exceeds the tier's maxTokens, as a cheap complexity signal.
+ * <p>
+ * Metrics:
+ * <ul>
+ *     <li>dacrew.llm.cascade{call,tier,outcome=accepted|escalated|skipped} - escalation ratio is escalated / (accepted + escalated)</li>
+ *     <li>dacrew.llm.cascade.latency{call,tier} - latency per tier, tier "final" being the main model</li>
+ *     <li>dacrew.llm.cascade.saved{call} - estimated net milliseconds saved by the cascade so far. An accepted answer
+ *     saves the mean latency of the main model less the time since the call started, including any tiers that
+ *     escalated; a call which escalates to the main model loses the time spent in the tiers. The total is negative
+ *     while the cascade costs more than it saves. A gauge, as distribution summaries drop negative values.</li>
+ * </ul>
+ */
+@Component
+public class ModelCascade {
+
+	private static final Logger logger = LoggerFactory.getLogger(ModelCascade.class);
+
+	static final String FINAL_TIER = "final";
+
+	private final RequirementReviewerConfig.Cascade cascade;
+	private final MeterRegistry meterRegistry;
+	private final Map<String, DoubleAdder> saved = new ConcurrentHashMap<>();
+
+	public ModelCascade(RequirementReviewerConfig config, MeterRegistry meterRegistry) {
+		this.cascade = config.cascade();
+		this.meterRegistry = meterRegistry;
+	}
+
+	public boolean enabled() {
+		return cascade.enabled() && !cascade.tiers().isEmpty();
+	}
+
+	/**
+	 * @param name       label of the call site used in metrics, e.g. "critique"
+	 * @param complexity estimated size of the input in tokens
+	 * @param tierCall   the call made to a cascade tier, answering with a confidence
+	 * @param finalCall  the call made to the main model if no tier is confident enough
+	 */
+	public <T> T call(String name, int complexity, Function<LlmOptions, Scored<T>> tierCall, Supplier<T> finalCall) {
+		long callStart = System.nanoTime();
+		if (enabled()) {
+			List<RequirementReviewerConfig.Tier> tiers = cascade.tiers();
+			for (int i = 0; i < tiers.size(); i++) {
+				var tier = tiers.get(i);
+				String tierName = String.valueOf(i);
+				if (tier.maxTokens() > 0 && complexity > tier.maxTokens()) {
+					count(name, tierName, "skipped");
+					continue;
+				}
+				long start = System.nanoTime();
+				Scored<T> answer;
+				try {
+					answer = tierCall.apply(tier.llm());
+				} catch (RuntimeException e) {
+					logger.warn("Cascade tier {} failed for '{}', escalating: {}", i, name, e.toString());
+					count(name, tierName, "escalated");
+					continue;
+				}
+				long elapsed = System.nanoTime() - start;
+				latency(name, tierName).record(elapsed, TimeUnit.NANOSECONDS);
+				if (answer != null && answer.value() != null && answer.confidence() >= tier.minConfidence()) {
+					logger.debug("Cascade tier {} answered '{}' with confidence {}", i, name, answer.confidence());
+					count(name, tierName, "accepted");
+					recordAccepted(name, System.nanoTime() - callStart);
+					return answer.value();
+				}
+				logger.debug("Cascade tier {} not confident enough for '{}' ({} < {}), escalating", i, name,
+						answer != null ? answer.confidence() : null, tier.minConfidence());
+				count(name, tierName, "escalated");
+			}
+		}
+		long start = System.nanoTime();
+		T result = finalCall.get();
+		latency(name, FINAL_TIER).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		if (enabled()) {
+			// The main model would have been called anyway: the time spent in the tiers is lost
+			saved(name).add(-nanosToMillis(start - callStart));
+		}
+		return result;
+	}
+
+	private void recordAccepted(String name, long callNanos) {
+		Timer main = meterRegistry.find("dacrew.llm.cascade.latency").tags("call", name, "tier", FINAL_TIER).timer();
+		if (main == null || main.count() == 0) {
+			return;
+		}
+		saved(name).add(main.mean(TimeUnit.MILLISECONDS) - nanosToMillis(callNanos));
+	}
+
+	private DoubleAdder saved(String name) {
+		return saved.computeIfAbsent(name, call -> {
+			var total = new DoubleAdder();
+			Gauge.builder("dacrew.llm.cascade.saved", total, DoubleAdder::sum)
+					.baseUnit("milliseconds")
+					.tag("call", call)
+					.register(meterRegistry);
+			return total;
+		});
+	}
+
+	private static double nanosToMillis(long nanos) {
+		return nanos / 1_000_000.0;
+	}
+
+	private void count(String name, String tier, String outcome) {
+		Counter.builder("dacrew.llm.cascade")
+				.tag("call", name)
+				.tag("tier", tier)
+				.tag("outcome", outcome)
+				.register(meterRegistry)
+				.increment();
+	}
+
+	private Timer latency(String name, String tier) {
+		return Timer.builder("dacrew.llm.cascade.latency")
+				.tag("call", name)
+				.tag("tier", tier)
+				.publishPercentiles(0.5, 0.99)
+				.register(meterRegistry);
+	}
+
+	/**
+	 * An answer from a cascade tier and the model's confidence in it, between 0 and 1.
+	 */
+	public record Scored<T>(T value, double confidence) {}
+}
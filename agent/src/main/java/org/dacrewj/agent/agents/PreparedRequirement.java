@@ -0,0 +1,28 @@
+package org.dacrewj.agent.agents;
+
+import com.embabel.common.ai.prompt.PromptContributor;
+import com.fasterxml.jackson.annotation.JsonPropertyDescription;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A {@link DraftRequirement} whose description has been reduced to plain text within the configured token budget.
+ */
+public record PreparedRequirement(
+		@JsonPropertyDescription("Source of the requirement") String source,
+		@JsonPropertyDescription("Key of the requirement") String key,
+		@JsonPropertyDescription("Summary of the requirement") String summary,
+		@JsonPropertyDescription("Plain-text description of the requirement, condensed if it was too long") String description,
+		@JsonPropertyDescription("Estimated number of tokens of the description") int estimatedTokens,
+		@JsonPropertyDescription("Whether the description was condensed by summarisation") boolean condensed) implements PromptContributor {
+
+	@Override
+	public @NotNull String contribution() {
+		return """
+				Draft Requirement:
+				Source: %s
+				Key: %s
+				Summary: %s
+				Description%s: %s
+				""".formatted(source, key, summary, condensed ? " (condensed)" : "", description);
+	}
+}
@@ -9,9 +9,16 @@ import com.embabel.agent.api.common.OperationContext;
 import com.embabel.agent.domain.io.UserInput;
 import com.embabel.common.ai.prompt.PromptContributor;
 import com.fasterxml.jackson.annotation.JsonPropertyDescription;
+import io.micrometer.observation.ObservationRegistry;
 import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
+import org.dacrewj.agent.concurrent.StageScope;
+import org.dacrewj.agent.jfr.ReviewActionEvent;
+import org.dacrewj.agent.store.ReviewStore;
+import org.dacrewj.messaging.Stages;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,6 +44,11 @@ record Critique(
 	}
 }
 
+record ScoredCritique(
+		@JsonPropertyDescription("A critique") List<Criticism> criticisms,
+		@JsonPropertyDescription("Confidence between 0.0 and 1.0 that the critique is complete and correct") double confidence) {
+}
+
 record ImprovementSuggestions(
 		@JsonPropertyDescription("Suggested improvements") List<String> suggestions) implements PromptContributor {
 	@Override
@@ -50,7 +62,13 @@ record ImprovementSuggestions(
 				Review a draft requirement, provide a critique, improvement suggestions, and a statement on
 				whether the draft is approved for development"""
 )
-public record RequirementReviewer(RequirementReviewerConfig config) {
+public record RequirementReviewer(
+		RequirementReviewerConfig config,
+		LlmHedger hedger,
+		ModelCascade cascade,
+		CritiqueBatcher batcher,
+		ReviewStore reviewStore,
+		ObservationRegistry observationRegistry) {
 
 	private static final Logger logger = LoggerFactory.getLogger(RequirementReviewer.class);
 
@@ -67,11 +85,11 @@ public record RequirementReviewer(RequirementReviewerConfig config) {
 
 	@Action
 	public DraftRequirement getDraftRequirement(UserInput userInput, OperationContext context) {
-		DraftRequirement draftRequirement = context.ai()
+		DraftRequirement draftRequirement = ReviewActionEvent.record("getDraftRequirement", null, () -> context.ai()
 				.withDefaultLlm()
 				.createObjectIfPossible("""
 								Create a draft requirement from this user input extracting their details: %s
-						""".formatted(userInput.getContent()), DraftRequirement.class);
+						""".formatted(userInput.getContent()), DraftRequirement.class));
 
 		logger.info("Draft requirement: {}", draftRequirement);
 
@@ -79,25 +97,82 @@ public record RequirementReviewer(RequirementReviewerConfig config) {
 	}
 
 	@Action
-	Critique criticise(
-			DraftRequirement requirement,
-			OperationContext context) {
-		Critique critique = context.ai()
+	PreparedRequirement prepareRequirement(DraftRequirement requirement, OperationContext context) {
+		var preprocessor = new DescriptionPreprocessor(
+				config.preprocessing().descriptionTokenBudget(),
+				config.preprocessing().chunkTokens());
+		var prepared = ReviewActionEvent.record("prepareRequirement", requirement.key(), () ->
+				Stages.observation(Stages.DRAFT, observationRegistry).observe(() -> preprocessor.prepare(
+						requirement,
+						(chunks, words) -> context.parallelMap(
+								chunks,
+								config.maxConcurrency(),
+								chunk -> summariseChunk(chunk, words, context)))));
+		logger.info("Prepared requirement {}: ~{} description tokens (condensed: {})", prepared.key(), prepared.estimatedTokens(), prepared.condensed());
+		return prepared;
+	}
+
+	private String summariseChunk(String chunk, int words, OperationContext context) {
+		return context.ai()
 				.withLlm(config.llm())
-				.withPromptElements(config.reviewer(), requirement)
 				.createObject("""
-						Create a critique based on the given draft requirement's summary and description:
-						Summary: %s
-						Description: %s
+						Summarise the following part of a software requirement description in at most %d words.
+						Keep every functional requirement, constraint, acceptance criterion, number and name.
+						Leave out greetings, repetitions, log lines and formatting.
 						
-						The critique comprises a list of criticisms. A criticismText must name the best-practice
-						principle, which has been ignored or contradicted by the requirement, and then explain
-						specifics of how the requirement ignores or contradicts the principle.
-						Do not include suggestion improvements in the criticismText of the criticismText.
-						Order the list of criticisms in terms of seriousness, starting with the most serious item
-						at position 0 in the list.
-						If the requirement is flawless, then create a critique with an empty list of criticisms.
-						""".formatted(requirement.summary(), requirement.description()), Critique.class);
+						%s
+						""".formatted(words, chunk), String.class);
+	}
+
+	@Action
+	Critique criticise(
+			PreparedRequirement requirement,
+			OperationContext context) {
+		return ReviewActionEvent.record("criticise", requirement.key(), () ->
+				Stages.observation(Stages.CRITIQUE, observationRegistry).observe(() ->
+						StageScope.call("critique", config.deadlines().critique(), () -> criticiseInTime(requirement, context))));
+	}
+
+	private Critique criticiseInTime(PreparedRequirement requirement, OperationContext context) {
+		if (batcher.accepts(requirement)) {
+			Critique critique = batcher.critique(requirement);
+			if (critique != null) {
+				logger.info("Requirement critique (batched): {}", critique);
+				return critique;
+			}
+		}
+		String prompt = """
+				Create a critique based on the given draft requirement's summary and description:
+				Summary: %s
+				Description: %s
+				
+				The critique comprises a list of criticisms. A criticismText must name the best-practice
+				principle, which has been ignored or contradicted by the requirement, and then explain
+				specifics of how the requirement ignores or contradicts the principle.
+				Do not include suggestion improvements in the criticismText of the criticismText.
+				Order the list of criticisms in terms of seriousness, starting with the most serious item
+				at position 0 in the list.
+				If the requirement is flawless, then create a critique with an empty list of criticisms.
+				""".formatted(requirement.summary(), requirement.description());
+		Critique critique = cascade.call("critique", requirement.estimatedTokens(),
+				llm -> {
+					ScoredCritique scored = context.ai()
+							.withLlm(llm)
+							.withPromptElements(config.reviewer(), requirement)
+							.createObject(prompt + """
+									Also rate your confidence, between 0.0 and 1.0, that the critique is complete and
+									correct. Use a low confidence if the requirement is long, ambiguous or technically
+									involved.
+									""", ScoredCritique.class);
+					if (scored == null || scored.criticisms() == null) {
+						return null;
+					}
+					return new ModelCascade.Scored<>(new Critique(scored.criticisms()), scored.confidence());
+				},
+				() -> hedger.call("critique", config.llm(), llm -> context.ai()
+						.withLlm(llm)
+						.withPromptElements(config.reviewer(), requirement)
+						.createObject(prompt, Critique.class)));
 
 		logger.info("Requirement critique: {}", critique);
 
@@ -105,43 +180,67 @@ public record RequirementReviewer(RequirementReviewerConfig config) {
 	}
 
 	@Action
-	ImprovementSuggestions suggestImprovements(DraftRequirement requirement, Critique critique, OperationContext context) {
+	ImprovementSuggestions suggestImprovements(PreparedRequirement requirement, Critique critique, OperationContext context) {
 		logger.info("RequirementReviewer.getImprovementSuggestions invoked for issue {}", requirement.key());
+		return ReviewActionEvent.record("suggestImprovements", requirement.key(),
+				() -> suggestImprovementsInTime(requirement, critique, context));
+	}
+
+	private ImprovementSuggestions suggestImprovementsInTime(PreparedRequirement requirement, Critique critique, OperationContext context) {
 		if (critique.criticisms().isEmpty()) {
 			return new ImprovementSuggestions(List.of());
 		}
 
-		var suggestions = context.parallelMap(
-				critique.criticisms(),
-				config.maxConcurrency(),
-				criticism -> writeSuggestion(requirement, criticism, context)
-		);
-
-		return new ImprovementSuggestions(suggestions);
+		// Suggestions still being written at the deadline are cancelled and left out rather than failing the review
+		var permits = new Semaphore(config.maxConcurrency());
+		try (var scope = StageScope.open("suggestions", config.deadlines().suggestions())) {
+			var subtasks = critique.criticisms().stream()
+					.map(criticism -> scope.fork(() -> {
+						permits.acquire();
+						try {
+							return writeSuggestion(requirement, criticism, context);
+						} finally {
+							permits.release();
+						}
+					}))
+					.toList();
+			scope.join();
+			var suggestions = subtasks.stream()
+					.filter(subtask -> subtask.state() == Future.State.SUCCESS)
+					.map(StageScope.Subtask::get)
+					.toList();
+			if (suggestions.size() < subtasks.size()) {
+				logger.warn("Only {} of {} improvement suggestions for {} were written{}", suggestions.size(), subtasks.size(),
+						requirement.key(), scope.timedOut() ? " before the deadline" : "");
+			}
+			return new ImprovementSuggestions(suggestions);
+		}
 	}
 
 	@Action
-	String writeSuggestion(DraftRequirement requirement, Criticism criticism, OperationContext context) {
+	String writeSuggestion(PreparedRequirement requirement, Criticism criticism, OperationContext context) {
 		logger.info("Writing improvement suggestion to address criticism text: {}", criticism);
-		return context.ai()
-				.withLlm(config.llm())
-				.withPromptElements(requirement, criticism)
-				.createObject("""
-						Write a succinct suggestion for how to address the criticism text.
-						Criticism: %s
-						""".formatted(criticism), String.class);
+		return ReviewActionEvent.record("writeSuggestion", requirement.key(), () ->
+				Stages.observation(Stages.SUGGESTION, observationRegistry).observe(() ->
+						hedger.call("suggestion", config.llm(), llm -> context.ai()
+								.withLlm(llm)
+								.withPromptElements(requirement, criticism)
+								.createObject("""
+										Write a succinct suggestion for how to address the criticism text.
+										Criticism: %s
+										""".formatted(criticism), String.class))));
 	}
 
 	@Action
 	RequirementReview writeReview(DraftRequirement draftRequirement, Critique critique, ImprovementSuggestions suggestions, OperationContext context) {
 		logger.info("RequirementReviewer.writeReview");
-		return new RequirementReview(
+		return ReviewActionEvent.record("writeReview", draftRequirement.key(), () -> new RequirementReview(
 				draftRequirement.source(),
 				draftRequirement.key(),
 				draftRequirement.summary(),
 				critique.criticisms().stream().map(Criticism::criticismText).toList(),
 				suggestions.suggestions(),
-				critique.criticisms().isEmpty());
+				critique.criticisms().isEmpty()));
 	}
 
 
@@ -151,10 +250,14 @@ public record RequirementReviewer(RequirementReviewerConfig config) {
 			export = @Export(remote = true)
 	)
 	@Action
-	RequirementReview publishRequirementReview(RequirementReview review) {
+	public RequirementReview publishRequirementReview(RequirementReview review) {
 		logger.info("RequirementReviewer.reviewRequirement");
-		var path = config.saveContent(review);
-		logger.info("Book {} written and saved to {}", review.summary(), path);
+		var stored = ReviewActionEvent.record("publishRequirementReview", review.key(), () -> reviewStore.append(review));
+		logger.info("Review of {} stored at {}", review.key(), stored.reviewedAt());
+		if (reviewStore.markdownExport()) {
+			var path = config.saveContent(review);
+			logger.info("Review of {} exported to {}", review.key(), path);
+		}
 		return review;
 	}
 }
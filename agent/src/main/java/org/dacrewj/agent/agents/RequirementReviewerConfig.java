@@ -7,6 +7,8 @@ import com.embabel.common.ai.model.LlmOptions;
 import com.embabel.agent.prompt.persona.RoleGoalBackstory;
 import java.io.File;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 /**
@@ -17,9 +19,105 @@ public record RequirementReviewerConfig(
 		LlmOptions llm,
 		int maxConcurrency,
 		RoleGoalBackstory reviewer,
-		String outputDirectory
+		String outputDirectory,
+		Preprocessing preprocessing,
+		Hedging hedging,
+		Cascade cascade,
+		Deduplication deduplication,
+		Batching batching,
+		Deadlines deadlines
 ) {
 
+	public RequirementReviewerConfig {
+		if (preprocessing == null) preprocessing = new Preprocessing(0, 0);
+		if (hedging == null) hedging = new Hedging(false, null, null);
+		if (cascade == null) cascade = new Cascade(false, null);
+		if (deduplication == null) deduplication = new Deduplication(false, 0, null, 0, 0, 0);
+		if (batching == null) batching = new Batching(false, 0, null, 0);
+		if (deadlines == null) deadlines = new Deadlines(null, null, null);
+	}
+
+	/**
+	 * Token budget for the requirement description passed to the LLM, and the chunk size used when condensing
+	 * descriptions which exceed it.
+	 */
+	public record Preprocessing(int descriptionTokenBudget, int chunkTokens) {
+		public Preprocessing {
+			if (descriptionTokenBudget <= 0) descriptionTokenBudget = 2000;
+			if (chunkTokens <= 0) chunkTokens = 1500;
+		}
+	}
+
+	/**
+	 * Hedging of LLM calls: after delay without an answer a duplicate request is sent to alternateLlm
+	 * (or to the same model if none is configured) and the first answer wins.
+	 */
+	public record Hedging(boolean enabled, Duration delay, LlmOptions alternateLlm) {
+		public Hedging {
+			if (delay == null) delay = Duration.ofSeconds(20);
+		}
+	}
+
+	/**
+	 * Model cascade for critiques: the tiers, cheapest first, are tried before the main llm.
+	 */
+	public record Cascade(boolean enabled, List<Tier> tiers) {
+		public Cascade {
+			tiers = tiers != null ? List.copyOf(tiers) : List.of();
+		}
+	}
+
+	/**
+	 * A cascade tier. Its answer is accepted if the model's confidence is at least minConfidence; requirements
+	 * estimated above maxTokens (if positive) skip the tier.
+	 */
+	public record Tier(LlmOptions llm, double minConfidence, int maxTokens) {
+		public Tier {
+			if (minConfidence <= 0) minConfidence = 0.8;
+		}
+	}
+
+	/**
+	 * Reuse of reviews for near-duplicate requirements: a requirement whose estimated Jaccard similarity to one
+	 * already reviewed is at least threshold gets that review. hashes must be a multiple of bands.
+	 */
+	public record Deduplication(boolean enabled, double threshold, String file, int hashes, int bands, int maxEntries) {
+		public Deduplication {
+			if (threshold <= 0) threshold = 0.9;
+			if (file == null || file.isBlank()) file = "review-similarity.jsonl";
+			if (hashes <= 0) hashes = 128;
+			if (bands <= 0) bands = 32;
+			if (maxEntries <= 0) maxEntries = 10_000;
+			if (hashes % bands != 0) {
+				throw new IllegalArgumentException("deduplication.hashes (" + hashes + ") must be a multiple of deduplication.bands (" + bands + ")");
+			}
+		}
+	}
+
+	/**
+	 * Micro-batching of critiques: requirements of at most maxTokens arriving within window of the first one are
+	 * critiqued together, up to maxSize per call.
+	 */
+	public record Batching(boolean enabled, int maxSize, Duration window, int maxTokens) {
+		public Batching {
+			if (maxSize <= 0) maxSize = 8;
+			if (window == null) window = Duration.ofSeconds(2);
+			if (maxTokens <= 0) maxTokens = 300;
+		}
+	}
+
+	/**
+	 * Deadlines of the review as a whole and of its LLM stages. Suggestions which are not written by the suggestions
+	 * deadline are left out of the review.
+	 */
+	public record Deadlines(Duration review, Duration critique, Duration suggestions) {
+		public Deadlines {
+			if (review == null) review = Duration.ofMinutes(10);
+			if (critique == null) critique = Duration.ofMinutes(3);
+			if (suggestions == null) suggestions = Duration.ofMinutes(3);
+		}
+	}
+
 	public Path saveContent(RequirementReview review) {
 		var dir = outputDirectory != null ? outputDirectory : System.getProperty("user.dir");
 		var timestamp = now().format(ofPattern("yyyyMMdd'T'HHmmss"));
@@ -0,0 +1,293 @@
+package org.dacrewj.agent.agents;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Finds requirements which are near-duplicates of one already reviewed, so that the earlier review can be reused
+ * instead of asking the LLM again.
+ * <p>
+ * The summary and description are reduced to a set of word 3-shingles whose MinHash signature estimates the Jaccard
+ * similarity between two requirements. Signatures are split into LSH bands so that only requirements sharing at
+ * least one band are compared. Entries are appended to a JSON-lines file and replayed on startup; the file is
+ * compacted once it holds twice as many lines as live entries.
+ */
+@Component
+public class RequirementSimilarityIndex {
+
+	private static final Logger logger = LoggerFactory.getLogger(RequirementSimilarityIndex.class);
+
+	private static final int SHINGLE_WORDS = 3;
+	private static final int MIN_SHINGLES = 8;
+
+	private final ObjectMapper mapper = new ObjectMapper();
+	private final RequirementReviewerConfig.Deduplication config;
+	private final Path file;
+	private final int rowsPerBand;
+	private final long[] seeds;
+
+	private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+	private final Map<Long, Set<String>> buckets = new HashMap<>();
+	private int fileLines;
+
+	public RequirementSimilarityIndex(RequirementReviewerConfig config) {
+		this.config = config.deduplication();
+		this.file = Path.of(this.config.file());
+		this.rowsPerBand = this.config.hashes() / this.config.bands();
+		this.seeds = new long[this.config.hashes()];
+		for (int i = 0; i < seeds.length; i++) {
+			seeds[i] = mix(0x9E3779B97F4A7C15L * (i + 1));
+		}
+		if (this.config.enabled()) {
+			load();
+		}
+	}
+
+	/**
+	 * @return the review of the most similar requirement with a different key at or above the configured similarity,
+	 * re-labelled for the given requirement
+	 */
+	public synchronized Optional<Match> findDuplicate(DraftRequirement requirement) {
+		if (!config.enabled()) {
+			return Optional.empty();
+		}
+		long[] signature = signature(requirement);
+		if (signature == null) {
+			return Optional.empty();
+		}
+		Entry best = null;
+		double bestSimilarity = 0;
+		for (String candidateKey : candidates(signature)) {
+			Entry candidate = entries.get(candidateKey);
+			if (candidate == null || candidate.key().equals(requirement.key())) {
+				continue;
+			}
+			double similarity = similarity(signature, candidate.signature());
+			if (similarity >= config.threshold() && similarity > bestSimilarity) {
+				best = candidate;
+				bestSimilarity = similarity;
+			}
+		}
+		if (best == null) {
+			return Optional.empty();
+		}
+		var review = best.review();
+		var relabelled = new RequirementReview(requirement.source(), requirement.key(), requirement.summary(),
+				review.critique(), review.suggestions(), review.approved());
+		return Optional.of(new Match(best.key(), bestSimilarity, relabelled));
+	}
+
+	/**
+	 * Records the review of a requirement, replacing any earlier entry for the same key.
+	 */
+	public synchronized void add(DraftRequirement requirement, RequirementReview review) {
+		if (!config.enabled()) {
+			return;
+		}
+		long[] signature = signature(requirement);
+		if (signature == null) {
+			return;
+		}
+		var entry = new Entry(requirement.key(), signature, review);
+		put(entry);
+		append(entry);
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	private void put(Entry entry) {
+		remove(entry.key());
+		entries.put(entry.key(), entry);
+		for (long bucket : bucketKeys(entry.signature())) {
+			buckets.computeIfAbsent(bucket, b -> new HashSet<>()).add(entry.key());
+		}
+		if (entries.size() > config.maxEntries()) {
+			remove(entries.keySet().iterator().next());
+		}
+	}
+
+	private void remove(String key) {
+		Entry old = entries.remove(key);
+		if (old == null) {
+			return;
+		}
+		for (long bucket : bucketKeys(old.signature())) {
+			Set<String> keys = buckets.get(bucket);
+			if (keys != null) {
+				keys.remove(key);
+				if (keys.isEmpty()) {
+					buckets.remove(bucket);
+				}
+			}
+		}
+	}
+
+	private Set<String> candidates(long[] signature) {
+		var candidates = new HashSet<String>();
+		for (long bucket : bucketKeys(signature)) {
+			candidates.addAll(buckets.getOrDefault(bucket, Set.of()));
+		}
+		return candidates;
+	}
+
+	private long[] bucketKeys(long[] signature) {
+		long[] keys = new long[config.bands()];
+		for (int band = 0; band < keys.length; band++) {
+			long hash = mix(band + 1);
+			for (int row = 0; row < rowsPerBand; row++) {
+				hash = mix(hash ^ signature[band * rowsPerBand + row]);
+			}
+			keys[band] = hash;
+		}
+		return keys;
+	}
+
+	/**
+	 * @return the MinHash signature, or null if the text is too short for a meaningful comparison
+	 */
+	long[] signature(DraftRequirement requirement) {
+		Set<Long> shingles = shingles(requirement.summary() + "\n" + DescriptionPreprocessor.toPlainText(requirement.description()));
+		if (shingles.size() < MIN_SHINGLES) {
+			return null;
+		}
+		long[] signature = new long[seeds.length];
+		Arrays.fill(signature, Long.MAX_VALUE);
+		for (long shingle : shingles) {
+			for (int i = 0; i < seeds.length; i++) {
+				long hash = mix(shingle ^ seeds[i]);
+				if (hash < signature[i]) {
+					signature[i] = hash;
+				}
+			}
+		}
+		return signature;
+	}
+
+	static double similarity(long[] a, long[] b) {
+		int equal = 0;
+		for (int i = 0; i < a.length; i++) {
+			if (a[i] == b[i]) {
+				equal++;
+			}
+		}
+		return (double) equal / a.length;
+	}
+
+	static Set<Long> shingles(String text) {
+		String[] words = text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+");
+		var tokens = new ArrayList<String>(words.length);
+		for (String word : words) {
+			if (!word.isEmpty()) {
+				tokens.add(word);
+			}
+		}
+		var shingles = new HashSet<Long>();
+		for (int i = 0; i + SHINGLE_WORDS <= tokens.size(); i++) {
+			long hash = 0xcbf29ce484222325L;
+			for (int w = i; w < i + SHINGLE_WORDS; w++) {
+				String token = tokens.get(w);
+				for (int c = 0; c < token.length(); c++) {
+					hash = (hash ^ token.charAt(c)) * 0x100000001b3L;
+				}
+				hash = (hash ^ ' ') * 0x100000001b3L;
+			}
+			shingles.add(hash);
+		}
+		return shingles;
+	}
+
+	/**
+	 * SplitMix64 finaliser, used as a family of hash functions by xor-ing a different seed into the input.
+	 */
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+	private void load() {
+		if (!Files.exists(file)) {
+			return;
+		}
+		try (var lines = Files.lines(file, StandardCharsets.UTF_8)) {
+			for (Iterator<String> it = lines.iterator(); it.hasNext(); ) {
+				String line = it.next();
+				if (line.isBlank()) {
+					continue;
+				}
+				fileLines++;
+				try {
+					Entry entry = mapper.readValue(line, Entry.class);
+					if (entry.signature() != null && entry.signature().length == seeds.length) {
+						put(entry);
+					}
+				} catch (IOException e) {
+					logger.warn("Skipping unreadable line in similarity index {}: {}", file, e.toString());
+				}
+			}
+			logger.info("Loaded {} reviewed requirements into the similarity index from {}", entries.size(), file);
+		} catch (IOException e) {
+			logger.warn("Unable to read similarity index {}; starting empty: {}", file, e.toString());
+		}
+	}
+
+	private void append(Entry entry) {
+		try {
+			Path parent = file.toAbsolutePath().getParent();
+			if (parent != null) {
+				Files.createDirectories(parent);
+			}
+			if (fileLines >= 2 * Math.max(entries.size(), 64)) {
+				compact();
+				return;
+			}
+			try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+					StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+				writer.write(mapper.writeValueAsString(entry));
+				writer.newLine();
+			}
+			fileLines++;
+		} catch (IOException e) {
+			logger.error("Unable to write similarity index {}", file, e);
+		}
+	}
+
+	private void compact() throws IOException {
+		Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+		try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+			for (Entry entry : entries.values()) {
+				writer.write(mapper.writeValueAsString(entry));
+				writer.newLine();
+			}
+		}
+		Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		fileLines = entries.size();
+		logger.debug("Compacted similarity index {} to {} entries", file, fileLines);
+	}
+
+	public record Match(String duplicateOf, double similarity, RequirementReview review) {}
+
+	record Entry(String key, long[] signature, RequirementReview review) {}
+}
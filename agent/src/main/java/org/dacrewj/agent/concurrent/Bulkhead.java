@@ -0,0 +1,119 @@
+package org.dacrewj.agent.concurrent;
+
+import io.micrometer.context.ContextSnapshotFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Isolates one kind of work on its own bounded executor: at most concurrency tasks run at a time and at most
+ * queueCapacity wait. A caller submitting to a full bulkhead waits up to queueWait for room and is then rejected
+ * with {@link BulkheadFullException}, so a flood of one kind of work cannot occupy the threads of another.
+ * Waiting callers are let in first come, first served.
+ * <p>
+ * Metrics, tagged by bulkhead name: dacrew.bulkhead.active, dacrew.bulkhead.queued, dacrew.bulkhead.saturation
+ * (occupied / (concurrency + queueCapacity)), dacrew.bulkhead.rejected and dacrew.bulkhead.wait (time spent in
+ * the queue).
+ * <p>
+ * Tasks run with the thread-local context (e.g. the current observation) of the submitting thread.
+ */
+public final class Bulkhead implements AutoCloseable {
+
+	private static final ContextSnapshotFactory CONTEXT = ContextSnapshotFactory.builder().build();
+
+	private final String name;
+	private final int capacity;
+	private final Duration queueWait;
+	private final Semaphore permits;
+	private final ThreadPoolExecutor executor;
+	private final Counter rejected;
+	private final Timer waitTimer;
+
+	public Bulkhead(String name, int concurrency, int queueCapacity, Duration queueWait, MeterRegistry meterRegistry) {
+		this.name = name;
+		this.capacity = concurrency + queueCapacity;
+		this.queueWait = queueWait;
+		// Fair: callers waiting for room are let in in arrival order, a newly arriving caller cannot overtake them
+		this.permits = new Semaphore(capacity, true);
+		this.executor = new ThreadPoolExecutor(concurrency, concurrency, 60, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+				Thread.ofPlatform().name(name + "-", 0).daemon(true).factory());
+		this.executor.allowCoreThreadTimeOut(true);
+		this.rejected = Counter.builder("dacrew.bulkhead.rejected").tag("bulkhead", name).register(meterRegistry);
+		this.waitTimer = Timer.builder("dacrew.bulkhead.wait").tag("bulkhead", name)
+				.publishPercentiles(0.5, 0.99).register(meterRegistry);
+		Gauge.builder("dacrew.bulkhead.active", executor, ThreadPoolExecutor::getActiveCount)
+				.tag("bulkhead", name).register(meterRegistry);
+		Gauge.builder("dacrew.bulkhead.queued", executor, e -> e.getQueue().size())
+				.tag("bulkhead", name).register(meterRegistry);
+		Gauge.builder("dacrew.bulkhead.saturation", this, Bulkhead::saturation)
+				.tag("bulkhead", name).register(meterRegistry);
+	}
+
+	public String name() {
+		return name;
+	}
+
+	/**
+	 * @return the share of running and queued slots in use, between 0 and 1
+	 */
+	public double saturation() {
+		return (double) (capacity - permits.availablePermits()) / capacity;
+	}
+
+	/**
+	 * Runs the task on the bulkhead. May block the caller for up to queueWait while the bulkhead is full.
+	 *
+	 * @return completes when the task has finished; exceptionally with {@link BulkheadFullException} if there was
+	 * no room, or with the task's exception
+	 */
+	public CompletableFuture<Void> submit(Runnable task) {
+		try {
+			if (!permits.tryAcquire(queueWait.toMillis(), TimeUnit.MILLISECONDS)) {
+				rejected.increment();
+				return CompletableFuture.failedFuture(new BulkheadFullException(name));
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return CompletableFuture.failedFuture(new BulkheadFullException(name));
+		}
+		long queuedAt = System.nanoTime();
+		Runnable inContext = CONTEXT.captureAll().wrap(task);
+		try {
+			return CompletableFuture.runAsync(() -> {
+				waitTimer.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+				try {
+					inContext.run();
+				} finally {
+					permits.release();
+				}
+			}, executor);
+		} catch (RuntimeException e) {
+			// Executor shut down
+			permits.release();
+			rejected.increment();
+			return CompletableFuture.failedFuture(new BulkheadFullException(name));
+		}
+	}
+
+	@Override
+	public void close() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * The bulkhead had no room for the task within its queue wait.
+	 */
+	public static class BulkheadFullException extends RuntimeException {
+		public BulkheadFullException(String bulkhead) {
+			super("Bulkhead '" + bulkhead + "' is full");
+		}
+	}
+}
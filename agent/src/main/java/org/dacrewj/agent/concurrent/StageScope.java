@@ -0,0 +1,165 @@
+package org.dacrewj.agent.concurrent;
+
+import io.micrometer.context.ContextSnapshotFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Structured scope for one stage of the review pipeline: subtasks forked in the scope run on their own virtual
+ * threads, {@link #join()} waits for them until the stage deadline, and whatever is still running at the deadline
+ * (or when the scope is closed) is cancelled, so no subtask outlives its stage.
+ * <p>
+ * Modelled on JDK 21's StructuredTaskScope, which is a preview API there and would require --enable-preview for
+ * compilation, tests and every launch of the agent. Unlike the JDK's shutdown policies, reaching the deadline is
+ * not an error: the caller decides what to do with the subtasks which did finish.
+ * <p>
+ * Like scoped values in a StructuredTaskScope, the caller's thread-local context (in particular the current
+ * observation, and so the trace) is carried over to the subtasks.
+ */
+public final class StageScope implements AutoCloseable {
+
+	private static final Logger logger = LoggerFactory.getLogger(StageScope.class);
+
+	private static final Duration CLOSE_GRACE = Duration.ofSeconds(5);
+	private static final ContextSnapshotFactory CONTEXT = ContextSnapshotFactory.builder().build();
+
+	private final String stage;
+	private final long deadlineNanos;
+	private final Duration deadline;
+	private final ExecutorService executor;
+	private final List<Subtask<?>> subtasks = new ArrayList<>();
+	private boolean timedOut;
+
+	private StageScope(String stage, Duration deadline) {
+		this.stage = stage;
+		this.deadline = deadline;
+		this.deadlineNanos = System.nanoTime() + deadline.toNanos();
+		this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(stage + "-", 0).factory());
+	}
+
+	/**
+	 * Opens a scope whose subtasks must finish within deadline from now.
+	 */
+	public static StageScope open(String stage, Duration deadline) {
+		return new StageScope(stage, deadline);
+	}
+
+	/**
+	 * Runs a single task with a deadline.
+	 *
+	 * @throws StageTimeoutException if the task did not finish in time; the task has been cancelled
+	 */
+	public static <T> T call(String stage, Duration deadline, Callable<T> task) {
+		try (var scope = open(stage, deadline)) {
+			var subtask = scope.fork(task);
+			scope.join();
+			return switch (subtask.state()) {
+				case SUCCESS -> subtask.get();
+				case FAILED -> throw subtask.exception() instanceof RuntimeException runtime
+						? runtime : new CompletionException(subtask.exception());
+				default -> throw new StageTimeoutException(stage, deadline);
+			};
+		}
+	}
+
+	public <T> Subtask<T> fork(Callable<T> task) {
+		var subtask = new Subtask<>(executor.submit(CONTEXT.captureAll().wrap(task)));
+		subtasks.add(subtask);
+		return subtask;
+	}
+
+	/**
+	 * Waits for all subtasks until the deadline and cancels those still running then.
+	 *
+	 * @return true if every subtask finished in time
+	 */
+	public boolean join() {
+		try {
+			for (Subtask<?> subtask : subtasks) {
+				long remaining = deadlineNanos - System.nanoTime();
+				try {
+					subtask.future.get(Math.max(0, remaining), TimeUnit.NANOSECONDS);
+				} catch (ExecutionException | CancellationException e) {
+					// Reported through the subtask's state
+				}
+			}
+			return true;
+		} catch (TimeoutException e) {
+			timedOut = true;
+			long outstanding = subtasks.stream().filter(s -> !s.future.isDone()).count();
+			logger.warn("Stage '{}' exceeded its deadline of {}; cancelling {} of {} subtasks", stage, deadline, outstanding, subtasks.size());
+			cancelAll();
+			return false;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			cancelAll();
+			throw new CancellationException("Interrupted while waiting for stage '" + stage + "'");
+		}
+	}
+
+	public boolean timedOut() {
+		return timedOut;
+	}
+
+	private void cancelAll() {
+		subtasks.forEach(s -> s.future.cancel(true));
+	}
+
+	/**
+	 * Cancels subtasks still running and waits briefly for their threads to end.
+	 */
+	@Override
+	public void close() {
+		cancelAll();
+		executor.shutdownNow();
+		try {
+			if (!executor.awaitTermination(CLOSE_GRACE.toMillis(), TimeUnit.MILLISECONDS)) {
+				logger.warn("Subtasks of stage '{}' did not respond to cancellation within {}", stage, CLOSE_GRACE);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * A forked subtask. Its state is only final after {@link #join()}.
+	 */
+	public static final class Subtask<T> {
+
+		private final Future<T> future;
+
+		private Subtask(Future<T> future) {
+			this.future = future;
+		}
+
+		public Future.State state() {
+			return future.state();
+		}
+
+		/**
+		 * @return the result of a subtask in state SUCCESS
+		 */
+		public T get() {
+			return future.resultNow();
+		}
+
+		/**
+		 * @return the exception of a subtask in state FAILED
+		 */
+		public Throwable exception() {
+			return future.exceptionNow();
+		}
+	}
+}
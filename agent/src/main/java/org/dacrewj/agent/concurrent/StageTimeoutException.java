@@ -0,0 +1,20 @@
+package org.dacrewj.agent.concurrent;
+
+import java.time.Duration;
+
+/**
+ * A pipeline stage did not finish within its deadline; its subtasks have been cancelled.
+ */
+public class StageTimeoutException extends RuntimeException {
+
+	private final String stage;
+
+	public StageTimeoutException(String stage, Duration deadline) {
+		super("Stage '" + stage + "' did not finish within " + deadline);
+		this.stage = stage;
+	}
+
+	public String stage() {
+		return stage;
+	}
+}
@@ -0,0 +1,65 @@
+package org.dacrewj.agent.controller;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.dacrewj.messaging.WorkRetries;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Inspection and bulk replay of the work which failed too often and was quarantined (see {@link WorkRetries}).
+ * <p>
+ * GET /api/quarantine lists the messages at the head of the quarantine queue, with the error of their last attempt,
+ * without removing them. POST /api/quarantine/replay moves messages back to the lanes they failed on, with their
+ * attempts reset; replay once the cause has been fixed. Replay stops at a message whose lane queue does not exist
+ * (reported as unroutableQueue), which stays quarantined.
+ */
+@Profile("server")
+@RestController
+@RequestMapping(path = "/api/quarantine", produces = "application/json")
+public class QuarantineController {
+
+	private static final Logger logger = LoggerFactory.getLogger(QuarantineController.class);
+
+	static final int MAX_LIST_SIZE = 100;
+	static final int MAX_REPLAY_SIZE = 10_000;
+
+	private final WorkRetries workRetries;
+
+	public QuarantineController(WorkRetries workRetries) {
+		this.workRetries = workRetries;
+	}
+
+	@GetMapping
+	public ResponseEntity<List<WorkRetries.QuarantinedWork>> list(@RequestParam(defaultValue = "20") int limit) {
+		if (limit < 1 || limit > MAX_LIST_SIZE) {
+			return ResponseEntity.badRequest().build();
+		}
+		return ResponseEntity.ok(workRetries.quarantined(limit));
+	}
+
+	@PostMapping("/replay")
+	public ResponseEntity<Map<String, Object>> replay(@RequestParam(defaultValue = "100") int limit) {
+		if (limit < 1 || limit > MAX_REPLAY_SIZE) {
+			return ResponseEntity.badRequest().build();
+		}
+		WorkRetries.Replay replay = workRetries.replay(limit);
+		logger.info("Replayed {} quarantined messages from {}", replay.replayed(), workRetries.quarantineQueue());
+		var body = new LinkedHashMap<String, Object>();
+		body.put("queue", workRetries.quarantineQueue());
+		body.put("replayed", replay.replayed());
+		if (replay.unroutableQueue() != null) {
+			logger.warn("Replay stopped at a message for {}, which does not exist; it stays quarantined", replay.unroutableQueue());
+			body.put("unroutableQueue", replay.unroutableQueue());
+		}
+		return ResponseEntity.ok(body);
+	}
+}
@@ -0,0 +1,122 @@
+package org.dacrewj.agent.controller;
+
+import java.util.List;
+import org.dacrewj.agent.store.ProjectReviewStats;
+import org.dacrewj.agent.store.ReviewCache;
+import org.dacrewj.agent.store.ReviewSummary;
+import org.dacrewj.agent.store.StoredReview;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Read-only query API over the stored reviews.
+ * <p>
+ * Every response carries an ETag derived from the store index (the number of reviews of the issue, or the store
+ * version for project statistics). A request whose If-None-Match matches is answered with 304 without reading any
+ * review, so dashboards can poll cheaply.
+ */
+@RestController
+@RequestMapping(path = "/api", produces = "application/json")
+public class ReviewController {
+
+	static final int MAX_PAGE_SIZE = 100;
+
+	private final ReviewCache cache;
+
+	public ReviewController(ReviewCache cache) {
+		this.cache = cache;
+	}
+
+	@GetMapping("/reviews/{key}/latest")
+	public ResponseEntity<StoredReview> latest(@PathVariable String key,
+											   @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+		var summary = cache.summary(key);
+		if (summary.isEmpty()) {
+			return ResponseEntity.notFound().build();
+		}
+		String etag = etag(summary.get().key(), summary.get().reviews());
+		if (matches(ifNoneMatch, etag)) {
+			return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+		}
+		return cache.latest(key)
+				.map(review -> ResponseEntity.ok().eTag(etag).body(review))
+				.orElseGet(() -> ResponseEntity.notFound().build());
+	}
+
+	/**
+	 * @return a page of the reviews of the issue, newest first
+	 */
+	@GetMapping("/reviews/{key}")
+	public ResponseEntity<ReviewPage> history(@PathVariable String key,
+											  @RequestParam(defaultValue = "0") int page,
+											  @RequestParam(defaultValue = "20") int size,
+											  @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+		if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+			return ResponseEntity.badRequest().build();
+		}
+		int total = cache.summary(key).map(ReviewSummary::reviews).orElse(0);
+		if (total == 0) {
+			return ResponseEntity.notFound().build();
+		}
+		String etag = etag(key, total, page, size);
+		if (matches(ifNoneMatch, etag)) {
+			return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+		}
+		List<StoredReview> history = cache.history(key);
+		int end = Math.max(0, history.size() - page * size);
+		int start = Math.max(0, end - size);
+		List<StoredReview> reviews = history.subList(start, end).reversed();
+		return ResponseEntity.ok().eTag(etag).body(new ReviewPage(key, history.size(), page, size, reviews));
+	}
+
+	@GetMapping("/projects/{project}/review-stats")
+	public ResponseEntity<ProjectReviewStats> projectStats(@PathVariable String project,
+														   @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+		var stats = cache.projectStats(project);
+		if (stats.isEmpty()) {
+			return ResponseEntity.notFound().build();
+		}
+		String etag = etag(project, cache.statsVersion());
+		if (matches(ifNoneMatch, etag)) {
+			return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+		}
+		return ResponseEntity.ok().eTag(etag).body(stats.get());
+	}
+
+	private static String etag(Object... parts) {
+		var sb = new StringBuilder("\"");
+		for (int i = 0; i < parts.length; i++) {
+			if (i > 0) {
+				sb.append('-');
+			}
+			sb.append(parts[i]);
+		}
+		return sb.append('"').toString();
+	}
+
+	static boolean matches(String ifNoneMatch, String etag) {
+		if (ifNoneMatch == null) {
+			return false;
+		}
+		for (String candidate : ifNoneMatch.split(",")) {
+			String tag = candidate.strip();
+			if (tag.startsWith("W/")) {
+				tag = tag.substring(2);
+			}
+			if (tag.equals(etag) || tag.equals("*")) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public record ReviewPage(String key, int total, int page, int size, List<StoredReview> reviews) {
+	}
+}
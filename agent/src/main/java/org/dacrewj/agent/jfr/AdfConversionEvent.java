@@ -0,0 +1,29 @@
+package org.dacrewj.agent.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Conversion of a review into the ADF document posted as Jira comment.
+ */
+@Name("org.dacrewj.AdfConversion")
+@Label("ADF Conversion")
+@Description("Conversion of a review into an Atlassian Document Format comment")
+@Category({"Dacrew", "Jira"})
+@StackTrace(false)
+public class AdfConversionEvent extends Event {
+
+	@Label("Work Id")
+	public String workId;
+
+	@Label("Issue Key")
+	public String issueKey;
+
+	@Label("Blocks")
+	@Description("Top-level blocks of the document")
+	public int blocks;
+}
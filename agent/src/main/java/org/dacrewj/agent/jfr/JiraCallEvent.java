@@ -0,0 +1,39 @@
+package org.dacrewj.agent.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One attempt of a Jira write: posting the review comment or transitioning the issue.
+ */
+@Name("org.dacrewj.JiraCall")
+@Label("Jira Call")
+@Description("An attempt to post a review comment to Jira or transition an issue")
+@Category({"Dacrew", "Jira"})
+@StackTrace(false)
+public class JiraCallEvent extends Event {
+
+	@Label("Operation")
+	@Description("comment or transition")
+	public String operation;
+
+	@Label("Work Id")
+	public String workId;
+
+	@Label("Issue Key")
+	public String issueKey;
+
+	@Label("Write Id")
+	@Description("Id of the write-behind task")
+	public String writeId;
+
+	@Label("Attempt")
+	public int attempt;
+
+	@Label("Success")
+	public boolean success;
+}
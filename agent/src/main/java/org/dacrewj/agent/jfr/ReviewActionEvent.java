@@ -0,0 +1,54 @@
+package org.dacrewj.agent.jfr;
+
+import java.util.function.Supplier;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One action of the Requirement Reviewer agent.
+ */
+@Name("org.dacrewj.ReviewAction")
+@Label("Review Action")
+@Description("An action of the Requirement Reviewer agent")
+@Category({"Dacrew", "Review"})
+@StackTrace(false)
+public class ReviewActionEvent extends Event {
+
+	@Label("Action")
+	public String action;
+
+	@Label("Work Id")
+	public String workId;
+
+	@Label("Issue Key")
+	public String issueKey;
+
+	@Label("Failed")
+	public boolean failed;
+
+	/**
+	 * Runs the action body inside an event.
+	 */
+	public static <T> T record(String action, String issueKey, Supplier<T> body) {
+		var event = new ReviewActionEvent();
+		event.begin();
+		try {
+			return body.get();
+		} catch (RuntimeException | Error e) {
+			event.failed = true;
+			throw e;
+		} finally {
+			event.end();
+			if (event.shouldCommit()) {
+				event.action = action;
+				event.workId = WorkContext.workId();
+				event.issueKey = issueKey;
+				event.commit();
+			}
+		}
+	}
+}
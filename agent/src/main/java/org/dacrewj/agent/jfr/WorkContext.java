@@ -0,0 +1,49 @@
+package org.dacrewj.agent.jfr;
+
+import io.micrometer.context.ContextRegistry;
+
+/**
+ * The id of the {@link org.dacrewj.contract.DacrewWork} being handled by the current thread, for the JFR events.
+ * <p>
+ * The id is registered with context-propagation, so it follows the work onto the threads of
+ * {@link org.dacrewj.agent.concurrent.Bulkhead} and {@link org.dacrewj.agent.concurrent.StageScope}.
+ */
+public final class WorkContext {
+
+	private static final ThreadLocal<String> WORK_ID = new ThreadLocal<>();
+
+	static {
+		ContextRegistry.getInstance().registerThreadLocalAccessor("dacrew.work-id", WORK_ID);
+	}
+
+	private WorkContext() {
+	}
+
+	/**
+	 * @return the id of the current work, null outside of work handling (e.g. in the shell)
+	 */
+	public static String workId() {
+		return WORK_ID.get();
+	}
+
+	/**
+	 * Makes workId the current work id until the returned scope is closed.
+	 */
+	public static Scope open(String workId) {
+		String previous = WORK_ID.get();
+		WORK_ID.set(workId);
+		return () -> {
+			if (previous == null) {
+				WORK_ID.remove();
+			} else {
+				WORK_ID.set(previous);
+			}
+		};
+	}
+
+	@FunctionalInterface
+	public interface Scope extends AutoCloseable {
+		@Override
+		void close();
+	}
+}
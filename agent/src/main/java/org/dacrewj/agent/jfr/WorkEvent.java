@@ -0,0 +1,32 @@
+package org.dacrewj.agent.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Handling of one piece of work, from receipt by the consumer until its handler has finished.
+ */
+@Name("org.dacrewj.Work")
+@Label("Work")
+@Description("Handling of a DacrewWork message, from receipt until the handler has finished")
+@Category({"Dacrew", "Work"})
+@StackTrace(false)
+public class WorkEvent extends Event {
+
+	@Label("Work Id")
+	public String workId;
+
+	@Label("Issue Key")
+	public String issueKey;
+
+	@Label("Source")
+	public String source;
+
+	@Label("Outcome")
+	@Description("completed, rejected, failed or ignored")
+	public String outcome;
+}
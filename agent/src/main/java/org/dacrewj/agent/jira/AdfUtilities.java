@@ -6,6 +6,8 @@ import java.util.List;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 import org.dacrewj.agent.agents.RequirementReview;
+import org.dacrewj.agent.jfr.AdfConversionEvent;
+import org.dacrewj.agent.jfr.WorkContext;
 import org.dacrewj.contract.AdfDocument;
 import org.dacrewj.contract.AdfDocument.Node;
 import org.jetbrains.annotations.NotNull;
@@ -47,6 +49,8 @@ final class AdfUtilities {
 		// 1) "Constructive Feedback"
 		// 2) "Suggested Improvements"
 		// 3) "Conclusion"
+		var event = new AdfConversionEvent();
+		event.begin();
 		var content = new ArrayList<Node>();
 
 		addTitle(source, key, content);
@@ -54,6 +58,13 @@ final class AdfUtilities {
 		addSuggestions(review, content);
 		addConclusion(review, content);
 
+		event.end();
+		if (event.shouldCommit()) {
+			event.workId = WorkContext.workId();
+			event.issueKey = key;
+			event.blocks = content.size();
+			event.commit();
+		}
 		return new AdfDocument("doc", 1, content);
 	}
 
@@ -0,0 +1,104 @@
+package org.dacrewj.agent.jira;
+
+import com.embabel.agent.api.common.autonomy.AgentInvocation;
+import com.embabel.agent.core.AgentPlatform;
+import io.micrometer.observation.ObservationRegistry;
+import java.util.Set;
+import org.dacrewj.agent.agents.DraftRequirement;
+import org.dacrewj.agent.agents.RequirementReview;
+import org.dacrewj.agent.agents.RequirementReviewer;
+import org.dacrewj.agent.agents.RequirementReviewerConfig;
+import org.dacrewj.agent.agents.RequirementSimilarityIndex;
+import org.dacrewj.agent.concurrent.StageScope;
+import org.dacrewj.agent.concurrent.StageTimeoutException;
+import org.dacrewj.contract.JiraModels;
+import org.dacrewj.contract.Source;
+import org.dacrewj.messaging.Stages;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reviews Draft Requirement issues with the Requirement Reviewer agent and queues the review for Jira.
+ */
+@Component
+public class DraftRequirementHandler implements JiraIssueHandler {
+
+	private static final Logger log = LoggerFactory.getLogger(DraftRequirementHandler.class);
+
+	private final AgentPlatform agentPlatform;
+	private final RequirementReviewer requirementReviewer;
+	private final JiraWriteBehindQueue jiraWriteBehindQueue;
+	private final RequirementSimilarityIndex similarityIndex;
+	private final RequirementReviewerConfig reviewerConfig;
+	private final ObservationRegistry observationRegistry;
+
+	public DraftRequirementHandler(AgentPlatform agentPlatform, RequirementReviewer requirementReviewer,
+			JiraWriteBehindQueue jiraWriteBehindQueue, RequirementSimilarityIndex similarityIndex,
+			RequirementReviewerConfig reviewerConfig, ObservationRegistry observationRegistry) {
+		this.agentPlatform = agentPlatform;
+		this.requirementReviewer = requirementReviewer;
+		this.jiraWriteBehindQueue = jiraWriteBehindQueue;
+		this.similarityIndex = similarityIndex;
+		this.reviewerConfig = reviewerConfig;
+		this.observationRegistry = observationRegistry;
+	}
+
+	@Override
+	public String name() {
+		return "draft-requirement";
+	}
+
+	@Override
+	public Set<String> issueTypes() {
+		return Set.of(JiraConstants.DRAFT_REQUIREMENT);
+	}
+
+	@Override
+	public void handle(JiraModels.JiraIssue issue) {
+		var requirement = new DraftRequirement(
+				Source.JIRA.name(),
+				issue.key(),
+				issue.fields().summary(),
+				issue.fields().description()
+		);
+		var review = review(requirement);
+		// Jira writes are slow and may fail; hand them off so this thread is free for the next review
+		jiraWriteBehindQueue.enqueue(
+				issue.key(),
+				AdfUtilities.toAdf(Source.JIRA.name(), issue.key(), review),
+				review.approved() ? JiraConstants.APPROVED : JiraConstants.REJECTED);
+	}
+
+	/**
+	 * Reviews the requirement, reusing the review of a near-duplicate if there is one. A reused review is
+	 * re-labelled with the requirement's key and summary and published like one of its own, so that the review
+	 * store has it under that key.
+	 *
+	 * @throws StageTimeoutException if the review exceeded its deadline; it fails the work like any other error, so
+	 *                               that the work is retried and eventually quarantined rather than dropped
+	 */
+	public RequirementReview review(DraftRequirement requirement) {
+		var duplicate = similarityIndex.findDuplicate(requirement);
+		if (duplicate.isPresent()) {
+			log.info("Requirement {} is a near-duplicate of {} (similarity {}); reusing its review",
+					requirement.key(), duplicate.get().duplicateOf(), String.format("%.2f", duplicate.get().similarity()));
+			var review = requirementReviewer.publishRequirementReview(duplicate.get().review());
+			similarityIndex.add(requirement, review);
+			return review;
+		}
+		RequirementReview review;
+		try {
+			// Frees this thread even if a stage of the review hangs
+			review = Stages.observation(Stages.REVIEW, observationRegistry)
+					.highCardinalityKeyValue("issue", requirement.key())
+					.observe(() -> StageScope.call("review", reviewerConfig.deadlines().review(),
+							() -> AgentInvocation.create(agentPlatform, RequirementReview.class).invoke(requirement)));
+		} catch (StageTimeoutException e) {
+			log.error("Review of requirement {} abandoned: {}", requirement.key(), e.getMessage());
+			throw e;
+		}
+		similarityIndex.add(requirement, review);
+		return review;
+	}
+}
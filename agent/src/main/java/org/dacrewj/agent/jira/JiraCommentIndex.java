@@ -0,0 +1,93 @@
+package org.dacrewj.agent.jira;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Persistent mapping from Jira issue key to the ids of the review comment pages the agent posted on that issue,
+ * so that re-reviews update the existing comments rather than adding more.
+ * The mapping is kept in memory and written through to dacrew.jira.comment-index-file.
+ */
+@Component
+public class JiraCommentIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(JiraCommentIndex.class);
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Path file;
+    private final Map<String, List<String>> commentIds = new ConcurrentHashMap<>();
+
+    public JiraCommentIndex(@Value("${dacrew.jira.comment-index-file:jira-comments.json}") String file) {
+        this.file = Path.of(file);
+        load();
+    }
+
+    /**
+     * @return the comment ids in page order, empty if the agent never commented on the issue
+     */
+    public List<String> commentIds(String issueKey) {
+        return commentIds.getOrDefault(issueKey, List.of());
+    }
+
+    public Optional<String> commentId(String issueKey) {
+        return commentIds(issueKey).stream().findFirst();
+    }
+
+    public void put(String issueKey, String commentId) {
+        put(issueKey, List.of(commentId));
+    }
+
+    public void put(String issueKey, List<String> ids) {
+        if (ids.isEmpty()) {
+            remove(issueKey);
+        } else if (!ids.equals(commentIds.put(issueKey, List.copyOf(ids)))) {
+            save();
+        }
+    }
+
+    public void remove(String issueKey) {
+        if (commentIds.remove(issueKey) != null) {
+            save();
+        }
+    }
+
+    private void load() {
+        if (!Files.exists(file)) {
+            return;
+        }
+        try {
+            commentIds.putAll(mapper.readValue(file.toFile(), new TypeReference<Map<String, List<String>>>() {}));
+            log.info("Loaded Jira comment ids for {} issues from {}", commentIds.size(), file);
+        } catch (IOException e) {
+            log.warn("Unable to read Jira comment index {}; re-reviews will add new comments: {}", file, e.toString());
+        }
+    }
+
+    private synchronized void save() {
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.write(tmp, mapper.writeValueAsBytes(new TreeMap<>(commentIds)));
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.error("Unable to write Jira comment index {}", file, e);
+        }
+    }
+}
@@ -1,11 +1,15 @@
 package org.dacrewj.agent.jira;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.dacrewj.contract.AdfDocument;
+import org.dacrewj.contract.AdfPaginator;
+import org.dacrewj.contract.AdfWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.URI;
 import java.net.http.HttpClient;
@@ -13,20 +17,22 @@ import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
 import org.springframework.stereotype.Service;
 
 /**
  * Service which posts a comment to Jira. This implementation focuses on:
  *  - honoring dacrew.jira.dry-run
- *  - enforcing dacrew.jira.max-comment-length
+ *  - enforcing dacrew.jira.max-comment-length (oversized comments are posted in pages)
  *  - posting to Jira Cloud REST API v3
+ *  - updating the review comment of a previous review in place (see {@link JiraCommentIndex})
  */
 @Service
 public class JiraCommentService {
 
     private static final Logger log = LoggerFactory.getLogger(JiraCommentService.class);
+    private static final int PREVIEW_LENGTH = 200;
 
     private final HttpClient http;
     private final ObjectMapper mapper;
@@ -35,36 +41,112 @@ public class JiraCommentService {
     private final String authToken;
     private final boolean dryRun;
     private final int maxCommentLength;
+    private final JiraCommentIndex commentIndex;
 
     public JiraCommentService(
             @Value("${dacrew.jira.base-url}") String baseUrl,
             @Value("${dacrew.jira.auth-token:}") String authToken,
             @Value("${dacrew.jira.dry-run:true}") boolean dryRun,
-            @Value("${dacrew.jira.max-comment-length:1024}") int maxCommentLength
+            @Value("${dacrew.jira.max-comment-length:1024}") int maxCommentLength,
+            JiraCommentIndex commentIndex
     ) {
         this.baseUrl = baseUrl != null && baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
         this.authToken = authToken;
         this.dryRun = dryRun;
         this.maxCommentLength = maxCommentLength;
+        this.commentIndex = commentIndex;
         this.http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
         this.mapper = new ObjectMapper();
     }
 
-    public Result addComment(String issueKey, AdfDocument commentBody) {
-        if (issueKey == null || issueKey.isBlank()) {
-            return Result.error("issueKey must not be blank");
+    /**
+     * Posts the review comment, or updates the comments posted by a previous review of the same issue.
+     * <p>
+     * Comments longer than dacrew.jira.max-comment-length are split into pages (see {@link AdfPaginator}), which
+     * are posted in order. Page n updates the n-th comment known for the issue; a new comment is only created if
+     * there is no such comment. If the n-th comment was deleted, a new comment for page n would appear after the
+     * comments of the later pages, so those are deleted and pages n onwards are all posted as new comments.
+     * Comments left over from a longer previous review are deleted. A comment which could not be deleted stays in
+     * the index, after the pages, so that the next review updates or deletes it.
+     */
+    public Result upsertComment(String issueKey, AdfDocument commentBody) {
+        String error = validate(issueKey, commentBody);
+        if (error != null) {
+            return Result.error(error);
         }
-        if (commentBody == null) {
-            return Result.error("commentBody must not be null");
+        var pages = AdfPaginator.paginate(commentBody, maxCommentLength);
+        if (pages.size() > 1) {
+            log.info("Review comment for {} split into {} pages of at most {} characters", issueKey, pages.size(), maxCommentLength);
+        }
+        var knownIds = dryRun ? List.<String>of() : commentIndex.commentIds(issueKey);
+        var ids = new ArrayList<String>(pages.size());
+        var undeleted = new ArrayList<String>();
+        // Pages below this index update the known comment at the same position
+        int updatable = Math.min(pages.size(), knownIds.size());
+        Result first = null;
+        for (int i = 0; i < pages.size(); i++) {
+            Result result = null;
+            if (i < updatable) {
+                result = updateComment(issueKey, knownIds.get(i), pages.get(i));
+                if (result.isNotFound()) {
+                    log.info("Jira comment {} on {} no longer exists; posting page {} and the pages after it as new comments",
+                            knownIds.get(i), issueKey, i + 1);
+                    undeleted.addAll(deleteComments(issueKey, knownIds.subList(i + 1, knownIds.size())));
+                    updatable = i;
+                    result = null;
+                }
+            }
+            if (result == null) {
+                result = addComment(issueKey, pages.get(i));
+            }
+            if (!result.success()) {
+                return result;
+            }
+            if (result.commentId() != null) {
+                ids.add(result.commentId());
+                // Record progress page by page so that a retry after a failure updates rather than re-posts
+                var progress = new ArrayList<>(ids);
+                progress.addAll(i < updatable ? knownIds.subList(i + 1, knownIds.size()) : undeleted);
+                commentIndex.put(issueKey, progress);
+            }
+            if (first == null) {
+                first = result;
+            }
+        }
+        if (updatable == pages.size() && knownIds.size() > pages.size()) {
+            undeleted.addAll(deleteComments(issueKey, knownIds.subList(pages.size(), knownIds.size())));
         }
-        // Enforce max length against plain-text preview derived from ADF.
-        String preview = commentBody.previewText(maxCommentLength + 1);
-        if (preview.length() > maxCommentLength) {
-            log.info("Comment text exceeds max length ({}). Will proceed but Jira may accept longer ADF; preview truncated to {} characters.", preview.length(), maxCommentLength);
+        if (!dryRun) {
+            ids.addAll(undeleted);
+            commentIndex.put(issueKey, ids);
+        }
+        return first;
+    }
+
+    /**
+     * Deletes the comments, returning the ids of those which could not be deleted.
+     */
+    private List<String> deleteComments(String issueKey, List<String> commentIds) {
+        var undeleted = new ArrayList<String>();
+        for (String commentId : commentIds) {
+            if (!deleteComment(issueKey, commentId).success()) {
+                undeleted.add(commentId);
+            }
+        }
+        return undeleted;
+    }
+
+    public Result addComment(String issueKey, AdfDocument commentBody) {
+        String error = validate(issueKey, commentBody);
+        if (error != null) {
+            return Result.error(error);
         }
 
         if (dryRun) {
-            log.info("[DRY-RUN] Would post comment to {}: {}", issueKey, preview(preview));
+            if (commentBody.previewText(maxCommentLength + 1).length() > maxCommentLength) {
+                return Result.error(tooLong());
+            }
+            log.info("[DRY-RUN] Would post comment to {}: {}", issueKey, preview(commentBody));
             return Result.ok("dry-run", null);
         }
 
@@ -73,26 +155,19 @@ public class JiraCommentService {
         }
 
         try {
+            byte[] json = render(commentBody);
+            if (json == null) {
+                return Result.error(tooLong());
+            }
             String url = baseUrl + "/rest/api/3/issue/" + encode(issueKey) + "/comment";
-            Map<String, Object> payload = new HashMap<>();
-            payload.put("body", commentBody);
-            String json = mapper.writeValueAsString(payload);
-
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(url))
-                    .timeout(Duration.ofSeconds(20))
-                    .header("Authorization", "Bearer " + authToken)
-                    .header("Accept", "application/json")
-                    .header("Content-Type", "application/json")
-                    .POST(HttpRequest.BodyPublishers.ofString(json, StandardCharsets.UTF_8))
-                    .build();
-
-            HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+            HttpResponse<String> response = http.send(
+                    jsonRequest(url).POST(HttpRequest.BodyPublishers.ofByteArray(json)).build(),
+                    HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
             int status = response.statusCode();
             if (status >= 200 && status < 300) {
-                String location = extractSelfUrl(response.body());
-                log.info("Posted Jira comment to {} (status {}): {}", issueKey, status, location != null ? location : "<no self>");
-                return Result.ok("created", location);
+                var created = readComment(response.body());
+                log.info("Posted Jira comment {} to {} (status {}): {}", created.id(), issueKey, status, created.self() != null ? created.self() : "<no self>");
+                return Result.ok("created", created.self(), created.id());
             } else {
                 String msg = "Failed to post Jira comment. Status=" + status + ", body=" + response.body();
                 log.warn(msg);
@@ -106,27 +181,150 @@ public class JiraCommentService {
         }
     }
 
-    private static String preview(String s) {
-        return s.length() > 200 ? s.substring(0, 200) + "…" : s;
+    public Result updateComment(String issueKey, String commentId, AdfDocument commentBody) {
+        String error = validate(issueKey, commentBody);
+        if (error != null) {
+            return Result.error(error);
+        }
+
+        if (dryRun) {
+            if (commentBody.previewText(maxCommentLength + 1).length() > maxCommentLength) {
+                return Result.error(tooLong());
+            }
+            log.info("[DRY-RUN] Would update comment {} on {}: {}", commentId, issueKey, preview(commentBody));
+            return Result.ok("dry-run", null);
+        }
+
+        if (authToken == null || authToken.isBlank()) {
+            return Result.error("Jira auth token is missing. Set dacrew.jira.auth-token / JIRA_TOKEN.");
+        }
+
+        try {
+            byte[] json = render(commentBody);
+            if (json == null) {
+                return Result.error(tooLong());
+            }
+            String url = baseUrl + "/rest/api/3/issue/" + encode(issueKey) + "/comment/" + encode(commentId);
+            HttpResponse<String> response = http.send(
+                    jsonRequest(url).PUT(HttpRequest.BodyPublishers.ofByteArray(json)).build(),
+                    HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+            int status = response.statusCode();
+            if (status >= 200 && status < 300) {
+                var updated = readComment(response.body());
+                log.info("Updated Jira comment {} on {} (status {})", commentId, issueKey, status);
+                return Result.ok("updated", updated.self(), commentId);
+            } else if (status == 404) {
+                return Result.notFound("Jira comment " + commentId + " on " + issueKey + " not found");
+            } else {
+                String msg = "Failed to update Jira comment. Status=" + status + ", body=" + response.body();
+                log.warn(msg);
+                return Result.error(msg);
+            }
+        } catch (IOException | InterruptedException e) {
+            Thread.currentThread().interrupt();
+            String msg = "Error updating Jira comment: " + e.getMessage();
+            log.error(msg, e);
+            return Result.error(msg);
+        }
+    }
+
+    private static String validate(String issueKey, AdfDocument commentBody) {
+        if (issueKey == null || issueKey.isBlank()) {
+            return "issueKey must not be blank";
+        }
+        if (commentBody == null) {
+            return "commentBody must not be null";
+        }
+        return null;
+    }
+
+    /**
+     * Deletes a comment; a comment which no longer exists counts as deleted.
+     */
+    public Result deleteComment(String issueKey, String commentId) {
+        if (dryRun) {
+            log.info("[DRY-RUN] Would delete comment {} on {}", commentId, issueKey);
+            return Result.ok("dry-run", null);
+        }
+        try {
+            String url = baseUrl + "/rest/api/3/issue/" + encode(issueKey) + "/comment/" + encode(commentId);
+            HttpResponse<String> response = http.send(jsonRequest(url).DELETE().build(),
+                    HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+            int status = response.statusCode();
+            if ((status >= 200 && status < 300) || status == 404) {
+                log.info("Deleted Jira comment {} on {} (status {})", commentId, issueKey, status);
+                return Result.ok("deleted", null, commentId);
+            }
+            String msg = "Failed to delete Jira comment. Status=" + status + ", body=" + response.body();
+            log.warn(msg);
+            return Result.error(msg);
+        } catch (IOException | InterruptedException e) {
+            Thread.currentThread().interrupt();
+            String msg = "Error deleting Jira comment: " + e.getMessage();
+            log.error(msg, e);
+            return Result.error(msg);
+        }
+    }
+
+    /**
+     * Serialises {"body": commentBody} straight into a byte buffer, measuring the plain-text length on the way.
+     *
+     * @return the JSON payload, or null if the comment text exceeds dacrew.jira.max-comment-length
+     */
+    private byte[] render(AdfDocument commentBody) throws IOException {
+        var buffer = new ByteArrayOutputStream(4096);
+        long textLength;
+        try (JsonGenerator generator = mapper.getFactory().createGenerator(buffer)) {
+            generator.writeStartObject();
+            generator.writeFieldName("body");
+            var writer = new AdfWriter(generator).document(commentBody);
+            generator.writeEndObject();
+            textLength = writer.textLength();
+        }
+        return textLength > maxCommentLength ? null : buffer.toByteArray();
+    }
+
+    private String tooLong() {
+        return "Comment text exceeds max length (" + maxCommentLength + "); use upsertComment to post it in pages";
+    }
+
+    private HttpRequest.Builder jsonRequest(String url) {
+        return HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .timeout(Duration.ofSeconds(20))
+                .header("Authorization", "Bearer " + authToken)
+                .header("Accept", "application/json")
+                .header("Content-Type", "application/json");
+    }
+
+    private static String preview(AdfDocument commentBody) {
+        String s = commentBody.previewText(PREVIEW_LENGTH + 1);
+        return s.length() > PREVIEW_LENGTH ? s.substring(0, PREVIEW_LENGTH) + "…" : s;
     }
 
     private static String encode(String s) {
         return java.net.URLEncoder.encode(s, StandardCharsets.UTF_8);
     }
 
-    private String extractSelfUrl(String responseBody) {
+    private CommentRef readComment(String responseBody) {
         try {
             var node = mapper.readTree(responseBody);
-            if (node.has("self")) {
-                return node.get("self").asText();
-            }
+            return new CommentRef(
+                    node.hasNonNull("id") ? node.get("id").asText() : null,
+                    node.hasNonNull("self") ? node.get("self").asText() : null);
         } catch (Exception ignored) {
         }
-        return null;
+        return new CommentRef(null, null);
     }
 
-    public record Result(boolean success, String status, String url, String error) {
-        public static Result ok(String status, String url) { return new Result(true, status, url, null); }
-        public static Result error(String error) { return new Result(false, null, null, error); }
+    private record CommentRef(String id, String self) {}
+
+    public record Result(boolean success, String status, String url, String commentId, String error) {
+        public static Result ok(String status, String url) { return new Result(true, status, url, null, null); }
+        public static Result ok(String status, String url, String commentId) { return new Result(true, status, url, commentId, null); }
+        public static Result error(String error) { return new Result(false, null, null, null, error); }
+        public static Result notFound(String error) { return new Result(false, "not-found", null, null, error); }
+
+        public boolean isNotFound() { return "not-found".equals(status); }
     }
 }
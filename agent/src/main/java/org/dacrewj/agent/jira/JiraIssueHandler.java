@@ -0,0 +1,27 @@
+package org.dacrewj.agent.jira;
+
+import java.util.Set;
+import org.dacrewj.contract.JiraModels;
+
+/**
+ * Agent handler for Jira issues of particular types. Every handler bean is registered with {@link JiraWorkService},
+ * which runs it on a bulkhead of its own, configured by dacrew.handlers.&lt;name&gt;.concurrency, queue-capacity and
+ * queue-wait.
+ */
+public interface JiraIssueHandler {
+
+	/**
+	 * Name of the handler, used for its configuration and metrics.
+	 */
+	String name();
+
+	/**
+	 * Issue type descriptions handled, e.g. {@link JiraConstants#DRAFT_REQUIREMENT}.
+	 */
+	Set<String> issueTypes();
+
+	/**
+	 * Handles an issue with fields; called on the handler's bulkhead.
+	 */
+	void handle(JiraModels.JiraIssue issue);
+}
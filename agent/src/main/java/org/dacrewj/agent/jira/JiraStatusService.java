@@ -38,29 +38,34 @@ public class JiraStatusService {
         this.http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
     }
 
-    public void updateStatus(String key, String status) {
+    /**
+     * Transitions the issue to the given status.
+     *
+     * @return true if the transition was applied (or simulated in dry-run mode), false otherwise
+     */
+    public boolean updateStatus(String key, String status) {
         if (key == null || key.isBlank()) {
             log.warn("updateStatus called with blank key");
-            return;
+            return false;
         }
         if (status == null || status.isBlank()) {
             log.warn("updateStatus called with blank status for {}", key);
-            return;
+            return false;
         }
         if (dryRun) {
             log.info("[DRY-RUN] Would update Jira issue {} to status '{}'", key, status);
-            return;
+            return true;
         }
         if (authToken == null || authToken.isBlank()) {
             log.warn("Jira auth token is missing. Set dacrew.jira.auth-token / JIRA_TOKEN.");
-            return;
+            return false;
         }
 
         try {
             String transitionId = resolveTransitionId(key, status);
             if (transitionId == null) {
                 log.warn("No matching transition found for issue {} and status '{}'", key, status);
-                return;
+                return false;
             }
             String url = baseUrl + "/rest/api/3/issue/" + encode(key) + "/transitions";
             String body = mapper.writeValueAsString(Map.of("transition", Map.of("id", transitionId)));
@@ -75,12 +80,14 @@ public class JiraStatusService {
             HttpResponse<String> resp = http.send(req, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
             if (resp.statusCode() >= 200 && resp.statusCode() < 300) {
                 log.info("Updated Jira issue {} to status '{}' (transition {})", key, status, transitionId);
-            } else {
-                log.warn("Failed to transition issue {} to '{}'. Status={}, body={}", key, status, resp.statusCode(), resp.body());
+                return true;
             }
+            log.warn("Failed to transition issue {} to '{}'. Status={}, body={}", key, status, resp.statusCode(), resp.body());
+            return false;
         } catch (IOException | InterruptedException e) {
             Thread.currentThread().interrupt();
             log.error("Error updating Jira status for {}: {}", key, e.getMessage(), e);
+            return false;
         }
     }
 
@@ -1,67 +1,91 @@
 package org.dacrewj.agent.jira;
 
-import com.embabel.agent.api.common.Ai;
-import com.embabel.agent.api.common.autonomy.AgentInvocation;
-import com.embabel.agent.core.AgentPlatform;
-import org.dacrewj.agent.agents.DraftRequirement;
-import org.dacrewj.agent.agents.RequirementReview;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import org.dacrewj.agent.concurrent.Bulkhead;
 import org.dacrewj.contract.JiraModels;
-import org.dacrewj.contract.Source;
+import org.dacrewj.messaging.Stages;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Service;
 
+/**
+ * Dispatches Jira work to the {@link JiraIssueHandler} registered for the issue type. Each handler runs on a
+ * {@link Bulkhead} of its own, so that a flood of one issue type cannot starve the others.
+ */
 @Service
 public class JiraWorkService {
 
 	private static final Logger log = LoggerFactory.getLogger(JiraWorkService.class);
 
-	private final AgentPlatform agentPlatform;
-	private final Ai ai;
-	private final JiraCommentService jiraCommentService;
-	private final JiraStatusService jiraStatusService;
+	private final Map<String, Registration> handlers = new HashMap<>();
+	private final ObservationRegistry observationRegistry;
 
-	public JiraWorkService(AgentPlatform agentPlatform, Ai ai, JiraCommentService jiraCommentService, JiraStatusService jiraStatusService) {
-		this.agentPlatform = agentPlatform;
-		this.ai = ai;
-		this.jiraCommentService = jiraCommentService;
-		this.jiraStatusService = jiraStatusService;
+	public JiraWorkService(List<JiraIssueHandler> handlers, Environment environment, MeterRegistry meterRegistry,
+			ObservationRegistry observationRegistry) {
+		this.observationRegistry = observationRegistry;
+		for (JiraIssueHandler handler : handlers) {
+			String prefix = "dacrew.handlers." + handler.name() + ".";
+			var bulkhead = new Bulkhead(handler.name(),
+					environment.getProperty(prefix + "concurrency", Integer.class, 4),
+					environment.getProperty(prefix + "queue-capacity", Integer.class, 16),
+					environment.getProperty(prefix + "queue-wait", Duration.class, Duration.ofSeconds(5)),
+					meterRegistry);
+			var registration = new Registration(handler, bulkhead);
+			for (String issueType : handler.issueTypes()) {
+				var previous = this.handlers.put(issueType, registration);
+				if (previous != null) {
+					throw new IllegalStateException("Issue type '" + issueType + "' is handled by both "
+							+ previous.handler().name() + " and " + handler.name());
+				}
+			}
+			log.info("Registered Jira handler {} for {}", handler.name(), handler.issueTypes());
+		}
+	}
+
+	@PreDestroy
+	void shutdown() {
+		handlers.values().stream().map(Registration::bulkhead).distinct().forEach(Bulkhead::close);
 	}
 
-	public void performWork(JiraModels.JiraWebhook webhook) {
+	/**
+	 * Hands the issue to its handler.
+	 *
+	 * @return completes when the handler has finished; exceptionally with
+	 * {@link Bulkhead.BulkheadFullException} if the handler is saturated, or with the handler's exception
+	 */
+	public CompletableFuture<Void> performWork(JiraModels.JiraWebhook webhook) {
 		var issue = webhook.jiraIssue();
 		if (issue == null) {
 			log.warn("Jira webhook with timestamp {} contains no issue", webhook.timestamp());
-			return;
+			return CompletableFuture.completedFuture(null);
 		}
 		String key = issue.key();
 		if (issue.fields() == null) {
 			log.warn("Jira issue {} contains no fields", key);
-			return;
+			return CompletableFuture.completedFuture(null);
 		}
 		String summary = issue.fields().summary();
 		log.info("Handling Jira issue {} ({})", key, summary);
-		JiraModels.JiraIssueFields fields = webhook.jiraIssue().fields();
-		var type = fields.issuetype();
-		switch (type.description()) {
-			case JiraConstants.DRAFT_REQUIREMENT: handleDraftRequirement(issue);
-			// Add additional cases here...
-			default: log.warn("Jira issue {} with type {} has no agent assigned to it", key, type.description());
+		var type = issue.fields().issuetype();
+		String typeDescription = type != null ? type.description() : null;
+		var registration = typeDescription != null ? handlers.get(typeDescription) : null;
+		if (registration == null) {
+			log.warn("Jira issue {} with type {} has no agent assigned to it", key, typeDescription);
+			return CompletableFuture.completedFuture(null);
 		}
+		return registration.bulkhead().submit(() -> Stages.observation(Stages.HANDLE, observationRegistry)
+				.lowCardinalityKeyValue("handler", registration.handler().name())
+				.highCardinalityKeyValue("issue", key)
+				.observe(() -> registration.handler().handle(issue)));
 	}
 
-	private void handleDraftRequirement(JiraModels.JiraIssue issue) {
-		var reviewInvocation = AgentInvocation.create(agentPlatform, RequirementReview.class);
-		var requirement = new DraftRequirement(
-				Source.JIRA.name(),
-				issue.key(),
-				issue.fields().summary(),
-				issue.fields().description()
-		);
-		RequirementReview review = reviewInvocation.invoke(requirement);
-		jiraCommentService.addComment(issue.key(), AdfUtilities.toAdf(Source.JIRA.name(), issue.key(), review));
-
-		jiraStatusService.updateStatus(issue.key(), review.approved() ? JiraConstants.APPROVED : JiraConstants.REJECTED);
-	}
-
+	private record Registration(JiraIssueHandler handler, Bulkhead bulkhead) {}
 }
@@ -0,0 +1,270 @@
+package org.dacrewj.agent.jira;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.dacrewj.agent.concurrent.StageScope;
+import org.dacrewj.agent.jfr.JiraCallEvent;
+import org.dacrewj.agent.jfr.WorkContext;
+import org.dacrewj.contract.AdfDocument;
+import org.dacrewj.messaging.Stages;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Persistent write-behind queue for outbound Jira writes (review comment and status transition).
+ * <p>
+ * Each task is journalled as a JSON file in dacrew.jira.write-behind.directory before it is
+ * acknowledged, drained by a dedicated worker pool and deleted once Jira has accepted it.
+ * Failed writes are retried with exponential backoff; tasks exhausting
+ * dacrew.jira.write-behind.max-attempts are moved to the "failed" sub-directory for inspection.
+ * Pending tasks are recovered from disk on startup.
+ * <p>
+ * The comment and transition are observed as stages of the trace that enqueued the task, including retries; tasks
+ * recovered after a restart start new traces.
+ */
+@Service
+public class JiraWriteBehindQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(JiraWriteBehindQueue.class);
+
+    private static final String TASK_SUFFIX = ".json";
+    private static final Duration MAX_BACKOFF = Duration.ofMinutes(10);
+
+    private final JiraCommentService commentService;
+    private final JiraStatusService statusService;
+    private final ObjectMapper mapper;
+    private final Path directory;
+    private final Path failedDirectory;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration publishTimeout;
+    private final ScheduledThreadPoolExecutor workers;
+    private final ObservationRegistry observationRegistry;
+
+    public JiraWriteBehindQueue(
+            JiraCommentService commentService,
+            JiraStatusService statusService,
+            @Value("${dacrew.jira.write-behind.directory:jira-outbox}") String directory,
+            @Value("${dacrew.jira.write-behind.workers:2}") int workers,
+            @Value("${dacrew.jira.write-behind.max-attempts:8}") int maxAttempts,
+            @Value("${dacrew.jira.write-behind.initial-backoff:2s}") Duration initialBackoff,
+            @Value("${dacrew.jira.write-behind.publish-timeout:2m}") Duration publishTimeout,
+            ObservationRegistry observationRegistry
+    ) {
+        this.commentService = commentService;
+        this.statusService = statusService;
+        this.mapper = new ObjectMapper().findAndRegisterModules();
+        this.directory = Path.of(directory);
+        this.failedDirectory = this.directory.resolve("failed");
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoff = initialBackoff;
+        this.publishTimeout = publishTimeout;
+        this.observationRegistry = observationRegistry;
+        this.workers = new ScheduledThreadPoolExecutor(Math.max(1, workers),
+                Thread.ofPlatform().name("jira-write-", 0).daemon(true).factory());
+        // Delayed retries are journalled on disk and picked up again by recover() on the next start
+        this.workers.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+
+    /**
+     * Re-schedules every task left on disk by a previous run.
+     */
+    @PostConstruct
+    public void recover() throws IOException {
+        Files.createDirectories(failedDirectory);
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(p -> p.getFileName().toString().endsWith(TASK_SUFFIX)).forEach(file -> {
+                try {
+                    Task task = mapper.readValue(file.toFile(), Task.class);
+                    log.info("Recovered pending Jira write {} for {} (attempt {})", task.id(), task.issueKey(), task.attempts());
+                    schedule(task, Duration.ZERO, Origin.UNKNOWN);
+                } catch (IOException e) {
+                    log.error("Unreadable Jira write task {}; moving to {}", file, failedDirectory, e);
+                    moveToFailed(file);
+                }
+            });
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        workers.shutdown();
+        if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+            log.warn("Jira write workers did not finish in time; pending tasks remain in {}", directory);
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * Persists a comment and/or status transition for the given issue and hands it to the worker pool.
+     * Returns as soon as the task is durable; the Jira calls happen asynchronously.
+     */
+    public Task enqueue(String issueKey, AdfDocument comment, String status) {
+        if (issueKey == null || issueKey.isBlank()) {
+            throw new IllegalArgumentException("issueKey must not be blank");
+        }
+        var task = new Task(UUID.randomUUID().toString(), issueKey, comment, status, comment == null, 0, Instant.now());
+        try {
+            persist(task);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to persist Jira write task for " + issueKey, e);
+        }
+        log.info("Queued Jira write {} for {}", task.id(), issueKey);
+        schedule(task, Duration.ZERO, new Origin(observationRegistry.getCurrentObservation(), WorkContext.workId()));
+        return task;
+    }
+
+    private void schedule(Task task, Duration delay, Origin origin) {
+        workers.schedule(() -> process(task, origin), delay.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Performs the outstanding writes of the task. Each Jira call must finish within
+     * dacrew.jira.write-behind.publish-timeout; a call still running then is cancelled and the task retried.
+     */
+    void process(Task task, Origin origin) {
+        var current = task;
+        try {
+            if (!current.commentPosted()) {
+                var posting = current;
+                var result = jiraCall(Stages.COMMENT, "jira-comment", posting, origin,
+                        () -> commentService.upsertComment(posting.issueKey(), posting.comment()), JiraCommentService.Result::success);
+                if (!result.success()) {
+                    retry(current, result.error(), origin);
+                    return;
+                }
+                current = current.withCommentPosted();
+                persist(current);
+            }
+            var transitioning = current;
+            if (current.status() != null && !jiraCall(Stages.TRANSITION, "jira-status", transitioning, origin,
+                    () -> statusService.updateStatus(transitioning.issueKey(), transitioning.status()), Boolean::booleanValue)) {
+                retry(current, "status transition to '" + current.status() + "' failed", origin);
+                return;
+            }
+            Files.deleteIfExists(fileOf(current));
+            log.info("Completed Jira write {} for {}", current.id(), current.issueKey());
+        } catch (Exception e) {
+            retry(current, e.toString(), origin);
+        }
+    }
+
+    /**
+     * Performs one Jira call within the publish timeout, observed as a stage of the originating trace and recorded
+     * as a JFR event.
+     */
+    private <T> T jiraCall(String stage, String scope, Task task, Origin origin, Callable<T> call, Predicate<T> succeeded) {
+        var event = new JiraCallEvent();
+        event.begin();
+        boolean success = false;
+        try {
+            T result = Stages.observation(stage, observationRegistry)
+                    .parentObservation(origin.observation())
+                    .highCardinalityKeyValue("issue", task.issueKey())
+                    .highCardinalityKeyValue("attempt", String.valueOf(task.attempts() + 1))
+                    .observe(() -> StageScope.call(scope, publishTimeout, call));
+            success = succeeded.test(result);
+            return result;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.operation = stage;
+                event.workId = origin.workId();
+                event.issueKey = task.issueKey();
+                event.writeId = task.id();
+                event.attempt = task.attempts() + 1;
+                event.success = success;
+                event.commit();
+            }
+        }
+    }
+
+    private void retry(Task task, String reason, Origin origin) {
+        var next = task.withNextAttempt();
+        if (next.attempts() >= maxAttempts) {
+            log.error("Giving up on Jira write {} for {} after {} attempts: {}", task.id(), task.issueKey(), next.attempts(), reason);
+            moveToFailed(fileOf(task));
+            return;
+        }
+        var delay = backoff(next.attempts());
+        log.warn("Jira write {} for {} failed (attempt {}), retrying in {}: {}", task.id(), task.issueKey(), next.attempts(), delay, reason);
+        try {
+            persist(next);
+        } catch (IOException e) {
+            log.error("Unable to persist retry state of Jira write {}", task.id(), e);
+        }
+        schedule(next, delay, origin);
+    }
+
+    private Duration backoff(int attempts) {
+        var delay = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : delay;
+    }
+
+    private void persist(Task task) throws IOException {
+        Path target = fileOf(task);
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        Files.write(tmp, mapper.writeValueAsBytes(task));
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void moveToFailed(Path file) {
+        try {
+            Files.createDirectories(failedDirectory);
+            Files.move(file, failedDirectory.resolve(file.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.error("Unable to move {} to {}", file, failedDirectory, e);
+        }
+    }
+
+    private Path fileOf(Task task) {
+        return directory.resolve(task.id() + TASK_SUFFIX);
+    }
+
+    /**
+     * Where a task was enqueued from: the observation of the enqueuing stage and the work id, both unknown for
+     * tasks recovered from disk.
+     */
+    record Origin(Observation observation, String workId) {
+        static final Origin UNKNOWN = new Origin(null, null);
+    }
+
+    /**
+     * A pending Jira write. The comment is posted first; the status transition only once the comment has been accepted.
+     */
+    public record Task(
+            String id,
+            String issueKey,
+            AdfDocument comment,
+            String status,
+            boolean commentPosted,
+            int attempts,
+            Instant createdAt
+    ) {
+        Task withCommentPosted() {
+            return new Task(id, issueKey, comment, status, true, attempts, createdAt);
+        }
+
+        Task withNextAttempt() {
+            return new Task(id, issueKey, comment, status, commentPosted, attempts + 1, createdAt);
+        }
+    }
+}
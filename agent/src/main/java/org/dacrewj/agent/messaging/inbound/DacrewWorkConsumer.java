@@ -1,11 +1,29 @@
 package org.dacrewj.agent.messaging.inbound;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.dacrewj.agent.concurrent.Bulkhead;
+import org.dacrewj.agent.jfr.WorkContext;
+import org.dacrewj.agent.jfr.WorkEvent;
 import org.dacrewj.agent.jira.JiraWorkService;
 import org.dacrewj.contract.DacrewWork;
 import org.dacrewj.contract.GithubModels;
 import org.dacrewj.contract.JiraModels;
+import org.dacrewj.messaging.Stages;
+import org.dacrewj.messaging.WorkLanes;
+import org.dacrewj.messaging.WorkRetries;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
@@ -16,24 +34,156 @@ public class DacrewWorkConsumer {
 
     private static final Logger log = LoggerFactory.getLogger(DacrewWorkConsumer.class);
 
+	static final String LISTENER_ID = "dacrewWorkConsumer";
+	static final String HIGH_LANE_LISTENER_ID = "dacrewWorkConsumerHighLane";
+	static final String LOW_LANE_LISTENER_ID = "dacrewWorkConsumerLowLane";
+	static final List<String> LISTENER_IDS = List.of(HIGH_LANE_LISTENER_ID, LISTENER_ID, LOW_LANE_LISTENER_ID);
+
 	private final JiraWorkService jiraWorkService;
+	private final WorkRetries workRetries;
+	private final MeterRegistry meterRegistry;
+	// Passing failed work on waits for the broker's confirm; not on the handler thread that failed the future
+	private final ExecutorService retries = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("work-retry-", 0).factory());
 
-	public DacrewWorkConsumer(JiraWorkService jiraWorkService) {
+	public DacrewWorkConsumer(JiraWorkService jiraWorkService, WorkRetries workRetries, MeterRegistry meterRegistry) {
 		this.jiraWorkService = jiraWorkService;
+		this.workRetries = workRetries;
+		this.meterRegistry = meterRegistry;
+	}
+
+	@PreDestroy
+	void shutdown() {
+		retries.shutdownNow();
+	}
+
+	/**
+	 * Consumes the normal lane, i.e. the work queue itself. Each {@link WorkLanes lane} has a listener of its own
+	 * whose number of consumers (dacrew.lanes.*.consumers) is its weight. With a prefetch of one, a consumer holds a
+	 * single message until its handler has finished, so a lane never has more work in the handlers than it has
+	 * consumers. While the handlers are saturated, the consumers of all lanes wait for room in the same bulkhead,
+	 * which lets them in in arrival order: a lane with one consumer still gets its turn.
+	 * <p>
+	 * Not started with the context: {@link DacrewWorkConsumerStarter} starts the listeners once the LLMs are warm.
+	 */
+	@RabbitListener(id = LISTENER_ID, queues = "${app.rabbit.queue-name:dacrew.work}",
+			concurrency = "${dacrew.lanes.normal.consumers:3}", autoStartup = "false")
+	public CompletableFuture<Void> handleWork(DacrewWork work, Message message) {
+		return handle(work, message, WorkLanes.Lane.NORMAL);
+	}
+
+	@RabbitListener(id = HIGH_LANE_LISTENER_ID, queues = "${app.rabbit.queue-name:dacrew.work}.high",
+			concurrency = "${dacrew.lanes.high.consumers:6}", autoStartup = "false")
+	public CompletableFuture<Void> handleHighPriorityWork(DacrewWork work, Message message) {
+		return handle(work, message, WorkLanes.Lane.HIGH);
+	}
+
+	@RabbitListener(id = LOW_LANE_LISTENER_ID, queues = "${app.rabbit.queue-name:dacrew.work}.low",
+			concurrency = "${dacrew.lanes.low.consumers:1}", autoStartup = "false")
+	public CompletableFuture<Void> handleLowPriorityWork(DacrewWork work, Message message) {
+		return handle(work, message, WorkLanes.Lane.LOW);
 	}
 
-	@RabbitListener(queues = "${app.rabbit.queue-name:dacrew.work}", concurrency = "2-10")
-    public void handleWork(DacrewWork work) {
-        log.info("Received work: {} from {} at {}", work.id(), work.source(), work.createdAt());
+    private CompletableFuture<Void> handle(DacrewWork work, Message message, WorkLanes.Lane lane) {
+        log.info("Received work: {} from {} at {} on the {} lane", work.id(), work.source(), work.createdAt(), WorkLanes.tag(lane));
+		recordQueueWait(work, lane);
+		var event = new WorkEvent();
+		event.begin();
+		event.workId = work.id();
+		event.source = String.valueOf(work.source());
 
         var payload = work.payload();
         if (payload instanceof JiraModels.JiraWebhook jira) {
-			jiraWorkService.performWork(jira);
+			event.issueKey = jira.jiraIssue() != null ? jira.jiraIssue().key() : null;
+			// The work id follows the work onto the handler's threads
+			try (var ignored = WorkContext.open(work.id())) {
+				// The message is acknowledged when the handler has finished, not when this consumer thread returns
+				return perform(jira)
+						.whenComplete((result, failure) -> commit(event, failure))
+						.exceptionallyComposeAsync(e -> failed(work, message, lane, e), retries);
+			}
         } else if (payload instanceof GithubModels.GithubIssue github) {
 			log.warn("Github handling is not yet supported (desc: {}) from work {}", github.description(), work.id());
         } else {
             log.warn("Unsupported payload type: {} for work {}", payload != null ? payload.getClass().getName() : "null", work.id());
         }
+		event.outcome = "ignored";
+		event.commit();
+        return CompletableFuture.completedFuture(null);
     }
 
+	/**
+	 * A handler which throws rather than failing its future is failed like any other, instead of the exception
+	 * reaching the listener container, which would requeue the message straight away.
+	 */
+	private CompletableFuture<Void> perform(JiraModels.JiraWebhook jira) {
+		try {
+			return jiraWorkService.performWork(jira);
+		} catch (RuntimeException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+	}
+
+	private static void commit(WorkEvent event, Throwable failure) {
+		Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+		event.outcome = cause == null ? "completed" : cause instanceof Bulkhead.BulkheadFullException ? "rejected" : "failed";
+		event.commit();
+	}
+
+	/**
+	 * Records the time the work spent in the queue in the stage timer, with the tags the stage observations use, and
+	 * per lane in dacrew.lane.wait. The clocks of ingester and agent may differ slightly; a negative wait is recorded
+	 * as zero.
+	 */
+	private void recordQueueWait(DacrewWork work, WorkLanes.Lane lane) {
+		if (work.createdAt() == null) {
+			return;
+		}
+		var wait = Duration.between(work.createdAt(), Instant.now());
+		if (wait.isNegative()) {
+			wait = Duration.ZERO;
+		}
+		Timer.builder(Stages.OBSERVATION)
+				.tag(Stages.STAGE_KEY, Stages.QUEUE_WAIT)
+				.tag("error", "none")
+				.register(meterRegistry)
+				.record(wait);
+		Timer.builder("dacrew.lane.wait")
+				.description("Time between enqueueing in the ingester and receipt in the agent, by lane")
+				.tag("lane", WorkLanes.tag(lane))
+				.publishPercentiles(0.5, 0.99)
+				.register(meterRegistry)
+				.record(wait);
+	}
+
+	/**
+	 * Work rejected by a saturated handler is requeued. Work whose handler failed is passed on to a delayed retry on
+	 * its lane, or to quarantine once it has failed too often, and acknowledged; if that is not possible it is requeued.
+	 * Runs on a virtual thread of its own, as {@link WorkRetries#failed} blocks for up to the confirm timeout.
+	 */
+	private CompletableFuture<Void> failed(DacrewWork work, Message message, WorkLanes.Lane lane, Throwable failure) {
+		Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+		if (cause instanceof Bulkhead.BulkheadFullException) {
+			log.warn("Requeueing work {}: {}", work.id(), cause.getMessage());
+			return CompletableFuture.failedFuture(cause);
+		}
+		WorkRetries.Disposition disposition;
+		try {
+			disposition = workRetries.failed(message, lane, cause);
+		} catch (RuntimeException e) {
+			log.error("Handling of work {} failed and it could not be passed on for retry; requeueing", work.id(), e);
+			return CompletableFuture.failedFuture(e);
+		}
+		Counter.builder("dacrew.work.failed")
+				.tag("lane", WorkLanes.tag(lane))
+				.tag("outcome", disposition.quarantined() ? "quarantined" : "retried")
+				.register(meterRegistry)
+				.increment();
+		if (disposition.quarantined()) {
+			log.error("Handling of work {} failed {} times; quarantined in {}", work.id(), disposition.attempt(), disposition.queue(), cause);
+		} else {
+			log.warn("Handling of work {} failed (attempt {}), retrying in {}: {}", work.id(), disposition.attempt(), disposition.delay(), cause.toString());
+		}
+		return CompletableFuture.completedFuture(null);
+	}
+
 }
@@ -0,0 +1,41 @@
+package org.dacrewj.agent.messaging.inbound;
+
+import org.dacrewj.agent.ollama.OllamaModelWarmer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Starts consuming work from RabbitMQ only once the local models are warm, so that queued work is not picked up
+ * by a consumer which would then wait for a model to load.
+ */
+@Profile("server")
+@Component
+public class DacrewWorkConsumerStarter {
+
+	private static final Logger log = LoggerFactory.getLogger(DacrewWorkConsumerStarter.class);
+
+	private final RabbitListenerEndpointRegistry registry;
+
+	public DacrewWorkConsumerStarter(RabbitListenerEndpointRegistry registry) {
+		this.registry = registry;
+	}
+
+	@EventListener
+	public void onModelsWarm(OllamaModelWarmer.ModelsWarmEvent event) {
+		boolean logged = false;
+		for (String id : DacrewWorkConsumer.LISTENER_IDS) {
+			var container = registry.getListenerContainer(id);
+			if (container != null && !container.isRunning()) {
+				if (!logged) {
+					log.info("Models {} are warm; starting to consume work", event.readyModels());
+					logged = true;
+				}
+				container.start();
+			}
+		}
+	}
+}
@@ -0,0 +1,228 @@
+package org.dacrewj.agent.ollama;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pre-loads the local Ollama models listed in dacrew.ollama.warmup.models once the application is ready, so that
+ * the first review does not pay for loading a model, and keeps them resident by repeating a tiny request with a
+ * keep_alive before it expires.
+ * <p>
+ * Readiness is reported as the ollamaModelWarmer health indicator: OUT_OF_SERVICE until all models are warm, with a
+ * failed warm-up's error among the details. It is never DOWN, as the agent itself is alive and keeps retrying; the
+ * server profile includes it in the readiness health group only, not in liveness.
+ * A {@link ModelsWarmEvent} is published once all models answered, or once dacrew.ollama.warmup.max-wait has elapsed,
+ * whichever comes first; the RabbitMQ consumer waits for it before it starts consuming.
+ */
+@Component
+public class OllamaModelWarmer implements HealthIndicator {
+
+    private static final Logger log = LoggerFactory.getLogger(OllamaModelWarmer.class);
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(30);
+
+    private final HttpClient http;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final ApplicationEventPublisher events;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "ollama-warmup");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final boolean enabled;
+    private final String baseUrl;
+    private final List<String> models;
+    private final Duration keepAlive;
+    private final Duration refreshInterval;
+    private final Duration requestTimeout;
+    private final Duration maxWait;
+
+    private final Map<String, ModelState> states = new ConcurrentHashMap<>();
+    private final AtomicBoolean warmPublished = new AtomicBoolean();
+    private final AtomicBoolean retryScheduled = new AtomicBoolean();
+
+    public OllamaModelWarmer(
+            ApplicationEventPublisher events,
+            @Value("${dacrew.ollama.warmup.enabled:true}") boolean enabled,
+            @Value("${dacrew.ollama.base-url:${spring.ai.ollama.base-url:http://localhost:11434}}") String baseUrl,
+            @Value("${dacrew.ollama.warmup.models:}") List<String> models,
+            @Value("${dacrew.ollama.warmup.keep-alive:30m}") Duration keepAlive,
+            @Value("${dacrew.ollama.warmup.refresh-interval:10m}") Duration refreshInterval,
+            @Value("${dacrew.ollama.warmup.request-timeout:5m}") Duration requestTimeout,
+            @Value("${dacrew.ollama.warmup.max-wait:10m}") Duration maxWait
+    ) {
+        this.events = events;
+        this.enabled = enabled;
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.models = models.stream().map(String::strip).filter(m -> !m.isEmpty()).distinct().toList();
+        this.keepAlive = keepAlive;
+        this.refreshInterval = refreshInterval;
+        this.requestTimeout = requestTimeout;
+        this.maxWait = maxWait;
+        this.http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+        this.models.forEach(model -> states.put(model, ModelState.pending()));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled || models.isEmpty()) {
+            log.info("Ollama model warm-up disabled");
+            publishWarm();
+            return;
+        }
+        log.info("Warming up Ollama models {} at {} (keep-alive {})", models, baseUrl, keepAlive);
+        scheduler.execute(this::warmAll);
+        scheduler.scheduleWithFixedDelay(this::warmAll, refreshInterval.toMillis(), refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+        scheduler.schedule(() -> {
+            if (!allReady()) {
+                log.warn("Ollama models not warm after {}; starting consumers anyway: {}", maxWait, states);
+                publishWarm();
+            }
+        }, maxWait.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    public boolean allReady() {
+        return states.values().stream().allMatch(ModelState::ready);
+    }
+
+    @Override
+    public Health health() {
+        if (!enabled || models.isEmpty()) {
+            return Health.up().withDetail("warmup", "disabled").build();
+        }
+        var details = new LinkedHashMap<String, Object>();
+        states.forEach((model, state) -> details.put(model, state.details()));
+        return (allReady() ? Health.up() : Health.outOfService()).withDetails(details).build();
+    }
+
+    private void warmAll() {
+        warm(models);
+    }
+
+    private void warm(List<String> candidates) {
+        candidates.forEach(this::warm);
+        if (allReady()) {
+            publishWarm();
+        } else if (!scheduler.isShutdown() && retryScheduled.compareAndSet(false, true)) {
+            // Retry models which are not ready sooner than the regular keep-alive refresh
+            scheduler.schedule(() -> {
+                retryScheduled.set(false);
+                warm(models.stream().filter(model -> !states.get(model).ready()).toList());
+            }, RETRY_DELAY.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Sends a one-token generation request; Ollama loads the model if needed and keeps it for keep_alive.
+     */
+    boolean warm(String model) {
+        long start = System.nanoTime();
+        try {
+            var body = Map.of(
+                    "model", model,
+                    "prompt", "Reply with OK.",
+                    "stream", false,
+                    "keep_alive", keepAlive.toSeconds() + "s",
+                    "options", Map.of("num_predict", 1));
+            var request = HttpRequest.newBuilder()
+                    .uri(URI.create(baseUrl + "/api/generate"))
+                    .timeout(requestTimeout)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(mapper.writeValueAsBytes(body)))
+                    .build();
+            var response = http.send(request, HttpResponse.BodyHandlers.ofString());
+            Duration took = Duration.ofNanos(System.nanoTime() - start);
+            if (response.statusCode() / 100 != 2) {
+                String error = "HTTP " + response.statusCode() + ": " + response.body();
+                log.warn("Warming up Ollama model {} failed: {}", model, error);
+                states.put(model, states.get(model).failed(error, keepAlive));
+                return false;
+            }
+            ModelState previous = states.get(model);
+            if (!previous.ready()) {
+                log.info("Ollama model {} is warm after {} ms", model, took.toMillis());
+            }
+            states.put(model, ModelState.ready(took));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            log.warn("Warming up Ollama model {} failed: {}", model, e.toString());
+            states.put(model, states.get(model).failed(e.toString(), keepAlive));
+            return false;
+        }
+    }
+
+    private void publishWarm() {
+        if (warmPublished.compareAndSet(false, true)) {
+            events.publishEvent(new ModelsWarmEvent(allReady() ? models : models.stream().filter(m -> states.get(m).ready()).toList()));
+        }
+    }
+
+    /**
+     * Published once the configured models are warm (or warm-up is disabled or gave up waiting).
+     */
+    public record ModelsWarmEvent(List<String> readyModels) {}
+
+    record ModelState(boolean ready, Instant lastWarmed, Duration lastDuration, String error) {
+
+        static ModelState pending() {
+            return new ModelState(false, null, null, null);
+        }
+
+        static ModelState ready(Duration took) {
+            return new ModelState(true, Instant.now(), took, null);
+        }
+
+        /**
+         * A model that was warm stays ready after a failed refresh until Ollama's keep-alive would have expired.
+         */
+        ModelState failed(String error, Duration keepAlive) {
+            boolean stillLoaded = ready && lastWarmed.plus(keepAlive).isAfter(Instant.now());
+            return new ModelState(stillLoaded, lastWarmed, lastDuration, error);
+        }
+
+        Map<String, Object> details() {
+            var details = new LinkedHashMap<String, Object>();
+            details.put("ready", ready);
+            if (lastWarmed != null) {
+                details.put("lastWarmed", lastWarmed.toString());
+                details.put("lastDurationMs", lastDuration.toMillis());
+            }
+            if (error != null) {
+                details.put("error", error);
+            }
+            return details;
+        }
+    }
+}
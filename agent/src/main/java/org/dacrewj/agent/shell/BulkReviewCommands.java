@@ -0,0 +1,149 @@
+package org.dacrewj.agent.shell;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.dacrewj.agent.agents.DraftRequirement;
+import org.dacrewj.agent.agents.RequirementReview;
+import org.dacrewj.agent.jira.DraftRequirementHandler;
+import org.dacrewj.contract.JiraModels;
+import org.dacrewj.contract.Source;
+import org.jline.terminal.Terminal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.shell.command.annotation.Command;
+import org.springframework.shell.command.annotation.Option;
+
+/**
+ * Shell commands for reviewing many requirements at once, without RabbitMQ or Jira writes.
+ */
+@Command(group = "Reviews")
+public class BulkReviewCommands {
+
+	private static final Logger logger = LoggerFactory.getLogger(BulkReviewCommands.class);
+
+	private static final ObjectMapper mapper = new ObjectMapper();
+	private static final Duration PROGRESS_INTERVAL = Duration.ofSeconds(2);
+
+	private final DraftRequirementHandler reviewer;
+	private final MeterRegistry meterRegistry;
+	private final Terminal terminal;
+
+	public BulkReviewCommands(DraftRequirementHandler reviewer, MeterRegistry meterRegistry, Terminal terminal) {
+		this.reviewer = reviewer;
+		this.meterRegistry = meterRegistry;
+		this.terminal = terminal;
+	}
+
+	@Command(command = "review-bulk", description = "Review the Jira issues of a JSONL export (one JiraIssue per line) in parallel")
+	public String reviewBulk(
+			@Option(longNames = "file", required = true, description = "JSONL file with one Jira issue per line") String file,
+			@Option(longNames = "concurrency", defaultValue = "4", description = "Reviews run in parallel") int concurrency,
+			@Option(longNames = "output-dir", defaultValue = "bulk-reviews", description = "Directory for the reviews") String outputDir
+	) throws IOException, InterruptedException {
+		var issues = readIssues(Path.of(file));
+		var output = Path.of(outputDir);
+		Files.createDirectories(output);
+		var stats = new BulkReviewStats(issues.size(), this::tokensUsed);
+		PrintWriter out = terminal.writer();
+		out.println("Reviewing %d issues from %s with concurrency %d into %s".formatted(issues.size(), file, concurrency, output.toAbsolutePath()));
+		out.flush();
+
+		ScheduledExecutorService progress = Executors.newSingleThreadScheduledExecutor();
+		progress.scheduleAtFixedRate(() -> {
+			out.println(stats.summary());
+			out.flush();
+		}, PROGRESS_INTERVAL.toMillis(), PROGRESS_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+		ExecutorService workers = Executors.newFixedThreadPool(Math.max(1, concurrency), Thread.ofPlatform().name("bulk-review-", 0).factory());
+		try (var results = Files.newBufferedWriter(output.resolve("reviews.jsonl"), StandardCharsets.UTF_8,
+				StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+			for (JiraModels.JiraIssue issue : issues) {
+				workers.execute(() -> review(issue, output, results, stats));
+			}
+			workers.shutdown();
+			while (!workers.awaitTermination(1, TimeUnit.SECONDS)) {
+				// Progress is printed by the scheduler
+			}
+		} finally {
+			workers.shutdownNow();
+			progress.shutdownNow();
+		}
+		return "Done: " + stats.summary();
+	}
+
+	private void review(JiraModels.JiraIssue issue, Path output, BufferedWriter results, BulkReviewStats stats) {
+		long start = System.nanoTime();
+		try {
+			var requirement = new DraftRequirement(Source.JIRA.name(), issue.key(), issue.fields().summary(), issue.fields().description());
+			var review = reviewer.review(requirement);
+			Duration latency = Duration.ofNanos(System.nanoTime() - start);
+			write(review, output, results);
+			stats.succeeded(latency);
+		} catch (Exception e) {
+			logger.warn("Review of {} failed: {}", issue.key(), e.toString());
+			stats.failed(Duration.ofNanos(System.nanoTime() - start));
+		}
+	}
+
+	private static void write(RequirementReview review, Path output, BufferedWriter results) throws IOException {
+		Files.writeString(output.resolve(review.key().replaceAll("[^A-Za-z0-9._-]", "_") + ".md"), review.text());
+		String line = mapper.writeValueAsString(review);
+		synchronized (results) {
+			results.write(line);
+			results.newLine();
+			results.flush();
+		}
+	}
+
+	static List<JiraModels.JiraIssue> readIssues(Path file) throws IOException {
+		var issues = new ArrayList<JiraModels.JiraIssue>();
+		int lineNumber = 0;
+		for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+			lineNumber++;
+			if (line.isBlank()) {
+				continue;
+			}
+			var issue = mapper.readValue(line, JiraModels.JiraIssue.class);
+			if (issue.key() == null || issue.fields() == null) {
+				logger.warn("Skipping line {} of {}: issue without key or fields", lineNumber, file);
+				continue;
+			}
+			issues.add(issue);
+		}
+		return issues;
+	}
+
+	/**
+	 * Total tokens reported by Spring AI's gen_ai.client.token.usage meters, -1 if the chat models are not observed.
+	 */
+	private long tokensUsed() {
+		var meters = meterRegistry.find("gen_ai.client.token.usage").tag("gen_ai.token.type", "total").meters();
+		if (meters.isEmpty()) {
+			return -1;
+		}
+		double total = 0;
+		for (var meter : meters) {
+			if (meter instanceof Counter counter) {
+				total += counter.count();
+			} else if (meter instanceof DistributionSummary summary) {
+				total += summary.totalAmount();
+			}
+		}
+		return (long) total;
+	}
+}
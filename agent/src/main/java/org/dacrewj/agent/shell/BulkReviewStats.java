@@ -0,0 +1,80 @@
+package org.dacrewj.agent.shell;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Running throughput, latency and token figures of a bulk review.
+ */
+final class BulkReviewStats {
+
+	private final int total;
+	private final long startNanos;
+	private final LongSupplier tokens;
+	private final long tokensAtStart;
+	private final AtomicInteger succeeded = new AtomicInteger();
+	private final AtomicInteger failed = new AtomicInteger();
+	private long[] latencies = new long[64];
+	private int count;
+
+	/**
+	 * @param tokens total LLM tokens used so far by the process, or a supplier of -1 if unknown
+	 */
+	BulkReviewStats(int total, LongSupplier tokens) {
+		this.total = total;
+		this.tokens = tokens;
+		this.tokensAtStart = tokens.getAsLong();
+		this.startNanos = System.nanoTime();
+	}
+
+	void succeeded(Duration latency) {
+		succeeded.incrementAndGet();
+		record(latency);
+	}
+
+	void failed(Duration latency) {
+		failed.incrementAndGet();
+		record(latency);
+	}
+
+	private synchronized void record(Duration latency) {
+		if (count == latencies.length) {
+			latencies = Arrays.copyOf(latencies, count * 2);
+		}
+		latencies[count++] = latency.toMillis();
+	}
+
+	int done() {
+		return succeeded.get() + failed.get();
+	}
+
+	/**
+	 * @param quantile between 0 and 1
+	 * @return the latency quantile in milliseconds of the reviews finished so far, 0 if none
+	 */
+	synchronized long latencyMillis(double quantile) {
+		if (count == 0) {
+			return 0;
+		}
+		long[] sorted = Arrays.copyOf(latencies, count);
+		Arrays.sort(sorted);
+		int index = (int) Math.ceil(quantile * count) - 1;
+		return sorted[Math.min(count - 1, Math.max(0, index))];
+	}
+
+	double throughputPerSecond() {
+		double seconds = (System.nanoTime() - startNanos) / 1e9;
+		return seconds > 0 ? done() / seconds : 0;
+	}
+
+	String summary() {
+		long used = tokens.getAsLong();
+		String tokenText = used < 0 || tokensAtStart < 0 ? "n/a"
+				: "%d (%d/review)".formatted(used - tokensAtStart, done() > 0 ? (used - tokensAtStart) / done() : 0);
+		return "%d/%d reviewed (%d failed) | %.2f reviews/s | latency p50 %d ms, p95 %d ms, max %d ms | tokens %s".formatted(
+				done(), total, failed.get(), throughputPerSecond(),
+				latencyMillis(0.5), latencyMillis(0.95), latencyMillis(1.0), tokenText);
+	}
+}
@@ -0,0 +1,10 @@
+package org.dacrewj.agent.store;
+
+import java.time.Instant;
+
+/**
+ * Approval statistics of the reviewed issues of a project; an issue counts as approved if its latest review approved it.
+ */
+public record ProjectReviewStats(String project, int issues, int approved, int rejected, int reviews,
+		double approvalRate, Instant lastReviewedAt) {
+}
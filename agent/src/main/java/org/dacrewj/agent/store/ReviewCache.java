@@ -0,0 +1,145 @@
+package org.dacrewj.agent.store;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bounded in-memory cache of review histories read from the {@link ReviewStore}, for the query API.
+ * <p>
+ * Histories of the dacrew.review-api.cache-size most recently queried issues are kept. A cached history is valid as
+ * long as the store holds the same number of reviews for the issue, so appends need no invalidation. Project
+ * statistics are computed from the store index alone and recomputed only when the store version changes.
+ * <p>
+ * Metrics: dacrew.review-cache.requests, tagged by result (hit/miss).
+ */
+@Component
+public class ReviewCache {
+
+	private final ReviewStore store;
+	private final Map<String, List<StoredReview>> histories;
+	private final Counter hits;
+	private final Counter misses;
+	private volatile Stats stats = new Stats(-1, Map.of());
+
+	public ReviewCache(ReviewStore store, @Value("${dacrew.review-api.cache-size:1000}") int maxEntries, MeterRegistry meterRegistry) {
+		this.store = store;
+		this.histories = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, List<StoredReview>> eldest) {
+				return size() > maxEntries;
+			}
+		};
+		this.hits = Counter.builder("dacrew.review-cache.requests").tag("result", "hit").register(meterRegistry);
+		this.misses = Counter.builder("dacrew.review-cache.requests").tag("result", "miss").register(meterRegistry);
+	}
+
+	public Optional<ReviewSummary> summary(String key) {
+		return store.summary(key);
+	}
+
+	public Optional<StoredReview> latest(String key) {
+		List<StoredReview> history = history(key);
+		return history.isEmpty() ? Optional.empty() : Optional.of(history.get(history.size() - 1));
+	}
+
+	/**
+	 * @return the reviews of the issue, oldest first
+	 */
+	public List<StoredReview> history(String key) {
+		int count = store.count(key);
+		if (count == 0) {
+			return List.of();
+		}
+		synchronized (histories) {
+			List<StoredReview> cached = histories.get(key);
+			if (cached != null && cached.size() == count) {
+				hits.increment();
+				return cached;
+			}
+		}
+		misses.increment();
+		List<StoredReview> history = store.history(key);
+		synchronized (histories) {
+			histories.put(key, history);
+		}
+		return history;
+	}
+
+	public Optional<ProjectReviewStats> projectStats(String project) {
+		return Optional.ofNullable(stats().byProject().get(project));
+	}
+
+	/**
+	 * @return the store version the current project statistics were computed at
+	 */
+	public long statsVersion() {
+		return stats().version();
+	}
+
+	private Stats stats() {
+		Stats current = stats;
+		long version = store.version();
+		if (current.version() == version) {
+			return current;
+		}
+		synchronized (this) {
+			if (stats.version() == version) {
+				return stats;
+			}
+			var builders = new HashMap<String, StatsBuilder>();
+			for (String key : store.keys()) {
+				store.summary(key).ifPresent(summary -> builders.computeIfAbsent(project(key), StatsBuilder::new).add(summary));
+			}
+			var byProject = new HashMap<String, ProjectReviewStats>();
+			builders.forEach((project, builder) -> byProject.put(project, builder.build()));
+			stats = new Stats(version, Map.copyOf(byProject));
+			return stats;
+		}
+	}
+
+	/**
+	 * @return the project part of an issue key, e.g. "ABC" for "ABC-123"
+	 */
+	static String project(String key) {
+		int dash = key.lastIndexOf('-');
+		return dash > 0 ? key.substring(0, dash) : key;
+	}
+
+	private record Stats(long version, Map<String, ProjectReviewStats> byProject) {
+	}
+
+	private static final class StatsBuilder {
+		private final String project;
+		private int issues;
+		private int approved;
+		private int reviews;
+		private Instant lastReviewedAt;
+
+		StatsBuilder(String project) {
+			this.project = project;
+		}
+
+		void add(ReviewSummary summary) {
+			issues++;
+			reviews += summary.reviews();
+			if (summary.approved()) {
+				approved++;
+			}
+			if (lastReviewedAt == null || summary.lastReviewedAt().isAfter(lastReviewedAt)) {
+				lastReviewedAt = summary.lastReviewedAt();
+			}
+		}
+
+		ProjectReviewStats build() {
+			return new ProjectReviewStats(project, issues, approved, issues - approved, reviews, (double) approved / issues, lastReviewedAt);
+		}
+	}
+}
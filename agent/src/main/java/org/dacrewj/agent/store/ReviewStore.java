@@ -0,0 +1,332 @@
+package org.dacrewj.agent.store;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import org.dacrewj.agent.agents.RequirementReview;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Append-only store of all reviews, kept in segment files in dacrew.review-store.directory.
+ * <p>
+ * Each review is appended to the active segment as a record of [length][crc32][JSON]. When a segment reaches
+ * dacrew.review-store.segment-bytes, or on shutdown, it is sealed with a footer listing the key, offset and
+ * time of each of its records, and is never written again. On startup the index from issue key to record locations
+ * is rebuilt from the footers alone; only a segment left unsealed by a crash is scanned record by record (and
+ * truncated after its last intact record) before being sealed.
+ * <p>
+ * Latest-review and history lookups are a map lookup plus one positional read per review.
+ */
+@Component
+public class ReviewStore {
+
+	private static final Logger logger = LoggerFactory.getLogger(ReviewStore.class);
+
+	private static final String SEGMENT_PREFIX = "segment-";
+	private static final String SEGMENT_SUFFIX = ".log";
+	private static final long FOOTER_MAGIC = 0x44414352455753L; // "DACREWS"
+	private static final int RECORD_HEADER = Integer.BYTES * 2;
+	private static final int FOOTER_TRAILER = Integer.BYTES + Long.BYTES;
+
+	private final ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+	private final Path directory;
+	private final long segmentBytes;
+	private final boolean fsync;
+	private final boolean markdownExport;
+
+	private final Map<String, List<Location>> index = new ConcurrentHashMap<>();
+	private final Map<Integer, FileChannel> readers = new ConcurrentHashMap<>();
+	private final AtomicLong version = new AtomicLong();
+
+	private int activeSegment;
+	private FileChannel active;
+	private final List<Location> activeLocations = new ArrayList<>();
+
+	public ReviewStore(
+			@Value("${dacrew.review-store.directory:review-store}") String directory,
+			@Value("${dacrew.review-store.segment-bytes:67108864}") long segmentBytes,
+			@Value("${dacrew.review-store.fsync:true}") boolean fsync,
+			@Value("${dacrew.review-store.markdown-export:false}") boolean markdownExport
+	) throws IOException {
+		this.directory = Path.of(directory);
+		this.segmentBytes = segmentBytes;
+		this.fsync = fsync;
+		this.markdownExport = markdownExport;
+		Files.createDirectories(this.directory);
+		load();
+	}
+
+	/**
+	 * @return whether each review should also be exported as a markdown file
+	 */
+	public boolean markdownExport() {
+		return markdownExport;
+	}
+
+	/**
+	 * Appends a review.
+	 */
+	public synchronized StoredReview append(RequirementReview review) {
+		var stored = new StoredReview(review.key(), review.source(), Instant.now(), review);
+		try {
+			byte[] payload = mapper.writeValueAsBytes(stored);
+			if (active == null || (active.size() > 0 && active.size() + RECORD_HEADER + payload.length > segmentBytes)) {
+				roll();
+			}
+			var crc = new CRC32();
+			crc.update(payload);
+			var buffer = ByteBuffer.allocate(RECORD_HEADER + payload.length)
+					.putInt(payload.length)
+					.putInt((int) crc.getValue())
+					.put(payload)
+					.flip();
+			long offset = active.size();
+			while (buffer.hasRemaining()) {
+				active.write(buffer, offset + buffer.position());
+			}
+			if (fsync) {
+				active.force(false);
+			}
+			var location = new Location(stored.key(), activeSegment, offset, payload.length, stored.reviewedAt(), review.approved());
+			activeLocations.add(location);
+			addToIndex(location);
+			return stored;
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to append review of " + review.key() + " to " + directory, e);
+		}
+	}
+
+	/**
+	 * @return the most recent review of the issue
+	 */
+	public Optional<StoredReview> latest(String key) {
+		List<Location> locations = index.get(key);
+		return locations == null || locations.isEmpty() ? Optional.empty() : Optional.of(read(locations.get(locations.size() - 1)));
+	}
+
+	/**
+	 * @return the reviews of the issue, oldest first
+	 */
+	public List<StoredReview> history(String key) {
+		return index.getOrDefault(key, List.of()).stream().map(this::read).toList();
+	}
+
+	/**
+	 * @return the number of reviews of the issue, without reading them
+	 */
+	public int count(String key) {
+		return index.getOrDefault(key, List.of()).size();
+	}
+
+	/**
+	 * @return the number of reviews and the outcome of the latest one, from the index alone; empty if the issue was never reviewed
+	 */
+	public Optional<ReviewSummary> summary(String key) {
+		List<Location> locations = index.get(key);
+		if (locations == null || locations.isEmpty()) {
+			return Optional.empty();
+		}
+		Location latest = locations.get(locations.size() - 1);
+		return Optional.of(new ReviewSummary(key, locations.size(), latest.reviewedAt(), latest.approved()));
+	}
+
+	/**
+	 * @return a number which changes whenever a review is added, for cheap change detection
+	 */
+	public long version() {
+		return version.get();
+	}
+
+	public Set<String> keys() {
+		return Collections.unmodifiableSet(index.keySet());
+	}
+
+	@PreDestroy
+	public synchronized void close() throws IOException {
+		seal();
+		for (FileChannel reader : readers.values()) {
+			reader.close();
+		}
+		readers.clear();
+	}
+
+	private void addToIndex(Location location) {
+		index.compute(location.key(), (key, locations) -> {
+			var updated = locations == null ? new ArrayList<Location>(1) : new ArrayList<>(locations);
+			updated.add(location);
+			return List.copyOf(updated);
+		});
+		version.incrementAndGet();
+	}
+
+	private StoredReview read(Location location) {
+		try {
+			FileChannel channel = readers.computeIfAbsent(location.segment(), this::openReader);
+			var buffer = ByteBuffer.allocate(location.length());
+			long position = location.offset() + RECORD_HEADER;
+			while (buffer.hasRemaining()) {
+				if (channel.read(buffer, position + buffer.position()) < 0) {
+					throw new IOException("Unexpected end of segment " + location.segment());
+				}
+			}
+			return mapper.readValue(buffer.array(), StoredReview.class);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to read review of " + location.key() + " from segment " + location.segment(), e);
+		}
+	}
+
+	private FileChannel openReader(int segment) {
+		try {
+			return FileChannel.open(segmentFile(segment), StandardOpenOption.READ);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void roll() throws IOException {
+		seal();
+		activeSegment++;
+		active = FileChannel.open(segmentFile(activeSegment), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE, StandardOpenOption.READ);
+	}
+
+	/**
+	 * Writes the footer of the active segment and closes it for writing.
+	 */
+	private void seal() throws IOException {
+		if (active == null) {
+			return;
+		}
+		byte[] footer = mapper.writeValueAsBytes(activeLocations);
+		var buffer = ByteBuffer.allocate(footer.length + FOOTER_TRAILER)
+				.put(footer)
+				.putInt(footer.length)
+				.putLong(FOOTER_MAGIC)
+				.flip();
+		long offset = active.size();
+		while (buffer.hasRemaining()) {
+			active.write(buffer, offset + buffer.position());
+		}
+		active.force(true);
+		active.close();
+		active = null;
+		activeLocations.clear();
+	}
+
+	private Path segmentFile(int segment) {
+		return directory.resolve(SEGMENT_PREFIX + "%06d".formatted(segment) + SEGMENT_SUFFIX);
+	}
+
+	private void load() throws IOException {
+		List<Integer> segments;
+		try (Stream<Path> files = Files.list(directory)) {
+			segments = files.map(p -> p.getFileName().toString())
+					.filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+					.map(name -> Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())))
+					.sorted()
+					.toList();
+		}
+		long start = System.nanoTime();
+		for (int segment : segments) {
+			List<Location> locations = readFooter(segment);
+			if (locations == null) {
+				locations = recover(segment);
+			}
+			locations.forEach(this::addToIndex);
+			activeSegment = segment;
+		}
+		if (!segments.isEmpty()) {
+			logger.info("Loaded review index of {} issues from {} segments in {} ms", index.size(), segments.size(),
+					(System.nanoTime() - start) / 1_000_000);
+		}
+	}
+
+	/**
+	 * @return the locations listed in the segment's footer, or null if the segment is not sealed
+	 */
+	private List<Location> readFooter(int segment) throws IOException {
+		try (var channel = FileChannel.open(segmentFile(segment), StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size < FOOTER_TRAILER) {
+				return null;
+			}
+			var trailer = ByteBuffer.allocate(FOOTER_TRAILER);
+			channel.read(trailer, size - FOOTER_TRAILER);
+			trailer.flip();
+			int footerLength = trailer.getInt();
+			if (trailer.getLong() != FOOTER_MAGIC || footerLength < 0 || footerLength > size - FOOTER_TRAILER) {
+				return null;
+			}
+			var footer = ByteBuffer.allocate(footerLength);
+			channel.read(footer, size - FOOTER_TRAILER - footerLength);
+			return mapper.readValue(footer.array(), new TypeReference<List<Location>>() {});
+		}
+	}
+
+	/**
+	 * Rebuilds the locations of an unsealed segment by scanning its records, cuts off a torn last record and seals it.
+	 */
+	private List<Location> recover(int segment) throws IOException {
+		logger.warn("Review store segment {} was not sealed; scanning it", segment);
+		var locations = new ArrayList<Location>();
+		try (var channel = FileChannel.open(segmentFile(segment), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			long size = channel.size();
+			long offset = 0;
+			var header = ByteBuffer.allocate(RECORD_HEADER);
+			while (offset + RECORD_HEADER <= size) {
+				header.clear();
+				channel.read(header, offset);
+				header.flip();
+				int length = header.getInt();
+				int checksum = header.getInt();
+				if (length <= 0 || offset + RECORD_HEADER + length > size) {
+					break;
+				}
+				var payload = ByteBuffer.allocate(length);
+				channel.read(payload, offset + RECORD_HEADER);
+				var crc = new CRC32();
+				crc.update(payload.array());
+				if ((int) crc.getValue() != checksum) {
+					break;
+				}
+				StoredReview stored = mapper.readValue(payload.array(), StoredReview.class);
+				locations.add(new Location(stored.key(), segment, offset, length, stored.reviewedAt(), stored.review().approved()));
+				offset += RECORD_HEADER + length;
+			}
+			if (offset < size) {
+				logger.warn("Truncating {} bytes of an incomplete record at the end of review store segment {}", size - offset, segment);
+				channel.truncate(offset);
+			}
+		}
+		active = FileChannel.open(segmentFile(segment), StandardOpenOption.WRITE, StandardOpenOption.READ);
+		activeLocations.addAll(locations);
+		seal();
+		return locations;
+	}
+
+	/**
+	 * Where a review is stored: the segment number, offset of its record, and length of its JSON payload.
+	 */
+	record Location(String key, int segment, long offset, int length, Instant reviewedAt, boolean approved) {
+	}
+}
@@ -0,0 +1,9 @@
+package org.dacrewj.agent.store;
+
+import java.time.Instant;
+
+/**
+ * What the {@link ReviewStore} index knows about the reviews of an issue without reading them.
+ */
+public record ReviewSummary(String key, int reviews, Instant lastReviewedAt, boolean approved) {
+}
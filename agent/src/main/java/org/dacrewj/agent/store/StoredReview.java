@@ -0,0 +1,10 @@
+package org.dacrewj.agent.store;
+
+import java.time.Instant;
+import org.dacrewj.agent.agents.RequirementReview;
+
+/**
+ * A review as kept in the {@link ReviewStore}.
+ */
+public record StoredReview(String key, String source, Instant reviewedAt, RequirementReview review) {
+}
@@ -0,0 +1,100 @@
+package org.dacrewj.agent.stub;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latency distribution of the stub LLM. All profiles are deterministic: the n-th call always gets the same latency.
+ */
+public sealed interface LatencyProfile {
+
+	Duration next();
+
+	static LatencyProfile fixed(Duration latency) {
+		return new Fixed(latency);
+	}
+
+	/**
+	 * Log-normal latency with the given median and shape parameter sigma (0.5 is moderately heavy-tailed,
+	 * p99 being about 3.2 times the median).
+	 */
+	static LatencyProfile logNormal(Duration median, double sigma, long seed) {
+		return new LogNormal(median, sigma, seed, new AtomicLong());
+	}
+
+	/**
+	 * Replays recorded latencies in order, starting over at the end.
+	 */
+	static LatencyProfile trace(List<Duration> latencies) {
+		if (latencies.isEmpty()) {
+			throw new IllegalArgumentException("Latency trace is empty");
+		}
+		return new Trace(List.copyOf(latencies), new AtomicLong());
+	}
+
+	/**
+	 * Reads a trace with one latency in milliseconds per line; blank lines and lines starting with # are ignored.
+	 */
+	static LatencyProfile trace(Path file) {
+		try (var lines = Files.lines(file)) {
+			return trace(lines.map(String::strip)
+					.filter(line -> !line.isEmpty() && !line.startsWith("#"))
+					.map(line -> Duration.ofNanos(Math.round(Double.parseDouble(line) * 1_000_000)))
+					.toList());
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to read latency trace " + file, e);
+		}
+	}
+
+	record Fixed(Duration latency) implements LatencyProfile {
+		@Override
+		public Duration next() {
+			return latency;
+		}
+	}
+
+	record LogNormal(Duration median, double sigma, long seed, AtomicLong calls) implements LatencyProfile {
+		@Override
+		public Duration next() {
+			// A fresh generator per call index keeps the sequence deterministic under concurrency
+			double uniform = new SplittableRandom(seed + calls.getAndIncrement()).nextDouble();
+			return Duration.ofNanos(Math.round(median.toNanos() * Math.exp(sigma * inverseNormal(uniform))));
+		}
+
+		/**
+		 * Acklam's rational approximation of the standard normal quantile function.
+		 */
+		static double inverseNormal(double p) {
+			p = Math.min(Math.max(p, 1e-12), 1 - 1e-12);
+			double[] a = {-3.969683028665376e+01, 2.209460984245205e+02, -2.759285104469687e+02, 1.383577518672690e+02, -3.066479806614716e+01, 2.506628277459239e+00};
+			double[] b = {-5.447609879822406e+01, 1.615858368580409e+02, -1.556989798598866e+02, 6.680131188771972e+01, -1.328068155288572e+01};
+			double[] c = {-7.784894002430293e-03, -3.223964580411365e-01, -2.400758277161838e+00, -2.549732539343734e+00, 4.374664141464968e+00, 2.938163982698783e+00};
+			double[] d = {7.784695709041462e-03, 3.224671290700398e-01, 2.445134137142996e+00, 3.754408661907416e+00};
+			double low = 0.02425;
+			if (p < low) {
+				double q = Math.sqrt(-2 * Math.log(p));
+				return (((((c[0] * q + c[1]) * q + c[2]) * q + c[3]) * q + c[4]) * q + c[5]) / ((((d[0] * q + d[1]) * q + d[2]) * q + d[3]) * q + 1);
+			}
+			if (p > 1 - low) {
+				double q = Math.sqrt(-2 * Math.log(1 - p));
+				return -(((((c[0] * q + c[1]) * q + c[2]) * q + c[3]) * q + c[4]) * q + c[5]) / ((((d[0] * q + d[1]) * q + d[2]) * q + d[3]) * q + 1);
+			}
+			double q = p - 0.5;
+			double r = q * q;
+			return (((((a[0] * r + a[1]) * r + a[2]) * r + a[3]) * r + a[4]) * r + a[5]) * q / (((((b[0] * r + b[1]) * r + b[2]) * r + b[3]) * r + b[4]) * r + 1);
+		}
+	}
+
+	record Trace(List<Duration> latencies, AtomicLong calls) implements LatencyProfile {
+		@Override
+		public Duration next() {
+			return latencies.get((int) (calls.getAndIncrement() % latencies.size()));
+		}
+	}
+}
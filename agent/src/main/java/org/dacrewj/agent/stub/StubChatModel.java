@@ -0,0 +1,213 @@
+package org.dacrewj.agent.stub;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.metadata.DefaultUsage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+
+/**
+ * Chat model which answers without a backend, for offline benchmarking of the review pipeline.
+ * <p>
+ * If the prompt carries a JSON schema for the expected object (as Embabel's createObject prompts do), the answer is
+ * a schema-valid instance, so that Critique, DraftRequirement and the other domain objects parse; otherwise it is a
+ * short plain text. Answers depend only on the prompt text, so the same prompt always gets the same answer.
+ * Each call sleeps for the next latency of the {@link LatencyProfile}, and reports token usage estimated from the
+ * prompt and answer lengths.
+ */
+public class StubChatModel implements ChatModel {
+
+	private static final ObjectMapper mapper = new ObjectMapper();
+	private static final JsonNodeFactory nodes = JsonNodeFactory.instance;
+
+	private final String name;
+	private final LatencyProfile latency;
+	private final int arrayItems;
+	private final AtomicLong calls = new AtomicLong();
+
+	/**
+	 * @param arrayItems number of items generated for every array, e.g. the number of criticisms in a critique
+	 */
+	public StubChatModel(String name, LatencyProfile latency, int arrayItems) {
+		this.name = name;
+		this.latency = latency;
+		this.arrayItems = arrayItems;
+	}
+
+	public long calls() {
+		return calls.get();
+	}
+
+	@Override
+	public ChatResponse call(Prompt prompt) {
+		calls.incrementAndGet();
+		String text = prompt.getContents();
+		String answer = answer(text);
+		sleep(latency.next());
+		var usage = new DefaultUsage(estimateTokens(text), estimateTokens(answer));
+		return new ChatResponse(
+				List.of(new Generation(new AssistantMessage(answer))),
+				ChatResponseMetadata.builder().model(name).usage(usage).build());
+	}
+
+	/**
+	 * The answer to a prompt, without latency.
+	 */
+	public String answer(String prompt) {
+		long seed = prompt.hashCode();
+		JsonNode schema = schema(prompt);
+		if (schema == null || !(schema.has("type") || schema.has("properties") || schema.has("$ref"))) {
+			return "Stub answer " + Long.toHexString(seed & 0xffffffffL) + ": make the requirement specific, measurable and testable.";
+		}
+		JsonNode instance = new Generator(schema, seed).generate(schema, "value", 0, 0);
+		return instance.isTextual() ? instance.asText() : instance.toString();
+	}
+
+	/**
+	 * Finds the JSON schema following the last mention of "schema" in the prompt.
+	 */
+	static JsonNode schema(String prompt) {
+		int mention = prompt.toLowerCase(Locale.ROOT).lastIndexOf("schema");
+		if (mention < 0) {
+			return null;
+		}
+		int start = prompt.indexOf('{', mention);
+		if (start < 0) {
+			return null;
+		}
+		try (var parser = mapper.createParser(prompt.substring(start))) {
+			return mapper.readTree(parser);
+		} catch (Exception e) {
+			return null;
+		}
+	}
+
+	private static int estimateTokens(String text) {
+		return (text.length() + 3) / 4;
+	}
+
+	private static void sleep(Duration duration) {
+		if (duration.isZero() || duration.isNegative()) {
+			return;
+		}
+		try {
+			Thread.sleep(duration);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CancellationException("Interrupted while simulating LLM latency");
+		}
+	}
+
+	private final class Generator {
+
+		private static final int MAX_DEPTH = 8;
+
+		private final JsonNode root;
+		private final long seed;
+
+		Generator(JsonNode root, long seed) {
+			this.root = root;
+			this.seed = seed;
+		}
+
+		JsonNode generate(JsonNode schema, String name, int index, int depth) {
+			schema = resolve(schema);
+			if (schema.has("const")) {
+				return schema.get("const");
+			}
+			if (schema.has("enum") && schema.get("enum").size() > 0) {
+				return schema.get("enum").get(0);
+			}
+			for (String combinator : List.of("anyOf", "oneOf", "allOf")) {
+				if (schema.has(combinator)) {
+					for (JsonNode option : schema.get(combinator)) {
+						if (!"null".equals(type(resolve(option)))) {
+							return generate(option, name, index, depth);
+						}
+					}
+				}
+			}
+			String type = type(schema);
+			if (type == null) {
+				type = schema.has("properties") ? "object" : schema.has("items") ? "array" : "string";
+			}
+			return switch (type) {
+				case "object" -> object(schema, index, depth);
+				case "array" -> array(schema, name, depth);
+				case "integer" -> nodes.numberNode(1 + (int) Math.floorMod(seed + index, 5L));
+				case "number" -> nodes.numberNode(0.5 + Math.floorMod(seed + index, 50L) / 100.0);
+				case "boolean" -> nodes.booleanNode(Math.floorMod(seed + index, 2L) == 0);
+				case "null" -> nodes.nullNode();
+				default -> nodes.textNode("Stub " + name + " " + (index + 1) + " [" + Long.toHexString(seed & 0xffffffffL) + "]");
+			};
+		}
+
+		private ObjectNode object(JsonNode schema, int index, int depth) {
+			ObjectNode object = nodes.objectNode();
+			if (depth > MAX_DEPTH || !schema.has("properties")) {
+				return object;
+			}
+			Iterator<Map.Entry<String, JsonNode>> properties = schema.get("properties").fields();
+			while (properties.hasNext()) {
+				var property = properties.next();
+				object.set(property.getKey(), generate(property.getValue(), property.getKey(), index, depth + 1));
+			}
+			return object;
+		}
+
+		private ArrayNode array(JsonNode schema, String name, int depth) {
+			ArrayNode array = nodes.arrayNode();
+			JsonNode items = schema.has("items") ? schema.get("items") : nodes.objectNode().put("type", "string");
+			int count = depth > MAX_DEPTH ? 0 : Math.max(arrayItems, schema.path("minItems").asInt(0));
+			for (int i = 0; i < count; i++) {
+				array.add(generate(items, singular(name), i, depth + 1));
+			}
+			return array;
+		}
+
+		private JsonNode resolve(JsonNode schema) {
+			for (int hops = 0; schema.has("$ref") && hops < MAX_DEPTH; hops++) {
+				JsonNode target = root.at(schema.get("$ref").asText().replaceFirst("^#", ""));
+				if (target.isMissingNode()) {
+					break;
+				}
+				schema = target;
+			}
+			return schema;
+		}
+
+		private static String type(JsonNode schema) {
+			JsonNode type = schema.get("type");
+			if (type == null) {
+				return null;
+			}
+			if (type.isArray()) {
+				for (JsonNode option : type) {
+					if (!"null".equals(option.asText())) {
+						return option.asText();
+					}
+				}
+				return "null";
+			}
+			return type.asText();
+		}
+
+		private static String singular(String name) {
+			return name.endsWith("s") ? name.substring(0, name.length() - 1) : name;
+		}
+	}
+}
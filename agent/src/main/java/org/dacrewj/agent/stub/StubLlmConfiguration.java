@@ -0,0 +1,53 @@
+package org.dacrewj.agent.stub;
+
+import com.embabel.common.ai.model.DefaultOptionsConverter;
+import com.embabel.common.ai.model.Llm;
+import java.nio.file.Path;
+import java.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Registers the {@link StubChatModel} as an Embabel LLM named dacrew.stub-llm.name (default "stub"), selectable like
+ * any other model through LlmOptions, e.g. dacrew.agents.requirement-reviewer.llm.model=stub.
+ * Enabled by dacrew.stub-llm.enabled=true; the stub profile (application-stub.yml) routes every LLM call to it.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "dacrew.stub-llm", name = "enabled", havingValue = "true")
+public class StubLlmConfiguration {
+
+	private static final Logger logger = LoggerFactory.getLogger(StubLlmConfiguration.class);
+
+	public static final String PROVIDER = "dacrew-stub";
+
+	@Bean
+	StubChatModel stubChatModel(
+			@Value("${dacrew.stub-llm.name:stub}") String name,
+			@Value("${dacrew.stub-llm.array-items:3}") int arrayItems,
+			@Value("${dacrew.stub-llm.latency.profile:fixed}") String profile,
+			@Value("${dacrew.stub-llm.latency.fixed:500ms}") Duration fixed,
+			@Value("${dacrew.stub-llm.latency.median:800ms}") Duration median,
+			@Value("${dacrew.stub-llm.latency.sigma:0.5}") double sigma,
+			@Value("${dacrew.stub-llm.latency.seed:42}") long seed,
+			@Value("${dacrew.stub-llm.latency.trace-file:}") String traceFile
+	) {
+		LatencyProfile latency = switch (profile.toLowerCase()) {
+			case "fixed" -> LatencyProfile.fixed(fixed);
+			case "lognormal" -> LatencyProfile.logNormal(median, sigma, seed);
+			case "trace" -> LatencyProfile.trace(Path.of(traceFile));
+			default -> throw new IllegalArgumentException(
+					"Unknown dacrew.stub-llm.latency.profile '" + profile + "', expected fixed, lognormal or trace");
+		};
+		logger.warn("Using the stub LLM '{}' with {} latency; answers are generated, not reviewed", name, profile);
+		return new StubChatModel(name, latency, arrayItems);
+	}
+
+	@Bean
+	Llm stubLlm(@Value("${dacrew.stub-llm.name:stub}") String name, StubChatModel stubChatModel) {
+		return new Llm(name, PROVIDER, stubChatModel, DefaultOptionsConverter.INSTANCE);
+	}
+}
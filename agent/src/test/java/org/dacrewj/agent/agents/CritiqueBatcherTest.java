@@ -0,0 +1,113 @@
+package org.dacrewj.agent.agents;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CritiqueBatcherTest {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final List<List<String>> calls = new CopyOnWriteArrayList<>();
+	private CritiqueBatcher batcher;
+
+	@AfterEach
+	void tearDown() {
+		batcher.shutdown();
+	}
+
+	private static PreparedRequirement requirement(String key, int tokens) {
+		return new PreparedRequirement("JIRA", key, "Summary " + key, "Description " + key, tokens, false);
+	}
+
+	private CritiqueBatcher batcher(int maxSize, Duration window, CritiqueBatcher.BatchCall call) {
+		batcher = new CritiqueBatcher(new RequirementReviewerConfig.Batching(true, maxSize, window, 100), requirements -> {
+			calls.add(requirements.stream().map(PreparedRequirement::key).toList());
+			return call.critique(requirements);
+		}, registry);
+		return batcher;
+	}
+
+	private static Map<String, Critique> critiqueAll(List<PreparedRequirement> requirements) {
+		var critiques = new HashMap<String, Critique>();
+		requirements.forEach(r -> critiques.put(r.key(), new Critique(List.of(new Criticism("Vague: " + r.key())))));
+		return critiques;
+	}
+
+	@Test
+	void fullBatchIsCritiquedInOneCall() throws Exception {
+		var batcher = batcher(3, Duration.ofMinutes(1), CritiqueBatcherTest::critiqueAll);
+
+		var futures = new ArrayList<CompletableFuture<Critique>>();
+		for (String key : List.of("A-1", "A-2", "A-3")) {
+			futures.add(batcher.submit(requirement(key, 50)));
+		}
+
+		assertThat(futures.get(1).get(5, TimeUnit.SECONDS).criticisms()).containsExactly(new Criticism("Vague: A-2"));
+		assertThat(calls).containsExactly(List.of("A-1", "A-2", "A-3"));
+		assertThat(registry.get("dacrew.critique.batch.size").summary().max()).isEqualTo(3);
+	}
+
+	@Test
+	void windowClosesPartialBatch() throws Exception {
+		var batcher = batcher(10, Duration.ofMillis(50), CritiqueBatcherTest::critiqueAll);
+
+		var first = batcher.submit(requirement("A-1", 50));
+		var second = batcher.submit(requirement("A-2", 50));
+
+		assertThat(first.get(5, TimeUnit.SECONDS)).isNotNull();
+		assertThat(second.get(5, TimeUnit.SECONDS)).isNotNull();
+		assertThat(calls).containsExactly(List.of("A-1", "A-2"));
+	}
+
+	@Test
+	void unmatchedKeysFallBackToIndividualCalls() throws Exception {
+		var batcher = batcher(2, Duration.ofMinutes(1), requirements -> Map.of("A-1", new Critique(List.of())));
+
+		var first = batcher.submit(requirement("A-1", 50));
+		var second = batcher.submit(requirement("A-2", 50));
+
+		assertThat(first.get(5, TimeUnit.SECONDS)).isNotNull();
+		assertThat(second.get(5, TimeUnit.SECONDS)).isNull();
+		assertThat(registry.get("dacrew.critique.batch.fallbacks").counter().count()).isEqualTo(1);
+	}
+
+	@Test
+	void failedBatchFallsBackForAll() throws Exception {
+		var batcher = batcher(2, Duration.ofMinutes(1), requirements -> {
+			throw new IllegalStateException("unparseable");
+		});
+
+		var first = batcher.submit(requirement("A-1", 50));
+		var second = batcher.submit(requirement("A-2", 50));
+
+		assertThat(first.get(5, TimeUnit.SECONDS)).isNull();
+		assertThat(second.get(5, TimeUnit.SECONDS)).isNull();
+	}
+
+	@Test
+	void singleRequirementIsNotBatched() throws Exception {
+		var batcher = batcher(10, Duration.ofMillis(20), CritiqueBatcherTest::critiqueAll);
+
+		assertThat(batcher.submit(requirement("A-1", 50)).get(5, TimeUnit.SECONDS)).isNull();
+		assertThat(calls).isEmpty();
+	}
+
+	@Test
+	void onlyShortRequirementsAreAccepted() {
+		var batcher = batcher(10, Duration.ofMillis(20), CritiqueBatcherTest::critiqueAll);
+
+		assertThat(batcher.accepts(requirement("A-1", 100))).isTrue();
+		assertThat(batcher.accepts(requirement("A-2", 101))).isFalse();
+	}
+}
@@ -0,0 +1,98 @@
+package org.dacrewj.agent.agents;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DescriptionPreprocessorTest {
+
+	@Test
+	void stripsJiraWikiMarkup() {
+		String wiki = """
+				h1. Import customers
+				
+				The import *must* finish within _five_ minutes, see [the spec|https://example.com/spec] {{IMPORT-42}}.
+				* first item
+				* second item
+				{code:java}
+				int x = 1;
+				{code}
+				!diagram.png|thumbnail!
+				""";
+
+		String text = DescriptionPreprocessor.toPlainText(wiki);
+
+		assertThat(text).startsWith("Import customers");
+		assertThat(text).contains("The import must finish within five minutes, see the spec IMPORT-42.");
+		assertThat(text).contains("- first item\n- second item");
+		assertThat(text).contains("int x = 1;");
+		assertThat(text).doesNotContain("{code", "h1.", "diagram.png", "https://");
+	}
+
+	@Test
+	void extractsTextFromAdfDescriptions() {
+		String adf = """
+				{"type":"doc","version":1,"content":[
+				  {"type":"paragraph","content":[{"type":"text","text":"Hello"}]},
+				  {"type":"paragraph","content":[{"type":"text","text":"World"}]}]}
+				""";
+
+		assertThat(DescriptionPreprocessor.toPlainText(adf)).isEqualTo("Hello\nWorld");
+	}
+
+	@Test
+	void shortDescriptionsAreNotSummarised() {
+		var preprocessor = new DescriptionPreprocessor(100, 50);
+		var calls = new AtomicInteger();
+
+		var prepared = preprocessor.prepare(
+				new DraftRequirement("JIRA", "ABC-1", "Summary", "A *short* description"),
+				(chunks, words) -> {
+					calls.incrementAndGet();
+					return chunks;
+				});
+
+		assertThat(prepared.condensed()).isFalse();
+		assertThat(prepared.description()).isEqualTo("A short description");
+		assertThat(calls).hasValue(0);
+	}
+
+	@Test
+	void longDescriptionsAreCondensedWithinBudget() {
+		var preprocessor = new DescriptionPreprocessor(200, 300);
+		String logDump = ("ERROR 2024-01-01 something failed in the import job\n".repeat(40) + "\n").repeat(10);
+
+		var prepared = preprocessor.prepare(
+				new DraftRequirement("JIRA", "ABC-2", "Summary", logDump),
+				(chunks, words) -> chunks.stream().map(chunk -> "import fails ".repeat(words / 2)).toList());
+
+		assertThat(prepared.condensed()).isTrue();
+		assertThat(prepared.estimatedTokens()).isLessThanOrEqualTo(200);
+		assertThat(prepared.description()).contains("import fails");
+	}
+
+	@Test
+	void chunksRespectTokenLimit() {
+		String text = ("word ".repeat(200) + "\n\n").repeat(10);
+
+		var chunks = DescriptionPreprocessor.chunk(text, 500);
+
+		assertThat(chunks).hasSizeGreaterThan(1);
+		assertThat(chunks).allSatisfy(chunk -> assertThat(DescriptionPreprocessor.estimateTokens(chunk)).isLessThanOrEqualTo(500));
+	}
+
+	@Test
+	void truncatesToTheBudgetAsEstimated() {
+		// Short words: the word count, not the length, drives the estimate
+		String text = "to be or not ".repeat(100);
+		assertThat(DescriptionPreprocessor.estimateTokens(text.substring(0, 100 * 4))).isGreaterThan(100);
+
+		String truncated = DescriptionPreprocessor.truncate(text, 100);
+
+		assertThat(DescriptionPreprocessor.estimateTokens(truncated)).isLessThanOrEqualTo(100).isGreaterThan(95);
+		// Cut between words
+		assertThat(text).startsWith(truncated + " ");
+	}
+}
@@ -0,0 +1,126 @@
+package org.dacrewj.agent.agents;
+
+import com.embabel.common.ai.model.LlmOptions;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class LlmHedgerTest {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final LlmOptions primaryLlm = mock(LlmOptions.class);
+	private final LlmOptions alternateLlm = mock(LlmOptions.class);
+	private LlmHedger hedger;
+
+	@AfterEach
+	void tearDown() {
+		hedger.shutdown();
+	}
+
+	@Test
+	void disabledHedgingCallsOnce() {
+		hedger = hedger(new RequirementReviewerConfig.Hedging(false, Duration.ofMillis(1), alternateLlm));
+		var calls = new AtomicInteger();
+
+		String result = hedger.call("suggestion", primaryLlm, llm -> {
+			calls.incrementAndGet();
+			sleep(50);
+			return "answer";
+		});
+
+		assertThat(result).isEqualTo("answer");
+		assertThat(calls).hasValue(1);
+		assertThat(registry.find("dacrew.llm.hedges").counter()).isNull();
+		assertThat(registry.get("dacrew.llm.latency").tag("winner", "primary").timer().count()).isEqualTo(1);
+	}
+
+	@Test
+	void slowPrimaryIsHedgedAndCancelled() {
+		hedger = hedger(new RequirementReviewerConfig.Hedging(true, Duration.ofMillis(20), alternateLlm));
+		var primaryInterrupted = new CountDownLatch(1);
+
+		String result = hedger.call("suggestion", primaryLlm, llm -> {
+			if (llm == primaryLlm) {
+				try {
+					Thread.sleep(10_000);
+				} catch (InterruptedException e) {
+					primaryInterrupted.countDown();
+				}
+				return "slow";
+			}
+			return "fast";
+		});
+
+		assertThat(result).isEqualTo("fast");
+		assertThat(await(primaryInterrupted)).isTrue();
+		assertThat(registry.get("dacrew.llm.hedges").tag("outcome", "won").counter().count()).isEqualTo(1);
+		assertThat(registry.get("dacrew.llm.latency").tag("winner", "hedge").timer().count()).isEqualTo(1);
+	}
+
+	@Test
+	void fastPrimaryIsNotHedged() {
+		hedger = hedger(new RequirementReviewerConfig.Hedging(true, Duration.ofSeconds(5), alternateLlm));
+
+		String result = hedger.call("critique", primaryLlm, llm -> llm == primaryLlm ? "primary" : "hedge");
+
+		assertThat(result).isEqualTo("primary");
+		assertThat(registry.find("dacrew.llm.hedges").counter()).isNull();
+		assertThat(registry.get("dacrew.llm.calls").tag("call", "critique").counter().count()).isEqualTo(1);
+	}
+
+	@Test
+	void failedPrimaryFallsBackToHedge() {
+		hedger = hedger(new RequirementReviewerConfig.Hedging(true, Duration.ofMillis(20), alternateLlm));
+
+		String result = hedger.call("suggestion", primaryLlm, llm -> {
+			if (llm == primaryLlm) {
+				sleep(40);
+				throw new IllegalStateException("model overloaded");
+			}
+			sleep(80);
+			return "hedge";
+		});
+
+		assertThat(result).isEqualTo("hedge");
+	}
+
+	@Test
+	void failureWithoutHedgeIsRethrown() {
+		hedger = hedger(new RequirementReviewerConfig.Hedging(true, Duration.ofSeconds(5), alternateLlm));
+
+		assertThatThrownBy(() -> hedger.call("suggestion", primaryLlm, llm -> {
+			throw new IllegalStateException("model overloaded");
+		})).isInstanceOf(IllegalStateException.class).hasMessage("model overloaded");
+	}
+
+	private LlmHedger hedger(RequirementReviewerConfig.Hedging hedging) {
+		var config = new RequirementReviewerConfig(primaryLlm, 1, null, null, null, hedging, null, null, null, null);
+		return new LlmHedger(config, registry);
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static boolean await(CountDownLatch latch) {
+		try {
+			return latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+}
@@ -0,0 +1,135 @@
+package org.dacrewj.agent.agents;
+
+import com.embabel.common.ai.model.LlmOptions;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class ModelCascadeTest {
+
+	private static final long SLOW_MILLIS = 30;
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final LlmOptions small = mock(LlmOptions.class);
+	private final LlmOptions medium = mock(LlmOptions.class);
+	private final List<LlmOptions> called = new ArrayList<>();
+
+	@Test
+	void confidentSmallModelAnswerIsAccepted() {
+		var cascade = cascade(true, new RequirementReviewerConfig.Tier(small, 0.8, 0));
+
+		String result = cascade.call("critique", 100, llm -> answer(llm, "small", 0.9), () -> "main");
+
+		assertThat(result).isEqualTo("small");
+		assertThat(called).containsExactly(small);
+		assertThat(count("0", "accepted")).isEqualTo(1);
+	}
+
+	@Test
+	void escalatesThroughTiersToMainModel() {
+		var cascade = cascade(true,
+				new RequirementReviewerConfig.Tier(small, 0.8, 0),
+				new RequirementReviewerConfig.Tier(medium, 0.8, 0));
+
+		String result = cascade.call("critique", 100, llm -> answer(llm, "unsure", 0.5), () -> "main");
+
+		assertThat(result).isEqualTo("main");
+		assertThat(called).containsExactly(small, medium);
+		assertThat(count("0", "escalated")).isEqualTo(1);
+		assertThat(count("1", "escalated")).isEqualTo(1);
+		assertThat(registry.get("dacrew.llm.cascade.latency").tag("tier", ModelCascade.FINAL_TIER).timer().count()).isEqualTo(1);
+	}
+
+	@Test
+	void largeRequirementsSkipSmallTiers() {
+		var cascade = cascade(true,
+				new RequirementReviewerConfig.Tier(small, 0.8, 500),
+				new RequirementReviewerConfig.Tier(medium, 0.8, 0));
+
+		String result = cascade.call("critique", 2000, llm -> answer(llm, llm == small ? "small" : "medium", 0.9), () -> "main");
+
+		assertThat(result).isEqualTo("medium");
+		assertThat(called).containsExactly(medium);
+		assertThat(count("0", "skipped")).isEqualTo(1);
+	}
+
+	@Test
+	void failingTierEscalates() {
+		var cascade = cascade(true, new RequirementReviewerConfig.Tier(small, 0.8, 0));
+
+		String result = cascade.call("critique", 100, llm -> {
+			throw new IllegalStateException("unparseable answer");
+		}, () -> "main");
+
+		assertThat(result).isEqualTo("main");
+	}
+
+	@Test
+	void disabledCascadeGoesStraightToMainModel() {
+		var cascade = cascade(false, new RequirementReviewerConfig.Tier(small, 0.8, 0));
+
+		String result = cascade.call("critique", 100, llm -> answer(llm, "small", 1.0), () -> "main");
+
+		assertThat(result).isEqualTo("main");
+		assertThat(called).isEmpty();
+	}
+
+	@Test
+	void escalationToTheMainModelLosesTheTimeSpentInTheTiers() {
+		var cascade = cascade(true, new RequirementReviewerConfig.Tier(small, 0.8, 0));
+
+		cascade.call("critique", 100, llm -> slowAnswer(llm, "unsure", 0.5), () -> "main");
+
+		assertThat(saved()).isLessThanOrEqualTo(-SLOW_MILLIS);
+	}
+
+	@Test
+	void savingIsMeasuredFromTheStartOfTheCascade() {
+		var cascade = cascade(true,
+				new RequirementReviewerConfig.Tier(small, 0.8, 0),
+				new RequirementReviewerConfig.Tier(medium, 0.8, 0));
+		// Establishes the main model's latency, close to zero here
+		cascade.call("critique", 100, llm -> slowAnswer(llm, "unsure", 0.5), () -> "main");
+		double afterEscalation = saved();
+
+		String result = cascade.call("critique", 100,
+				llm -> llm == small ? slowAnswer(llm, "unsure", 0.5) : answer(llm, "medium", 0.9), () -> "main");
+
+		// The medium tier answered quickly, but only after the small tier had taken longer than the main model
+		assertThat(result).isEqualTo("medium");
+		assertThat(saved() - afterEscalation).isLessThan(-SLOW_MILLIS + 1);
+	}
+
+	private ModelCascade.Scored<String> slowAnswer(LlmOptions llm, String value, double confidence) {
+		try {
+			Thread.sleep(SLOW_MILLIS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return answer(llm, value, confidence);
+	}
+
+	private double saved() {
+		return registry.get("dacrew.llm.cascade.saved").tag("call", "critique").gauge().value();
+	}
+
+	private ModelCascade.Scored<String> answer(LlmOptions llm, String value, double confidence) {
+		called.add(llm);
+		return new ModelCascade.Scored<>(value, confidence);
+	}
+
+	private double count(String tier, String outcome) {
+		return registry.get("dacrew.llm.cascade").tag("tier", tier).tag("outcome", outcome).counter().count();
+	}
+
+	private ModelCascade cascade(boolean enabled, RequirementReviewerConfig.Tier... tiers) {
+		var config = new RequirementReviewerConfig(null, 1, null, null, null, null,
+				new RequirementReviewerConfig.Cascade(enabled, List.of(tiers)), null, null, null);
+		return new ModelCascade(config, registry);
+	}
+}
@@ -0,0 +1,104 @@
+package org.dacrewj.agent.agents;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequirementSimilarityIndexTest {
+
+	private static final String DESCRIPTION = """
+			As a sales manager I want to export the monthly customer report as a CSV file so that I can
+			analyse the revenue per region in a spreadsheet. The export must contain all active customers,
+			their region, the revenue of the month and the change against the previous month.
+			The export must finish within ten seconds for up to fifty thousand customers.
+			""";
+
+	@TempDir
+	Path tempDir;
+
+	private RequirementSimilarityIndex index(double threshold) {
+		var deduplication = new RequirementReviewerConfig.Deduplication(true, threshold,
+				tempDir.resolve("similarity.jsonl").toString(), 128, 32, 100);
+		var config = new RequirementReviewerConfig(null, 1, null, null, null, null, null, deduplication, null, null);
+		return new RequirementSimilarityIndex(config);
+	}
+
+	private static DraftRequirement requirement(String key, String description) {
+		return new DraftRequirement("JIRA", key, "Export monthly customer report", description);
+	}
+
+	private static RequirementReview review(String key) {
+		return new RequirementReview("JIRA", key, "Export monthly customer report",
+				List.of("The performance requirement is not testable"), List.of("State the hardware"), false);
+	}
+
+	@Test
+	void reusesReviewOfNearDuplicateRelabelledForNewKey() {
+		var index = index(0.8);
+		index.add(requirement("ABC-1", DESCRIPTION), review("ABC-1"));
+
+		var match = index.findDuplicate(requirement("ABC-2", DESCRIPTION.replace("ten seconds", "10 seconds")));
+
+		assertThat(match).isPresent();
+		assertThat(match.get().duplicateOf()).isEqualTo("ABC-1");
+		assertThat(match.get().similarity()).isGreaterThanOrEqualTo(0.8);
+		assertThat(match.get().review().key()).isEqualTo("ABC-2");
+		assertThat(match.get().review().critique()).containsExactly("The performance requirement is not testable");
+	}
+
+	@Test
+	void differentRequirementIsNotADuplicate() {
+		var index = index(0.8);
+		index.add(requirement("ABC-1", DESCRIPTION), review("ABC-1"));
+
+		var match = index.findDuplicate(new DraftRequirement("JIRA", "ABC-3", "Password reset", """
+				As a user I want to reset my password by e-mail when I have forgotten it. The reset link
+				must expire after thirty minutes and can only be used once.
+				"""));
+
+		assertThat(match).isEmpty();
+	}
+
+	@Test
+	void sameIssueIsNeverItsOwnDuplicate() {
+		var index = index(0.8);
+		index.add(requirement("ABC-1", DESCRIPTION), review("ABC-1"));
+
+		assertThat(index.findDuplicate(requirement("ABC-1", DESCRIPTION))).isEmpty();
+	}
+
+	@Test
+	void shortRequirementsAreNotIndexed() {
+		var index = index(0.8);
+		index.add(requirement("ABC-1", "Fix it"), review("ABC-1"));
+
+		assertThat(index.size()).isZero();
+		assertThat(index.findDuplicate(requirement("ABC-2", "Fix it"))).isEmpty();
+	}
+
+	@Test
+	void indexSurvivesRestart() throws Exception {
+		index(0.8).add(requirement("ABC-1", DESCRIPTION), review("ABC-1"));
+		assertThat(Files.readAllLines(tempDir.resolve("similarity.jsonl"))).hasSize(1);
+
+		var reloaded = index(0.8);
+
+		assertThat(reloaded.size()).isEqualTo(1);
+		assertThat(reloaded.findDuplicate(requirement("ABC-2", DESCRIPTION))).isPresent();
+	}
+
+	@Test
+	void estimatedSimilarityTracksJaccard() {
+		var index = index(0.8);
+		long[] a = index.signature(requirement("A", DESCRIPTION));
+		long[] b = index.signature(requirement("B", DESCRIPTION + " The file name contains the month."));
+
+		assertThat(RequirementSimilarityIndex.similarity(a, a)).isEqualTo(1.0);
+		assertThat(RequirementSimilarityIndex.similarity(a, b)).isBetween(0.7, 1.0);
+	}
+}
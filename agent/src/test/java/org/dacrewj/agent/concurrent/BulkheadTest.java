@@ -0,0 +1,65 @@
+package org.dacrewj.agent.concurrent;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BulkheadTest {
+
+	@Test
+	void lanesWaitingOnAFullBulkheadAreAdmittedInArrivalOrder() throws Exception {
+		try (var bulkhead = new Bulkhead("lanes", 1, 0, Duration.ofSeconds(30), new SimpleMeterRegistry())) {
+			var admitted = new ArrayList<String>();
+			var proceed = new Semaphore(0);
+			var occupied = new CountDownLatch(1);
+			bulkhead.submit(() -> {
+				occupied.countDown();
+				proceed.acquireUninterruptibly();
+			});
+			assertThat(occupied.await(5, TimeUnit.SECONDS)).isTrue();
+
+			// Consumers of all three lanes block on the full bulkhead, the low lane's behind two high lane consumers
+			var submitters = new ArrayList<Thread>();
+			var results = new ArrayList<CompletableFuture<Void>>();
+			for (String lane : List.of("high", "high", "normal", "low", "high")) {
+				var result = new CompletableFuture<Void>();
+				results.add(result);
+				var submitter = Thread.ofPlatform().start(() -> bulkhead.submit(() -> {
+					synchronized (admitted) {
+						admitted.add(lane);
+					}
+					proceed.acquireUninterruptibly();
+				}).whenComplete((ignored, failure) -> result.complete(null)));
+				awaitWaiting(submitter);
+				submitters.add(submitter);
+			}
+
+			for (int i = 0; i < results.size() + 1; i++) {
+				proceed.release();
+			}
+			CompletableFuture.allOf(results.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+
+			assertThat(admitted).containsExactly("high", "high", "normal", "low", "high");
+			for (Thread submitter : submitters) {
+				submitter.join(5_000);
+			}
+		}
+	}
+
+	private static void awaitWaiting(Thread thread) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (thread.getState() != Thread.State.TIMED_WAITING && System.nanoTime() < deadline) {
+			Thread.sleep(5);
+		}
+		assertThat(thread.getState()).isEqualTo(Thread.State.TIMED_WAITING);
+	}
+}
@@ -0,0 +1,90 @@
+package org.dacrewj.agent.concurrent;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StageScopeTest {
+
+	@Test
+	void joinReturnsWhenAllSubtasksFinish() {
+		try (var scope = StageScope.open("test", Duration.ofSeconds(5))) {
+			var a = scope.fork(() -> "a");
+			var b = scope.fork(() -> "b");
+
+			assertThat(scope.join()).isTrue();
+			assertThat(a.get()).isEqualTo("a");
+			assertThat(b.get()).isEqualTo("b");
+		}
+	}
+
+	@Test
+	void deadlineCancelsOutstandingSubtasksAndKeepsFinishedOnes() throws Exception {
+		var interrupted = new CountDownLatch(1);
+		try (var scope = StageScope.open("test", Duration.ofMillis(100))) {
+			var fast = scope.fork(() -> "fast");
+			var slow = scope.fork(() -> {
+				try {
+					Thread.sleep(10_000);
+				} catch (InterruptedException e) {
+					interrupted.countDown();
+					throw e;
+				}
+				return "slow";
+			});
+
+			assertThat(scope.join()).isFalse();
+			assertThat(scope.timedOut()).isTrue();
+			assertThat(fast.state()).isEqualTo(Future.State.SUCCESS);
+			assertThat(slow.state()).isEqualTo(Future.State.CANCELLED);
+		}
+		assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+	}
+
+	@Test
+	void failedSubtaskIsReportedThroughItsState() {
+		try (var scope = StageScope.open("test", Duration.ofSeconds(5))) {
+			var failing = scope.fork(() -> {
+				throw new IllegalStateException("boom");
+			});
+
+			assertThat(scope.join()).isTrue();
+			assertThat(failing.state()).isEqualTo(Future.State.FAILED);
+			assertThat(failing.exception()).hasMessage("boom");
+		}
+	}
+
+	@Test
+	void callThrowsOnTimeoutAndRethrowsFailures() {
+		assertThat(StageScope.call("quick", Duration.ofSeconds(5), () -> 42)).isEqualTo(42);
+
+		assertThatThrownBy(() -> StageScope.call("hung", Duration.ofMillis(50), () -> {
+			Thread.sleep(10_000);
+			return 0;
+		})).isInstanceOf(StageTimeoutException.class).hasMessageContaining("hung");
+
+		assertThatThrownBy(() -> StageScope.call("failing", Duration.ofSeconds(5), () -> {
+			throw new IllegalArgumentException("bad input");
+		})).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void subtasksRunInTheCallersObservation() {
+		var registry = ObservationRegistry.create();
+		registry.observationConfig().observationHandler(context -> true);
+		var observation = Observation.start("stage", registry);
+		try (var ignored = observation.openScope()) {
+			assertThat(StageScope.call("traced", Duration.ofSeconds(5), registry::getCurrentObservation)).isSameAs(observation);
+		} finally {
+			observation.stop();
+		}
+	}
+}
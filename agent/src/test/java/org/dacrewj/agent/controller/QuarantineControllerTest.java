@@ -0,0 +1,60 @@
+package org.dacrewj.agent.controller;
+
+import org.dacrewj.messaging.WorkRetries;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class QuarantineControllerTest {
+
+	private final WorkRetries workRetries = mock(WorkRetries.class);
+	private final QuarantineController controller = new QuarantineController(workRetries);
+
+	@Test
+	void listsQuarantinedWork() {
+		var work = new WorkRetries.QuarantinedWork("dacrew.work", 4, "java.lang.NullPointerException", "2026-10-19T10:00:00Z", "{}");
+		when(workRetries.quarantined(20)).thenReturn(List.of(work));
+
+		var response = controller.list(20);
+
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(response.getBody()).containsExactly(work);
+	}
+
+	@Test
+	void replaysInBulk() {
+		when(workRetries.replay(500)).thenReturn(new WorkRetries.Replay(42, null));
+		when(workRetries.quarantineQueue()).thenReturn("dacrew.work.quarantine");
+
+		var response = controller.replay(500);
+
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(response.getBody()).containsEntry("replayed", 42).doesNotContainKey("unroutableQueue");
+		verify(workRetries).replay(500);
+	}
+
+	@Test
+	void reportsWhereReplayStopped() {
+		when(workRetries.replay(100)).thenReturn(new WorkRetries.Replay(3, "dacrew.work.gone"));
+		when(workRetries.quarantineQueue()).thenReturn("dacrew.work.quarantine");
+
+		var response = controller.replay(100);
+
+		assertThat(response.getBody()).containsEntry("replayed", 3).containsEntry("unroutableQueue", "dacrew.work.gone");
+	}
+
+	@Test
+	void rejectsLimitsOutOfRange() {
+		assertThat(controller.list(0).getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+		assertThat(controller.list(QuarantineController.MAX_LIST_SIZE + 1).getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+		assertThat(controller.replay(QuarantineController.MAX_REPLAY_SIZE + 1).getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+		verifyNoInteractions(workRetries);
+	}
+}
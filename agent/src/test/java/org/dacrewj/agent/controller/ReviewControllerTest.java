@@ -0,0 +1,93 @@
+package org.dacrewj.agent.controller;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.dacrewj.agent.agents.RequirementReview;
+import org.dacrewj.agent.store.ReviewCache;
+import org.dacrewj.agent.store.ReviewStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReviewControllerTest {
+
+	@TempDir
+	Path tempDir;
+
+	private ReviewStore store;
+	private SimpleMeterRegistry meterRegistry;
+	private ReviewController controller;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		store = new ReviewStore(tempDir.toString(), 1 << 20, false, false);
+		meterRegistry = new SimpleMeterRegistry();
+		controller = new ReviewController(new ReviewCache(store, 10, meterRegistry));
+	}
+
+	@AfterEach
+	void tearDown() throws IOException {
+		store.close();
+	}
+
+	private void review(String key, String summary, boolean approved) {
+		store.append(new RequirementReview("JIRA", key, summary, List.of("critique"), List.of("suggestion"), approved));
+	}
+
+	@Test
+	void latestReviewHonoursEtag() {
+		review("ABC-1", "first", false);
+		review("ABC-1", "second", true);
+
+		var response = controller.latest("ABC-1", null);
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(response.getBody().review().summary()).isEqualTo("second");
+		String etag = response.getHeaders().getETag();
+
+		assertThat(controller.latest("ABC-1", etag).getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+		review("ABC-1", "third", false);
+		assertThat(controller.latest("ABC-1", etag).getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(controller.latest("ABC-2", null).getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+	}
+
+	@Test
+	void historyIsPagedNewestFirst() {
+		for (int i = 1; i <= 5; i++) {
+			review("ABC-1", "review " + i, false);
+		}
+
+		var first = controller.history("ABC-1", 0, 2, null).getBody();
+		assertThat(first.total()).isEqualTo(5);
+		assertThat(first.reviews()).extracting(r -> r.review().summary()).containsExactly("review 5", "review 4");
+		var last = controller.history("ABC-1", 2, 2, null).getBody();
+		assertThat(last.reviews()).extracting(r -> r.review().summary()).containsExactly("review 1");
+		assertThat(controller.history("ABC-1", 3, 2, null).getBody().reviews()).isEmpty();
+		assertThat(controller.history("ABC-1", 0, ReviewController.MAX_PAGE_SIZE + 1, null).getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+		assertThat(meterRegistry.counter("dacrew.review-cache.requests", "result", "hit").count()).isEqualTo(2);
+	}
+
+	@Test
+	void projectStatsCountLatestOutcomePerIssue() {
+		review("ABC-1", "one", false);
+		review("ABC-1", "one", true);
+		review("ABC-2", "two", false);
+		review("XYZ-1", "other", true);
+
+		var response = controller.projectStats("ABC", null);
+		var stats = response.getBody();
+		assertThat(stats.issues()).isEqualTo(2);
+		assertThat(stats.approved()).isEqualTo(1);
+		assertThat(stats.rejected()).isEqualTo(1);
+		assertThat(stats.reviews()).isEqualTo(3);
+		assertThat(stats.approvalRate()).isEqualTo(0.5);
+		assertThat(controller.projectStats("ABC", "W/" + response.getHeaders().getETag()).getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+		assertThat(controller.projectStats("NOPE", null).getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+	}
+}
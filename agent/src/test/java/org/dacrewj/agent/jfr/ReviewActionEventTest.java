@@ -0,0 +1,54 @@
+package org.dacrewj.agent.jfr;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.dacrewj.agent.concurrent.StageScope;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ReviewActionEventTest {
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void recordsActionsWithWorkIdAndIssueKey() throws IOException {
+		List<RecordedEvent> events;
+		try (var recording = new Recording()) {
+			recording.enable(ReviewActionEvent.class);
+			recording.start();
+			try (var ignored = WorkContext.open("work-1")) {
+				assertThat(ReviewActionEvent.record("criticise", "ABC-1", () -> "done")).isEqualTo("done");
+				// The work id follows the action onto the threads of a stage scope
+				StageScope.call("test", Duration.ofSeconds(5),
+						() -> ReviewActionEvent.record("writeSuggestion", "ABC-1", () -> "suggestion"));
+				assertThatThrownBy(() -> ReviewActionEvent.record("writeReview", "ABC-1", () -> {
+					throw new IllegalStateException("boom");
+				})).isInstanceOf(IllegalStateException.class);
+			}
+			recording.stop();
+			Path file = tempDir.resolve("recording.jfr");
+			recording.dump(file);
+			events = RecordingFile.readAllEvents(file);
+		}
+
+		assertThat(events).extracting(e -> e.getString("action"))
+				.containsExactlyInAnyOrder("criticise", "writeSuggestion", "writeReview");
+		assertThat(events).allSatisfy(e -> {
+			assertThat(e.getString("workId")).isEqualTo("work-1");
+			assertThat(e.getString("issueKey")).isEqualTo("ABC-1");
+		});
+		assertThat(events).filteredOn(e -> e.getBoolean("failed")).extracting(e -> e.getString("action"))
+				.containsExactly("writeReview");
+		assertThat(WorkContext.workId()).isNull();
+	}
+}
@@ -1,19 +1,31 @@
 package org.dacrewj.agent.messaging.inbound;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.dacrewj.agent.jira.JiraWorkService;
 import org.dacrewj.contract.DacrewWork;
 import org.dacrewj.contract.JiraModels;
 import org.dacrewj.contract.Source;
+import org.dacrewj.messaging.WorkLanes;
+import org.dacrewj.messaging.WorkRetries;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
 
+import java.time.Duration;
 import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -22,36 +34,48 @@ class DacrewWorkConsumerTest {
     @Mock
     private JiraWorkService jiraWorkService;
 
+    @Mock
+    private WorkRetries workRetries;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @InjectMocks
     private DacrewWorkConsumer consumer;
 
+    private final Message message = new Message(new byte[0], new MessageProperties());
+
     @Test
     void whenPayloadIsJiraWebhook_thenJiraWorkServicePerformWorkIsCalled() {
         // Arrange: build a minimal Jira webhook payload and DacrewWork
-        var issueFields = new JiraModels.JiraIssueFields(
-                "Summary", null, null, null, null, null, null, null, null,
-                null, null, null, null, null, null, null, null, null, null
-        );
-        var issue = new JiraModels.JiraIssue("1", null, "ABC-123", issueFields);
-        var webhook = new JiraModels.JiraWebhook(
-                System.currentTimeMillis(),
-                "jira:issue_updated",
-                "issue_updated",
-                issue,
-                null,
-                null,
-                null
-        );
+        var webhook = webhook();
         var work = new DacrewWork("work-1", Source.JIRA, webhook, Instant.now());
+        when(jiraWorkService.performWork(webhook)).thenReturn(CompletableFuture.completedFuture(null));
 
         // Act
-        consumer.handleWork(work);
+        consumer.handleWork(work, message);
 
         // Assert
         ArgumentCaptor<JiraModels.JiraWebhook> captor = ArgumentCaptor.forClass(JiraModels.JiraWebhook.class);
         verify(jiraWorkService, times(1)).performWork(captor.capture());
         assertThat(captor.getValue()).isSameAs(webhook);
         verifyNoMoreInteractions(jiraWorkService);
+        verifyNoInteractions(workRetries);
+    }
+
+    @Test
+    void whenHandlingThrows_thenWorkIsPassedOnForRetryAndAcknowledged() {
+        var webhook = webhook();
+        var failure = new NullPointerException("type.description() is null");
+        when(jiraWorkService.performWork(webhook)).thenThrow(failure);
+        when(workRetries.failed(message, WorkLanes.Lane.HIGH, failure))
+                .thenReturn(new WorkRetries.Disposition(1, "dacrew.work.retry.1", Duration.ofSeconds(10)));
+
+        var result = consumer.handleHighPriorityWork(new DacrewWork("work-6", Source.JIRA, webhook, Instant.now()), message);
+
+        assertThat(result).succeedsWithin(Duration.ofSeconds(5));
+        verify(workRetries).failed(message, WorkLanes.Lane.HIGH, failure);
+        assertThat(meterRegistry.get("dacrew.work.failed").tag("outcome", "retried").counter().count()).isEqualTo(1);
     }
 
     @Test
@@ -60,9 +84,55 @@ class DacrewWorkConsumerTest {
         var work = new DacrewWork("work-2", Source.GITHUB, null, Instant.now());
 
         // Act
-        consumer.handleWork(work);
+        consumer.handleWork(work, message);
 
         // Assert
         verifyNoInteractions(jiraWorkService);
     }
+
+    @Test
+    void recordsTheQueueWaitPerLane() {
+        var createdAt = Instant.now().minusSeconds(2);
+
+        consumer.handleHighPriorityWork(new DacrewWork("work-3", Source.GITHUB, null, createdAt), message);
+        consumer.handleLowPriorityWork(new DacrewWork("work-4", Source.GITHUB, null, createdAt), message);
+        consumer.handleLowPriorityWork(new DacrewWork("work-5", Source.GITHUB, null, createdAt), message);
+
+        assertThat(meterRegistry.get("dacrew.lane.wait").tag("lane", "high").timer().count()).isEqualTo(1);
+        var low = meterRegistry.get("dacrew.lane.wait").tag("lane", "low").timer();
+        assertThat(low.count()).isEqualTo(2);
+        assertThat(low.totalTime(TimeUnit.SECONDS)).isGreaterThanOrEqualTo(4);
+    }
+
+    @Test
+    void whenTheRetryIsNotConfirmed_thenWorkIsRequeued() {
+        var webhook = webhook();
+        var failure = new IllegalStateException("handler failed");
+        when(jiraWorkService.performWork(webhook)).thenReturn(CompletableFuture.failedFuture(failure));
+        when(workRetries.failed(message, WorkLanes.Lane.NORMAL, failure)).thenThrow(new AmqpException("Broker refused"));
+
+        var result = consumer.handleWork(new DacrewWork("work-7", Source.JIRA, webhook, Instant.now()), message);
+
+        // Not acknowledged: the listener container requeues the message on a failure other than AmqpRejectAndDontRequeueException
+        assertThat(result).failsWithin(Duration.ofSeconds(5));
+        assertThatThrownBy(result::join).hasRootCauseInstanceOf(AmqpException.class)
+                .hasRootCauseMessage("Broker refused");
+    }
+
+    private static JiraModels.JiraWebhook webhook() {
+        var issueFields = new JiraModels.JiraIssueFields(
+                "Summary", null, null, null, null, null, null, null, null,
+                null, null, null, null, null, null, null, null, null, null
+        );
+        var issue = new JiraModels.JiraIssue("1", null, "ABC-123", issueFields);
+        return new JiraModels.JiraWebhook(
+                System.currentTimeMillis(),
+                "jira:issue_updated",
+                "issue_updated",
+                issue,
+                null,
+                null,
+                null
+        );
+    }
 }
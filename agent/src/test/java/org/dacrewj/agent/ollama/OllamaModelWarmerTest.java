@@ -0,0 +1,95 @@
+package org.dacrewj.agent.ollama;
+
+import com.sun.net.httpserver.HttpServer;
+import org.assertj.core.api.InstanceOfAssertFactories;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OllamaModelWarmerTest {
+
+    private HttpServer server;
+    private volatile int status = 200;
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+    private final List<Object> events = new CopyOnWriteArrayList<>();
+    private OllamaModelWarmer warmer;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(0), 0);
+        server.createContext("/api/generate", exchange -> {
+            requests.add(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            byte[] body = "{\"response\":\"OK\",\"done\":true}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stop() {
+        if (warmer != null) {
+            warmer.shutdown();
+        }
+        server.stop(0);
+    }
+
+    private OllamaModelWarmer warmer(boolean enabled, List<String> models) {
+        warmer = new OllamaModelWarmer(events::add, enabled, "http://localhost:" + server.getAddress().getPort() + "/",
+                models, Duration.ofMinutes(30), Duration.ofMinutes(10), Duration.ofSeconds(5), Duration.ofMinutes(10));
+        return warmer;
+    }
+
+    @Test
+    void warmsModelsWithKeepAliveAndReportsReadiness() {
+        var warmer = warmer(true, List.of("llama3:latest", "llama3.3:latest"));
+        assertThat(warmer.health().getStatus()).isEqualTo(Status.OUT_OF_SERVICE);
+
+        assertThat(warmer.warm("llama3:latest")).isTrue();
+        assertThat(warmer.allReady()).isFalse();
+        assertThat(warmer.warm("llama3.3:latest")).isTrue();
+
+        assertThat(warmer.allReady()).isTrue();
+        assertThat(warmer.health().getStatus()).isEqualTo(Status.UP);
+        assertThat(requests).hasSize(2);
+        assertThat(requests.get(0)).contains("\"model\":\"llama3:latest\"", "\"keep_alive\":\"1800s\"", "\"num_predict\":1");
+    }
+
+    @Test
+    void failedWarmUpIsReportedOutOfServiceWithTheError() {
+        status = 404;
+        var warmer = warmer(true, List.of("missing:latest"));
+
+        assertThat(warmer.warm("missing:latest")).isFalse();
+
+        var health = warmer.health();
+        assertThat(health.getStatus()).isEqualTo(Status.OUT_OF_SERVICE);
+        assertThat(health.getDetails().get("missing:latest")).asInstanceOf(InstanceOfAssertFactories.MAP)
+                .containsEntry("ready", false)
+                .hasEntrySatisfying("error", error -> assertThat(error.toString()).startsWith("HTTP 404"));
+    }
+
+    @Test
+    void disabledWarmUpReleasesConsumersImmediately() {
+        var warmer = warmer(false, List.of("llama3:latest"));
+
+        warmer.start();
+
+        assertThat(events).singleElement().isInstanceOf(OllamaModelWarmer.ModelsWarmEvent.class);
+        assertThat(warmer.health().getStatus()).isEqualTo(Status.UP);
+        assertThat(requests).isEmpty();
+    }
+}
@@ -0,0 +1,88 @@
+package org.dacrewj.agent.service.jira;
+
+import com.embabel.agent.core.AgentPlatform;
+import io.micrometer.observation.ObservationRegistry;
+import org.dacrewj.agent.agents.DraftRequirement;
+import org.dacrewj.agent.agents.RequirementReview;
+import org.dacrewj.agent.agents.RequirementReviewer;
+import org.dacrewj.agent.agents.RequirementReviewerConfig;
+import org.dacrewj.agent.agents.RequirementSimilarityIndex;
+import org.dacrewj.agent.concurrent.StageTimeoutException;
+import org.dacrewj.agent.jira.DraftRequirementHandler;
+import org.dacrewj.agent.jira.JiraWriteBehindQueue;
+import org.dacrewj.contract.JiraModels;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class DraftRequirementHandlerTest {
+
+    private static final String DESCRIPTION = """
+            As a sales manager I want to export the monthly customer report as a CSV file so that I can
+            analyse the revenue per region in a spreadsheet. The export must contain all active customers,
+            their region, the revenue of the month and the change against the previous month.
+            """;
+
+    @TempDir
+    Path tempDir;
+
+    private final AgentPlatform agentPlatform = mock(AgentPlatform.class);
+    private final RequirementReviewer requirementReviewer = mock(RequirementReviewer.class);
+    private final JiraWriteBehindQueue writeBehindQueue = mock(JiraWriteBehindQueue.class);
+
+    private RequirementReviewerConfig config() {
+        return config(null);
+    }
+
+    private RequirementReviewerConfig config(RequirementReviewerConfig.Deadlines deadlines) {
+        var deduplication = new RequirementReviewerConfig.Deduplication(true, 0.8,
+                tempDir.resolve("similarity.jsonl").toString(), 128, 32, 100);
+        return new RequirementReviewerConfig(null, 1, null, null, null, null, null, deduplication, null, deadlines);
+    }
+
+    @Test
+    void reviewOfNearDuplicateIsPublishedUnderTheNewKey() {
+        var config = config();
+        var index = new RequirementSimilarityIndex(config);
+        index.add(new DraftRequirement("JIRA", "ABC-1", "Export customer report", DESCRIPTION),
+                new RequirementReview("JIRA", "ABC-1", "Export customer report", List.of("Vague"), List.of("Be specific"), false));
+        var handler = new DraftRequirementHandler(agentPlatform, requirementReviewer, writeBehindQueue, index, config,
+                ObservationRegistry.NOOP);
+        when(requirementReviewer.publishRequirementReview(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        var review = handler.review(new DraftRequirement("JIRA", "ABC-2", "Export customer report", DESCRIPTION));
+
+        var expected = new RequirementReview("JIRA", "ABC-2", "Export customer report", List.of("Vague"), List.of("Be specific"), false);
+        assertThat(review).isEqualTo(expected);
+        verify(requirementReviewer).publishRequirementReview(expected);
+        verifyNoInteractions(agentPlatform);
+    }
+
+    @Test
+    void reviewExceedingItsDeadlineFails() {
+        // Every call to the platform hangs until the stage's deadline cancels it
+        var hangingPlatform = mock(AgentPlatform.class, invocation -> {
+            Thread.sleep(Duration.ofMinutes(1));
+            return null;
+        });
+        var config = config(new RequirementReviewerConfig.Deadlines(Duration.ofMillis(100), null, null));
+        var handler = new DraftRequirementHandler(hangingPlatform, requirementReviewer, writeBehindQueue,
+                new RequirementSimilarityIndex(config), config, ObservationRegistry.NOOP);
+
+        var fields = new JiraModels.JiraIssueFields("Export customer report", DESCRIPTION, null, null, null, null, null,
+                null, null, null, null, null, null, null, null, null, null, null, null);
+
+        // The handler's failure fails the work, which is then retried rather than acknowledged
+        assertThatThrownBy(() -> handler.handle(new JiraModels.JiraIssue("3", null, "ABC-3", fields)))
+                .isInstanceOf(StageTimeoutException.class);
+        verifyNoInteractions(writeBehindQueue);
+    }
+}
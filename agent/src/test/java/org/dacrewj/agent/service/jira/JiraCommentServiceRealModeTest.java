@@ -3,19 +3,24 @@ package org.dacrewj.agent.service.jira;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
+import org.dacrewj.agent.jira.JiraCommentIndex;
 import org.dacrewj.agent.jira.JiraCommentService;
 import org.dacrewj.contract.AdfDocument;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.net.InetSocketAddress;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -34,9 +39,19 @@ public class JiraCommentServiceRealModeTest {
         return new AdfDocument("doc", 1, List.of(para));
     }
 
+    @TempDir
+    Path tempDir;
+
     private HttpServer server;
     private volatile String lastRequestBody;
     private volatile String lastAuthHeader;
+    private volatile String lastMethod;
+    private final AtomicInteger commentPosts = new AtomicInteger();
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+
+    private JiraCommentIndex commentIndex() {
+        return new JiraCommentIndex(tempDir.resolve("jira-comments.json").toString());
+    }
 
     @BeforeEach
     void startServer() throws IOException {
@@ -45,11 +60,12 @@ public class JiraCommentServiceRealModeTest {
             @Override
             public void handle(HttpExchange exchange) throws IOException {
                 lastAuthHeader = exchange.getRequestHeaders().getFirst("Authorization");
+                commentPosts.incrementAndGet();
                 try (var is = exchange.getRequestBody(); var bos = new ByteArrayOutputStream()) {
                     is.transferTo(bos);
                     lastRequestBody = bos.toString(StandardCharsets.UTF_8);
                 }
-                String response = "{\"self\":\"http://jira/comment/123\"}";
+                String response = "{\"id\":\"123\",\"self\":\"http://jira/comment/123\"}";
                 exchange.getResponseHeaders().add("Content-Type", "application/json");
                 exchange.sendResponseHeaders(201, response.getBytes(StandardCharsets.UTF_8).length);
                 try (OutputStream os = exchange.getResponseBody()) {
@@ -71,7 +87,7 @@ public class JiraCommentServiceRealModeTest {
         String baseUrl = "http://localhost:" + server.getAddress().getPort();
         // Prefer env token if set; otherwise any non-blank dummy token is fine for the local server
         String token = System.getenv().getOrDefault("JIRA_TOKEN", "dummy-token");
-        JiraCommentService localTool = new JiraCommentService(baseUrl, token, false, 1024);
+        JiraCommentService localTool = new JiraCommentService(baseUrl, token, false, 1024, commentIndex());
 
         JiraCommentService.Result res = localTool.addComment("BTS-11", sampleAdf("Hello real mode"));
 
@@ -99,10 +115,159 @@ public class JiraCommentServiceRealModeTest {
 
         String baseUrl = "http://localhost:" + server.getAddress().getPort();
         String token = System.getenv().getOrDefault("JIRA_TOKEN", "dummy-token");
-        JiraCommentService localTool = new JiraCommentService(baseUrl, token, false, 1024);
+        JiraCommentService localTool = new JiraCommentService(baseUrl, token, false, 1024, commentIndex());
 
         JiraCommentService.Result res = localTool.addComment("BTS-11", sampleAdf("x"));
         assertFalse(res.success());
         assertNotNull(res.error());
     }
+
+    @Test
+    void upsertComment_realMode_updatesKnownCommentInPlace() throws IOException {
+        server.createContext("/rest/api/3/issue/BTS-11/comment/123", exchange -> {
+            lastMethod = exchange.getRequestMethod();
+            try (var is = exchange.getRequestBody(); var bos = new ByteArrayOutputStream()) {
+                is.transferTo(bos);
+                lastRequestBody = bos.toString(StandardCharsets.UTF_8);
+            }
+            String response = "{\"id\":\"123\",\"self\":\"http://jira/comment/123\"}";
+            exchange.sendResponseHeaders(200, response.getBytes(StandardCharsets.UTF_8).length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(response.getBytes(StandardCharsets.UTF_8));
+            }
+        });
+
+        String baseUrl = "http://localhost:" + server.getAddress().getPort();
+        String token = System.getenv().getOrDefault("JIRA_TOKEN", "dummy-token");
+        JiraCommentIndex index = commentIndex();
+        JiraCommentService localTool = new JiraCommentService(baseUrl, token, false, 1024, index);
+
+        JiraCommentService.Result first = localTool.upsertComment("BTS-11", sampleAdf("First review"));
+        assertEquals("created", first.status());
+        assertEquals("123", index.commentId("BTS-11").orElseThrow());
+
+        JiraCommentService.Result second = localTool.upsertComment("BTS-11", sampleAdf("Second review"));
+        assertTrue(second.success());
+        assertEquals("updated", second.status());
+        assertEquals("PUT", lastMethod);
+        assertTrue(lastRequestBody.contains("\"text\":\"Second review\""));
+    }
+
+    @Test
+    void upsertComment_realMode_postsNewCommentWhenKnownCommentIsGone() {
+        server.createContext("/rest/api/3/issue/BTS-11/comment/999", exchange -> {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+
+        String baseUrl = "http://localhost:" + server.getAddress().getPort();
+        String token = System.getenv().getOrDefault("JIRA_TOKEN", "dummy-token");
+        JiraCommentIndex index = commentIndex();
+        index.put("BTS-11", "999");
+        JiraCommentService localTool = new JiraCommentService(baseUrl, token, false, 1024, index);
+
+        JiraCommentService.Result res = localTool.upsertComment("BTS-11", sampleAdf("Fresh review"));
+
+        assertTrue(res.success());
+        assertEquals("created", res.status());
+        assertEquals("123", index.commentId("BTS-11").orElseThrow());
+        assertTrue(lastRequestBody.contains("\"text\":\"Fresh review\""));
+    }
+
+    @Test
+    void upsertComment_realMode_postsOversizedCommentInPages() {
+        String baseUrl = "http://localhost:" + server.getAddress().getPort();
+        String token = System.getenv().getOrDefault("JIRA_TOKEN", "dummy-token");
+        JiraCommentService localTool = new JiraCommentService(baseUrl, token, false, 20, commentIndex());
+        var paragraphs = List.of(
+                new AdfDocument.Node("paragraph", null, List.of(new AdfDocument.Node("text", null, null, "first paragraph", null)), null, null),
+                new AdfDocument.Node("paragraph", null, List.of(new AdfDocument.Node("text", null, null, "second paragraph", null)), null, null),
+                new AdfDocument.Node("paragraph", null, List.of(new AdfDocument.Node("text", null, null, "third paragraph", null)), null, null));
+
+        assertFalse(localTool.addComment("BTS-11", new AdfDocument("doc", 1, paragraphs)).success());
+        assertEquals(0, commentPosts.get());
+
+        JiraCommentService.Result res = localTool.upsertComment("BTS-11", new AdfDocument("doc", 1, paragraphs));
+
+        assertTrue(res.success());
+        assertEquals(3, commentPosts.get());
+        assertTrue(lastRequestBody.contains("\"text\":\"third paragraph\""));
+    }
+
+    @Test
+    void upsertComment_realMode_repostsLaterPagesInOrderWhenAMiddleCommentIsGone() {
+        postNewComments();
+        existingComment("c1", 200);
+        existingComment("c2", 404);
+        existingComment("c3", 204);
+
+        String baseUrl = "http://localhost:" + server.getAddress().getPort();
+        JiraCommentIndex index = commentIndex();
+        index.put("BTS-11", List.of("c1", "c2", "c3"));
+        JiraCommentService localTool = new JiraCommentService(baseUrl, "dummy-token", false, 20, index);
+
+        JiraCommentService.Result res = localTool.upsertComment("BTS-11", threeParagraphs());
+
+        assertTrue(res.success());
+        // Page 3 must not stay in c3, which comes before the new comment for page 2
+        assertEquals(List.of("PUT c1", "PUT c2", "DELETE c3", "POST n1", "POST n2"), requests);
+        assertEquals(List.of("c1", "n1", "n2"), index.commentIds("BTS-11"));
+    }
+
+    @Test
+    void upsertComment_realMode_keepsCommentsWhichCouldNotBeDeleted() {
+        existingComment("c1", 200);
+        existingComment("c2", 500);
+        existingComment("c3", 404);
+
+        String baseUrl = "http://localhost:" + server.getAddress().getPort();
+        JiraCommentIndex index = commentIndex();
+        index.put("BTS-11", List.of("c1", "c2", "c3"));
+        JiraCommentService localTool = new JiraCommentService(baseUrl, "dummy-token", false, 1024, index);
+
+        JiraCommentService.Result res = localTool.upsertComment("BTS-11", sampleAdf("Shorter review"));
+
+        assertTrue(res.success());
+        assertEquals(List.of("PUT c1", "DELETE c2", "DELETE c3"), requests);
+        // c3 no longer exists; c2 is still there and is deleted by the next review
+        assertEquals(List.of("c1", "c2"), index.commentIds("BTS-11"));
+    }
+
+    private static AdfDocument threeParagraphs() {
+        return new AdfDocument("doc", 1, List.of(
+                new AdfDocument.Node("paragraph", null, List.of(new AdfDocument.Node("text", null, null, "first paragraph", null)), null, null),
+                new AdfDocument.Node("paragraph", null, List.of(new AdfDocument.Node("text", null, null, "second paragraph", null)), null, null),
+                new AdfDocument.Node("paragraph", null, List.of(new AdfDocument.Node("text", null, null, "third paragraph", null)), null, null)));
+    }
+
+    /**
+     * Answers POSTs with the new comment ids n1, n2, ...
+     */
+    private void postNewComments() {
+        server.removeContext("/rest/api/3/issue/BTS-11/comment");
+        server.createContext("/rest/api/3/issue/BTS-11/comment", exchange -> {
+            String id = "n" + commentPosts.incrementAndGet();
+            requests.add(exchange.getRequestMethod() + " " + id);
+            respond(exchange, 201, "{\"id\":\"" + id + "\",\"self\":\"http://jira/comment/" + id + "\"}");
+        });
+    }
+
+    /**
+     * Answers PUTs and DELETEs of an existing comment with the given status.
+     */
+    private void existingComment(String id, int status) {
+        server.createContext("/rest/api/3/issue/BTS-11/comment/" + id, exchange -> {
+            requests.add(exchange.getRequestMethod() + " " + id);
+            exchange.getRequestBody().readAllBytes();
+            respond(exchange, status, status == 200 ? "{\"id\":\"" + id + "\",\"self\":\"http://jira/comment/" + id + "\"}" : "");
+        });
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
 }
@@ -0,0 +1,109 @@
+package org.dacrewj.agent.service.jira;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.dacrewj.agent.concurrent.Bulkhead;
+import org.dacrewj.agent.jira.JiraConstants;
+import org.dacrewj.agent.jira.JiraIssueHandler;
+import org.dacrewj.agent.jira.JiraWorkService;
+import org.dacrewj.contract.JiraModels;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JiraWorkServiceTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private static JiraModels.JiraWebhook webhook(String key, String issueType) {
+        var type = new JiraModels.JiraIssueType(null, null, issueType, null, issueType, false, null, null, null);
+        var fields = new JiraModels.JiraIssueFields(
+                "Summary", null, null, null, null, type, null, null, null,
+                null, null, null, null, null, null, null, null, null, null
+        );
+        var issue = new JiraModels.JiraIssue("1", null, key, fields);
+        return new JiraModels.JiraWebhook(System.currentTimeMillis(), "jira:issue_updated", "issue_updated", issue, null, null, null);
+    }
+
+    private static final class RecordingHandler implements JiraIssueHandler {
+        final List<String> handled = new CopyOnWriteArrayList<>();
+        final CountDownLatch release;
+        final String name;
+        final String issueType;
+
+        RecordingHandler(String name, String issueType, CountDownLatch release) {
+            this.name = name;
+            this.issueType = issueType;
+            this.release = release;
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public Set<String> issueTypes() {
+            return Set.of(issueType);
+        }
+
+        @Override
+        public void handle(JiraModels.JiraIssue issue) {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            handled.add(issue.key());
+        }
+    }
+
+    @Test
+    void dispatchesToTheHandlerOfTheIssueTypeOnly() throws Exception {
+        var drafts = new RecordingHandler("draft-requirement", JiraConstants.DRAFT_REQUIREMENT, new CountDownLatch(0));
+        var service = new JiraWorkService(List.of(drafts), new MockEnvironment(), registry, ObservationRegistry.NOOP);
+
+        service.performWork(webhook("ABC-1", JiraConstants.DRAFT_REQUIREMENT)).get(5, TimeUnit.SECONDS);
+        service.performWork(webhook("ABC-2", "Bug")).get(5, TimeUnit.SECONDS);
+
+        assertThat(drafts.handled).containsExactly("ABC-1");
+    }
+
+    @Test
+    void saturatedHandlerRejectsWithoutBlockingOtherHandlers() throws Exception {
+        var release = new CountDownLatch(1);
+        var drafts = new RecordingHandler("draft-requirement", JiraConstants.DRAFT_REQUIREMENT, release);
+        var bugs = new RecordingHandler("bug", "Bug", new CountDownLatch(0));
+        var environment = new MockEnvironment()
+                .withProperty("dacrew.handlers.draft-requirement.concurrency", "1")
+                .withProperty("dacrew.handlers.draft-requirement.queue-capacity", "1")
+                .withProperty("dacrew.handlers.draft-requirement.queue-wait", "10ms");
+        var service = new JiraWorkService(List.of(drafts, bugs), environment, registry, ObservationRegistry.NOOP);
+
+        var running = service.performWork(webhook("ABC-1", JiraConstants.DRAFT_REQUIREMENT));
+        var queued = service.performWork(webhook("ABC-2", JiraConstants.DRAFT_REQUIREMENT));
+        var rejected = service.performWork(webhook("ABC-3", JiraConstants.DRAFT_REQUIREMENT));
+
+        assertThatThrownBy(rejected::join).isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(Bulkhead.BulkheadFullException.class);
+        assertThat(registry.get("dacrew.bulkhead.saturation").tag("bulkhead", "draft-requirement").gauge().value()).isEqualTo(1.0);
+
+        service.performWork(webhook("BUG-1", "Bug")).get(5, TimeUnit.SECONDS);
+        assertThat(bugs.handled).containsExactly("BUG-1");
+
+        release.countDown();
+        running.get(5, TimeUnit.SECONDS);
+        queued.get(5, TimeUnit.SECONDS);
+        assertThat(drafts.handled).containsExactly("ABC-1", "ABC-2");
+        assertThat(registry.get("dacrew.bulkhead.rejected").tag("bulkhead", "draft-requirement").counter().count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,112 @@
+package org.dacrewj.agent.service.jira;
+
+import io.micrometer.observation.ObservationRegistry;
+import org.dacrewj.agent.jira.JiraCommentService;
+import org.dacrewj.agent.jira.JiraStatusService;
+import org.dacrewj.agent.jira.JiraWriteBehindQueue;
+import org.dacrewj.contract.AdfDocument;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class JiraWriteBehindQueueTest {
+
+    @TempDir
+    Path outbox;
+
+    private final JiraCommentService commentService = mock(JiraCommentService.class);
+    private final JiraStatusService statusService = mock(JiraStatusService.class);
+    private JiraWriteBehindQueue queue;
+
+    private static AdfDocument sampleAdf(String text) {
+        AdfDocument.Node textNode = new AdfDocument.Node("text", null, null, text, null);
+        AdfDocument.Node para = new AdfDocument.Node("paragraph", null, List.of(textNode), null, null);
+        return new AdfDocument("doc", 1, List.of(para));
+    }
+
+    private JiraWriteBehindQueue newQueue(int maxAttempts) throws Exception {
+        var q = new JiraWriteBehindQueue(commentService, statusService, outbox.toString(), 1, maxAttempts, Duration.ofMillis(10), Duration.ofSeconds(5), ObservationRegistry.NOOP);
+        q.recover();
+        return q;
+    }
+
+    @AfterEach
+    void stop() throws InterruptedException {
+        if (queue != null) queue.shutdown();
+    }
+
+    @Test
+    void enqueue_postsCommentThenTransitionAndRemovesJournalEntry() throws Exception {
+        when(commentService.upsertComment(eq("BTS-11"), any())).thenReturn(JiraCommentService.Result.ok("created", "self"));
+        when(statusService.updateStatus("BTS-11", "Approved")).thenReturn(true);
+        queue = newQueue(3);
+
+        var task = queue.enqueue("BTS-11", sampleAdf("Hello"), "Approved");
+
+        verify(statusService, timeout(2000)).updateStatus("BTS-11", "Approved");
+        verify(commentService).upsertComment(eq("BTS-11"), any());
+        waitUntilGone(outbox.resolve(task.id() + ".json"));
+    }
+
+    @Test
+    void failedTransition_isRetriedWithoutRepostingComment() throws Exception {
+        when(commentService.upsertComment(eq("BTS-12"), any())).thenReturn(JiraCommentService.Result.ok("created", "self"));
+        when(statusService.updateStatus("BTS-12", "Rejected")).thenReturn(false, true);
+        queue = newQueue(3);
+
+        queue.enqueue("BTS-12", sampleAdf("Hello"), "Rejected");
+
+        verify(statusService, timeout(2000).times(2)).updateStatus("BTS-12", "Rejected");
+        verify(commentService, times(1)).upsertComment(eq("BTS-12"), any());
+    }
+
+    @Test
+    void exhaustedTask_isMovedToFailedDirectory() throws Exception {
+        when(commentService.upsertComment(eq("BTS-13"), any())).thenReturn(JiraCommentService.Result.error("boom"));
+        queue = newQueue(2);
+
+        var task = queue.enqueue("BTS-13", sampleAdf("Hello"), "Approved");
+
+        Path failed = outbox.resolve("failed").resolve(task.id() + ".json");
+        long deadline = System.currentTimeMillis() + 2000;
+        while (!Files.exists(failed) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(failed).exists();
+        verify(statusService, never()).updateStatus(any(), any());
+    }
+
+    @Test
+    void pendingTasks_areRecoveredOnStartup() throws Exception {
+        when(commentService.upsertComment(eq("BTS-14"), any())).thenReturn(JiraCommentService.Result.error("down"));
+        var first = newQueue(100);
+        var task = first.enqueue("BTS-14", sampleAdf("Hello"), null);
+        first.shutdown();
+        assertThat(outbox.resolve(task.id() + ".json")).exists();
+
+        reset(commentService);
+        when(commentService.upsertComment(eq("BTS-14"), any())).thenReturn(JiraCommentService.Result.ok("created", "self"));
+        queue = newQueue(100);
+
+        verify(commentService, timeout(2000)).upsertComment(eq("BTS-14"), any());
+        waitUntilGone(outbox.resolve(task.id() + ".json"));
+    }
+
+    private static void waitUntilGone(Path file) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (Files.exists(file) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(file).doesNotExist();
+    }
+}
@@ -0,0 +1,37 @@
+package org.dacrewj.agent.shell;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BulkReviewStatsTest {
+
+	@Test
+	void reportsLatencyQuantilesAndTokens() {
+		var tokens = new AtomicLong(1000);
+		var stats = new BulkReviewStats(5, tokens::get);
+		for (int millis : new int[] {400, 100, 300, 200}) {
+			stats.succeeded(Duration.ofMillis(millis));
+		}
+		stats.failed(Duration.ofMillis(1000));
+		tokens.addAndGet(5000);
+
+		assertThat(stats.done()).isEqualTo(5);
+		assertThat(stats.latencyMillis(0.5)).isEqualTo(300);
+		assertThat(stats.latencyMillis(1.0)).isEqualTo(1000);
+		assertThat(stats.summary())
+				.startsWith("5/5 reviewed (1 failed)")
+				.contains("p50 300 ms", "max 1000 ms", "tokens 5000 (1000/review)");
+	}
+
+	@Test
+	void unknownTokensAreReportedAsNotAvailable() {
+		var stats = new BulkReviewStats(1, () -> -1);
+
+		assertThat(stats.latencyMillis(0.5)).isZero();
+		assertThat(stats.summary()).contains("0/1 reviewed", "tokens n/a");
+	}
+}
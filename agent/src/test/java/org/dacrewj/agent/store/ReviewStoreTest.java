@@ -0,0 +1,85 @@
+package org.dacrewj.agent.store;
+
+import org.dacrewj.agent.agents.RequirementReview;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReviewStoreTest {
+
+	@TempDir
+	Path tempDir;
+
+	private ReviewStore store(long segmentBytes) throws IOException {
+		return new ReviewStore(tempDir.toString(), segmentBytes, false, false);
+	}
+
+	private static RequirementReview review(String key, boolean approved) {
+		return new RequirementReview("JIRA", key, "Export monthly customer report",
+				List.of("The performance requirement is not testable"), List.of("State the hardware"), approved);
+	}
+
+	@Test
+	void returnsLatestReviewAndHistoryInOrder() throws IOException {
+		var store = store(1 << 20);
+		store.append(review("ABC-1", false));
+		store.append(review("ABC-2", false));
+		store.append(review("ABC-1", true));
+
+		assertThat(store.latest("ABC-1")).get().extracting(s -> s.review().approved()).isEqualTo(true);
+		assertThat(store.history("ABC-1")).extracting(s -> s.review().approved()).containsExactly(false, true);
+		assertThat(store.count("ABC-2")).isEqualTo(1);
+		assertThat(store.latest("ABC-3")).isEmpty();
+		assertThat(store.history("ABC-3")).isEmpty();
+		store.close();
+	}
+
+	@Test
+	void rollsSegmentsAndRebuildsIndexFromFooters() throws IOException {
+		var store = store(600);
+		for (int i = 0; i < 10; i++) {
+			store.append(review("ABC-" + (i % 3), i % 2 == 0));
+		}
+		store.close();
+		try (var files = Files.list(tempDir)) {
+			assertThat(files.count()).isGreaterThan(1);
+		}
+
+		var reopened = store(600);
+		assertThat(reopened.keys()).containsExactlyInAnyOrder("ABC-0", "ABC-1", "ABC-2");
+		assertThat(reopened.history("ABC-0")).hasSize(4);
+		assertThat(reopened.latest("ABC-0")).get().extracting(s -> s.review().approved()).isEqualTo(false);
+		reopened.append(review("ABC-0", true));
+		assertThat(reopened.history("ABC-0")).hasSize(5);
+		reopened.close();
+	}
+
+	@Test
+	void recoversUnsealedSegmentAndDropsTornRecord() throws IOException {
+		var store = store(1 << 20);
+		store.append(review("ABC-1", false));
+		store.append(review("ABC-1", true));
+		// Simulate a crash: no footer, and half a record at the end
+		Path segment;
+		try (var files = Files.list(tempDir)) {
+			segment = files.findFirst().orElseThrow();
+		}
+		Files.write(segment, new byte[] {0, 0, 1, 0, 42}, StandardOpenOption.APPEND);
+
+		var recovered = store(1 << 20);
+		assertThat(recovered.history("ABC-1")).extracting(s -> s.review().approved()).containsExactly(false, true);
+		recovered.append(review("ABC-1", false));
+		recovered.close();
+
+		var reopened = store(1 << 20);
+		assertThat(reopened.count("ABC-1")).isEqualTo(3);
+		reopened.close();
+	}
+}
@@ -0,0 +1,102 @@
+package org.dacrewj.agent.stub;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.prompt.Prompt;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StubChatModelTest {
+
+	private static final ObjectMapper mapper = new ObjectMapper();
+
+	private static final String CRITIQUE_PROMPT = """
+			Create a critique based on the given draft requirement's summary and description.
+			Your response should be in JSON format.
+			Here is the JSON Schema instance your output must adhere to:
+			```{
+			  "$schema" : "https://json-schema.org/draft/2020-12/schema",
+			  "type" : "object",
+			  "properties" : {
+			    "criticisms" : {
+			      "type" : "array",
+			      "items" : { "$ref" : "#/$defs/Criticism" }
+			    }
+			  },
+			  "$defs" : {
+			    "Criticism" : {
+			      "type" : "object",
+			      "properties" : { "criticismText" : { "type" : "string" } }
+			    }
+			  }
+			}```
+			""";
+
+	@Test
+	void answersWithSchemaValidObjects() throws Exception {
+		var model = new StubChatModel("stub", LatencyProfile.fixed(Duration.ZERO), 3);
+
+		JsonNode critique = mapper.readTree(model.answer(CRITIQUE_PROMPT));
+
+		assertThat(critique.get("criticisms")).hasSize(3);
+		assertThat(critique.get("criticisms").get(0).get("criticismText").asText()).startsWith("Stub criticismText 1");
+		assertThat(critique.get("criticisms").get(2).get("criticismText").asText()).startsWith("Stub criticismText 3");
+	}
+
+	@Test
+	void answersAreDeterministic() {
+		var model = new StubChatModel("stub", LatencyProfile.fixed(Duration.ZERO), 2);
+
+		assertThat(model.answer(CRITIQUE_PROMPT)).isEqualTo(model.answer(CRITIQUE_PROMPT));
+		assertThat(model.answer("Write a succinct suggestion")).isEqualTo(model.answer("Write a succinct suggestion"));
+	}
+
+	@Test
+	void answersPlainTextWithoutSchema() {
+		var model = new StubChatModel("stub", LatencyProfile.fixed(Duration.ZERO), 2);
+
+		assertThat(model.answer("Write a succinct suggestion")).startsWith("Stub answer");
+	}
+
+	@Test
+	void callReportsUsageAndSimulatesLatency() {
+		var model = new StubChatModel("stub", LatencyProfile.fixed(Duration.ofMillis(30)), 1);
+
+		long start = System.nanoTime();
+		var response = model.call(new Prompt(CRITIQUE_PROMPT));
+
+		assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(30));
+		assertThat(response.getResult().getOutput().getText()).contains("criticisms");
+		assertThat(response.getMetadata().getUsage().getPromptTokens()).isPositive();
+		assertThat(model.calls()).isEqualTo(1);
+	}
+
+	@Test
+	void logNormalLatencyIsDeterministicAroundTheMedian() {
+		var first = LatencyProfile.logNormal(Duration.ofMillis(800), 0.5, 42);
+		var second = LatencyProfile.logNormal(Duration.ofMillis(800), 0.5, 42);
+		var samples = new ArrayList<Long>();
+		for (int i = 0; i < 2001; i++) {
+			Duration latency = first.next();
+			assertThat(second.next()).isEqualTo(latency);
+			samples.add(latency.toMillis());
+		}
+		samples.sort(null);
+
+		assertThat(samples.get(1000)).isBetween(700L, 900L);
+		assertThat(samples.get(1980)).isGreaterThan(2 * samples.get(1000));
+	}
+
+	@Test
+	void traceIsReplayedInOrder() {
+		var trace = LatencyProfile.trace(List.of(Duration.ofMillis(1), Duration.ofMillis(2)));
+
+		assertThat(List.of(trace.next(), trace.next(), trace.next()))
+				.containsExactly(Duration.ofMillis(1), Duration.ofMillis(2), Duration.ofMillis(1));
+	}
+}
@@ -0,0 +1,73 @@
+plugins {
+    java
+    id("me.champeau.jmh") version "0.7.2"
+    id("io.spring.dependency-management")
+}
+
+tasks.register("prepareKotlinBuildScriptModel") {
+    // no-op for IDE compatibility with Kotlin DSL model task
+}
+
+dependencyManagement {
+    imports {
+        // The Spring Boot version of the root build
+        mavenBom(org.springframework.boot.gradle.plugin.SpringBootPlugin.BOM_COORDINATES)
+    }
+}
+
+// main holds the throughput harness and the webhook replay; the JMH suites see main and its dependencies
+dependencies {
+    implementation(project(":contracts"))
+    implementation(project(":common"))
+    implementation(project(":messaging-core"))
+    implementation(project(":agent"))
+    implementation(project(":jira_ingester"))
+
+    implementation("org.springframework.boot:spring-boot-starter-web")
+    implementation("org.springframework.boot:spring-boot-starter-amqp")
+    implementation("org.springframework.boot:spring-boot-starter-actuator")
+    jmhImplementation("org.springframework:spring-test")
+
+    testImplementation("org.springframework.boot:spring-boot-starter-test")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+}
+
+tasks.named<Test>("test") {
+    useJUnitPlatform()
+}
+
+sourceSets {
+    main {
+        // The webhook fixtures of the ingester's tests
+        resources.srcDir("../jira_ingester/src/test/resources")
+    }
+}
+
+// Suites live in src/jmh/java; run all with ./gradlew :benchmarks:jmh, or some with -PjmhIncludes=Hmac
+// The gc profiler reports allocation per operation (gc.alloc.rate.norm) next to the time
+jmh {
+    profilers.add("gc")
+    resultFormat.set("JSON")
+    (findProperty("jmhIncludes") as String?)?.let { includes.add(it) }
+}
+
+// Ingester and agent in one JVM against local stand-ins for RabbitMQ, the LLM and Jira, e.g.
+// ./gradlew :benchmarks:throughput -PharnessArgs="--rate=5 --duration=2m --jira-429-rate=0.1"
+tasks.register<JavaExec>("throughput") {
+    group = "verification"
+    description = "Runs the end-to-end throughput harness and reports reviews per second and latency percentiles"
+    classpath = sourceSets.main.get().runtimeClasspath
+    mainClass.set("org.dacrewj.harness.ThroughputHarness")
+    (findProperty("harnessArgs") as String?)?.let { args(it.split(" ").filter(String::isNotBlank)) }
+}
+
+// Posts webhooks captured by the ingester (webhook-*.log) to a running ingester, re-signed, e.g.
+// ./gradlew :benchmarks:replay -PreplayArgs="--captures=jira_ingester/logs --speed=10 --concurrency=32"
+tasks.register<JavaExec>("replay") {
+    group = "verification"
+    description = "Replays captured Jira webhooks against a running ingester"
+    classpath = sourceSets.main.get().runtimeClasspath
+    mainClass.set("org.dacrewj.harness.WebhookReplay")
+    workingDir = rootDir
+    (findProperty("replayArgs") as String?)?.let { args(it.split(" ").filter(String::isNotBlank)) }
+}
@@ -0,0 +1,61 @@
+package org.dacrewj.agent.jira;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.dacrewj.agent.agents.RequirementReview;
+import org.dacrewj.contract.AdfDocument;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Rendering a review as the ADF comment ({@link AdfUtilities#toAdf}) and taking its plain-text preview, as done
+ * for every Jira comment.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AdfBenchmark {
+
+	private static final int MAX_COMMENT_LENGTH = 1024;
+
+	@Param({"5", "50"})
+	public int items;
+
+	private RequirementReview review;
+	private AdfDocument document;
+
+	@Setup
+	public void setUp() {
+		List<String> critique = IntStream.range(0, items)
+				.mapToObj(i -> "Criticism %d: the requirement does not state measurable acceptance criteria for the import of records.".formatted(i))
+				.toList();
+		List<String> suggestions = IntStream.range(0, items)
+				.mapToObj(i -> "Suggestion %d: add acceptance criteria which name the expected throughput and the error behaviour.".formatted(i))
+				.toList();
+		review = new RequirementReview("JIRA", "BTS-11", "Import customer records", critique, suggestions, false);
+		document = AdfUtilities.toAdf("JIRA", "BTS-11", review);
+	}
+
+	@Benchmark
+	public AdfDocument toAdf() {
+		return AdfUtilities.toAdf("JIRA", "BTS-11", review);
+	}
+
+	@Benchmark
+	public String previewText() {
+		return document.previewText(MAX_COMMENT_LENGTH + 1);
+	}
+}
@@ -0,0 +1,117 @@
+package org.dacrewj.contract;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares rendering a review comment the tree way (Node records, HashMap wrapper, String, previewText walk)
+ * with the streaming {@link AdfWriter}. Run with the gc profiler (configured in benchmarks/build.gradle.kts)
+ * to see allocation per operation alongside the time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AdfWriterBenchmark {
+
+	private static final int MAX_COMMENT_LENGTH = 1024;
+
+	@Param({"5", "50", "500"})
+	public int items;
+
+	private final ObjectMapper mapper = new ObjectMapper();
+	private List<String> critique;
+	private List<String> suggestions;
+
+	@Setup
+	public void setUp() {
+		critique = IntStream.range(0, items)
+				.mapToObj(i -> "Criticism %d: the requirement does not state measurable acceptance criteria for the import of records.".formatted(i))
+				.toList();
+		suggestions = IntStream.range(0, items)
+				.mapToObj(i -> "Suggestion %d: add acceptance criteria which name the expected throughput and the error behaviour.".formatted(i))
+				.toList();
+	}
+
+	@Benchmark
+	public int tree() throws IOException {
+		var content = new ArrayList<AdfDocument.Node>();
+		content.add(heading(1, "Requirement Review for JIRA issue BTS-11"));
+		content.add(heading(2, "Constructive Feedback"));
+		content.add(bulletList(critique));
+		content.add(heading(2, "Suggested Improvements"));
+		content.add(bulletList(suggestions));
+		content.add(heading(2, "Conclusion"));
+		content.add(paragraph("Draft requirement rejected"));
+		var document = new AdfDocument("doc", 1, content);
+
+		Map<String, Object> payload = new HashMap<>();
+		payload.put("body", document);
+		String json = mapper.writeValueAsString(payload);
+		String preview = document.previewText(MAX_COMMENT_LENGTH + 1);
+		return json.length() + preview.length();
+	}
+
+	@Benchmark
+	public long streaming() throws IOException {
+		var buffer = new ByteArrayOutputStream(4096);
+		long textLength;
+		try (var generator = mapper.getFactory().createGenerator(buffer)) {
+			generator.writeStartObject();
+			generator.writeFieldName("body");
+			var writer = new AdfWriter(generator)
+					.startDocument()
+					.heading(1, "Requirement Review for JIRA issue BTS-11")
+					.heading(2, "Constructive Feedback")
+					.bulletList(critique)
+					.heading(2, "Suggested Improvements")
+					.bulletList(suggestions)
+					.heading(2, "Conclusion")
+					.paragraph("Draft requirement rejected")
+					.endDocument();
+			generator.writeEndObject();
+			textLength = writer.textLength();
+		}
+		return buffer.size() + textLength;
+	}
+
+	private static AdfDocument.Node text(String text) {
+		return new AdfDocument.Node("text", null, null, text, null);
+	}
+
+	private static AdfDocument.Node heading(int level, String text) {
+		return new AdfDocument.Node("heading", Map.of("level", level), List.of(text(text)), null, null);
+	}
+
+	private static AdfDocument.Node paragraph(String text) {
+		return new AdfDocument.Node("paragraph", null, List.of(text(text)), null, null);
+	}
+
+	private static AdfDocument.Node bulletList(List<String> lines) {
+		var items = new ArrayList<AdfDocument.Node>();
+		for (String line : lines) {
+			items.add(new AdfDocument.Node("listItem", null, List.of(paragraph(line)), null, null));
+		}
+		return new AdfDocument.Node("bulletList", null, items, null, null);
+	}
+}
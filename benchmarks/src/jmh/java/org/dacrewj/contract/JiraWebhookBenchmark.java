@@ -0,0 +1,54 @@
+package org.dacrewj.contract;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Deserialisation of the Jira webhook fixture into {@link JiraModels.JiraWebhook}: binding the bytes directly, and
+ * the way WebhookController does it (decode to String, read the tree for the timestamp, then bind).
+ * The ObjectMapper is configured like Spring Boot's.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JiraWebhookBenchmark {
+
+	private final ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+	private byte[] payload;
+
+	@Setup
+	public void setUp() {
+		payload = Fixtures.read(Fixtures.VALID_WEBHOOK);
+	}
+
+	@Benchmark
+	public JiraModels.JiraWebhook bind() throws IOException {
+		return mapper.readValue(payload, JiraModels.JiraWebhook.class);
+	}
+
+	@Benchmark
+	public JiraModels.JiraWebhook controllerPath(Blackhole blackhole) throws IOException {
+		String json = new String(payload, StandardCharsets.UTF_8);
+		JsonNode root = mapper.readTree(json);
+		blackhole.consume(root.path("timestamp").asLong());
+		return mapper.readValue(json, JiraModels.JiraWebhook.class);
+	}
+}
@@ -0,0 +1,74 @@
+package org.dacrewj.env;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+/**
+ * Loading of a .env file by {@link DotenvEnvironmentPostProcessor}, through its public entry point. The file mixes
+ * comments, blank lines, quoted and unquoted values. The post-processor looks for it in the working directory, so it
+ * is written there for the run; the benchmark refuses to start if a .env file is already present.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DotenvBenchmark {
+
+	@Param({"20", "500"})
+	public int entries;
+
+	private final Path file = Path.of(".env");
+	private final DotenvEnvironmentPostProcessor postProcessor = new DotenvEnvironmentPostProcessor();
+	private final StandardEnvironment environment = new StandardEnvironment();
+
+	@Setup
+	public void setUp() throws IOException {
+		if (Files.exists(file)) {
+			throw new IllegalStateException("Refusing to overwrite " + file.toAbsolutePath() + "; run the benchmark from another directory");
+		}
+		var lines = new ArrayList<String>();
+		for (int i = 0; i < entries; i++) {
+			switch (i % 4) {
+				case 0 -> lines.add("# setting " + i);
+				case 1 -> lines.add("DACREW_SETTING_" + i + "=\"quoted value " + i + "\"");
+				case 2 -> lines.add("DACREW_SETTING_" + i + "='single quoted " + i + "'");
+				default -> lines.add("  DACREW_SETTING_" + i + " = plain-" + i + "  ");
+			}
+			if (i % 10 == 9) {
+				lines.add("");
+			}
+		}
+		Files.write(file, lines);
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(file);
+	}
+
+	@Benchmark
+	public PropertySource<?> load() {
+		postProcessor.postProcessEnvironment(environment, null);
+		// Leaves the environment as it was for the next invocation
+		return environment.getPropertySources().remove("dotenv");
+	}
+}
@@ -0,0 +1,88 @@
+package org.dacrewj.jira_ingester.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import java.util.HexFormat;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import org.dacrewj.contract.Fixtures;
+import org.dacrewj.jira_ingester.metrics.IngestMetrics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Signature verification of a webhook by {@link WebhookSecurityConfig.HmacInterceptor}: reading the body, computing
+ * the HMAC and comparing it with the header. The body is the webhook fixture repeated copies times.
+ * mockRequest is the cost of the mock request alone, to be subtracted from verify.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HmacBenchmark {
+
+	private static final String SECRET = "benchmark-secret";
+	private static final String HEADER = "X-Hub-Signature";
+	private static final String ALGORITHM = "HmacSHA256";
+
+	@Param({"1", "16"})
+	public int copies;
+
+	private WebhookSecurityConfig.HmacInterceptor interceptor;
+	private byte[] body;
+	private String signature;
+
+	@Setup
+	public void setUp() throws Exception {
+		var config = new WebhookSecurityConfig(ObservationRegistry.NOOP, new IngestMetrics(new SimpleMeterRegistry()));
+		ReflectionTestUtils.setField(config, "webhookSecret", SECRET);
+		ReflectionTestUtils.setField(config, "signatureHeader", HEADER);
+		ReflectionTestUtils.setField(config, "algorithm", ALGORITHM);
+		interceptor = config.new HmacInterceptor();
+
+		byte[] fixture = Fixtures.read(Fixtures.VALID_WEBHOOK);
+		body = new byte[fixture.length * copies];
+		for (int i = 0; i < copies; i++) {
+			System.arraycopy(fixture, 0, body, i * fixture.length, fixture.length);
+		}
+		Mac mac = Mac.getInstance(ALGORITHM);
+		mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), ALGORITHM));
+		signature = "sha256=" + HexFormat.of().formatHex(mac.doFinal(body));
+	}
+
+	@Benchmark
+	public boolean verify() {
+		if (!interceptor.preHandle(request(), new MockHttpServletResponse(), this)) {
+			throw new IllegalStateException("Signature rejected");
+		}
+		return true;
+	}
+
+	@Benchmark
+	public Object mockRequest() {
+		return request();
+	}
+
+	private MockHttpServletRequest request() {
+		var request = new MockHttpServletRequest("POST", "/webhook/jira");
+		request.addHeader(HEADER, signature);
+		request.setContent(body);
+		return request;
+	}
+}
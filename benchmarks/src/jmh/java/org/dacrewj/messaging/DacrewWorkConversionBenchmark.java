@@ -0,0 +1,58 @@
+package org.dacrewj.messaging;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import org.dacrewj.contract.DacrewWork;
+import org.dacrewj.contract.Fixtures;
+import org.dacrewj.contract.JiraModels;
+import org.dacrewj.contract.Source;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Conversion of a {@link DacrewWork} to and from an AMQP message with the converter configured in
+ * {@link RabbitConfig}: what the ingester does per webhook and the agent per delivery.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DacrewWorkConversionBenchmark {
+
+	private final Jackson2JsonMessageConverter converter = new Jackson2JsonMessageConverter();
+	private DacrewWork work;
+	private Message message;
+
+	@Setup
+	public void setUp() throws IOException {
+		var webhook = Jackson2ObjectMapperBuilder.json().build()
+				.readValue(Fixtures.read(Fixtures.VALID_WEBHOOK), JiraModels.JiraWebhook.class);
+		work = new DacrewWork("BTS-BTS-11-1700000000000", Source.JIRA, webhook, Instant.now());
+		message = converter.toMessage(work, new MessageProperties());
+	}
+
+	@Benchmark
+	public Message toMessage() {
+		return converter.toMessage(work, new MessageProperties());
+	}
+
+	@Benchmark
+	public Object fromMessage() {
+		return converter.fromMessage(message);
+	}
+}
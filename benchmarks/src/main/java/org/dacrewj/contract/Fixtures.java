@@ -0,0 +1,28 @@
+package org.dacrewj.contract;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Test fixtures shared by the benchmarks and the throughput harness (the webhook payloads of the ingester's tests are on
+ * the classpath).
+ */
+public final class Fixtures {
+
+	public static final String VALID_WEBHOOK = "/jira-webhook-payload-valid.json";
+
+	private Fixtures() {
+	}
+
+	public static byte[] read(String resource) {
+		try (InputStream in = Fixtures.class.getResourceAsStream(resource)) {
+			if (in == null) {
+				throw new IllegalStateException("Fixture " + resource + " not on the classpath");
+			}
+			return in.readAllBytes();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
@@ -0,0 +1,36 @@
+package org.dacrewj.harness;
+
+import java.util.List;
+import org.springframework.boot.autoconfigure.AutoConfigurationImportFilter;
+import org.springframework.boot.autoconfigure.AutoConfigurationMetadata;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+
+/**
+ * Leaves out the auto-configurations in the packages listed in harness.exclude-auto-configuration.
+ * <p>
+ * The harness runs both applications on one classpath, so each would otherwise also pick up the other's
+ * auto-configurations (the ingester Embabel's, Spring AI's and Spring Shell's), and both RabbitMQ's, which the
+ * in-memory broker replaces. Without the property nothing is excluded.
+ */
+public class AutoConfigurationPackageFilter implements AutoConfigurationImportFilter, EnvironmentAware {
+
+	static final String PROPERTY = "harness.exclude-auto-configuration";
+
+	private List<String> packages = List.of();
+
+	@Override
+	public void setEnvironment(Environment environment) {
+		packages = List.of(environment.getProperty(PROPERTY, String[].class, new String[0]));
+	}
+
+	@Override
+	public boolean[] match(String[] autoConfigurationClasses, AutoConfigurationMetadata autoConfigurationMetadata) {
+		boolean[] matches = new boolean[autoConfigurationClasses.length];
+		for (int i = 0; i < autoConfigurationClasses.length; i++) {
+			String candidate = autoConfigurationClasses[i];
+			matches[i] = candidate == null || packages.stream().noneMatch(p -> candidate.startsWith(p + "."));
+		}
+		return matches;
+	}
+}
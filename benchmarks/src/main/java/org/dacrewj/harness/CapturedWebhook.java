@@ -0,0 +1,91 @@
+package org.dacrewj.harness;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * A webhook captured by the ingester's WebhookLoggingInterceptor (webhook-*.log in the log directory):
+ * <pre>
+ * Webhook received at: 2025-08-28T15:54:44.246+02:00[Europe/Zurich]
+ * Query parameters: user_id=...            (only if there were any)
+ * Webhook payload:                          (or "Webhook payload (raw):" if the body was not JSON)
+ * { pretty-printed JSON }
+ * </pre>
+ * The interceptor pretty-prints JSON bodies, so the original bytes are gone; the body is compacted again, which is
+ * the form Jira sends.
+ *
+ * @param query the query string, null if there was none
+ */
+record CapturedWebhook(Path file, Instant receivedAt, String query, byte[] body) {
+
+	private static final ObjectMapper mapper = new ObjectMapper();
+
+	private static final String RECEIVED = "Webhook received at: ";
+	private static final String QUERY = "Query parameters: ";
+	private static final String PAYLOAD = "Webhook payload:\n";
+	private static final String RAW_PAYLOAD = "Webhook payload (raw):\n";
+
+	/**
+	 * Reads a capture file, or all webhook-*.log files of a directory, in the order they were received.
+	 */
+	static List<CapturedWebhook> readAll(Path path) throws IOException {
+		if (!Files.isDirectory(path)) {
+			return List.of(read(path));
+		}
+		try (Stream<Path> files = Files.list(path)) {
+			return files
+					.filter(file -> file.getFileName().toString().matches("webhook-.*\\.log"))
+					.map(file -> {
+						try {
+							return read(file);
+						} catch (IOException e) {
+							throw new UncheckedIOException(e);
+						}
+					})
+					.sorted(Comparator.comparing(CapturedWebhook::receivedAt).thenComparing(CapturedWebhook::file))
+					.toList();
+		}
+	}
+
+	static CapturedWebhook read(Path file) throws IOException {
+		String text = Files.readString(file, StandardCharsets.UTF_8).replace("\r\n", "\n");
+		int lineEnd = text.indexOf('\n');
+		if (!text.startsWith(RECEIVED) || lineEnd < 0) {
+			throw new IOException(file + " is not a captured webhook");
+		}
+		Instant receivedAt;
+		try {
+			receivedAt = ZonedDateTime.parse(text.substring(RECEIVED.length(), lineEnd).strip()).toInstant();
+		} catch (DateTimeParseException e) {
+			throw new IOException(file + " has an unreadable receive time", e);
+		}
+		String rest = text.substring(lineEnd + 1);
+		String query = null;
+		if (rest.startsWith(QUERY)) {
+			int queryEnd = rest.indexOf('\n');
+			query = rest.substring(QUERY.length(), queryEnd < 0 ? rest.length() : queryEnd).strip();
+			rest = queryEnd < 0 ? "" : rest.substring(queryEnd + 1);
+		}
+		byte[] body;
+		if (rest.startsWith(PAYLOAD)) {
+			body = mapper.writeValueAsBytes(mapper.readTree(rest.substring(PAYLOAD.length())));
+		} else if (rest.startsWith(RAW_PAYLOAD)) {
+			String raw = rest.substring(RAW_PAYLOAD.length());
+			// The interceptor appends a newline to the body
+			body = (raw.endsWith("\n") ? raw.substring(0, raw.length() - 1) : raw).getBytes(StandardCharsets.UTF_8);
+		} else {
+			throw new IOException(file + " contains no webhook payload");
+		}
+		return new CapturedWebhook(file, receivedAt, query, body);
+	}
+}
@@ -0,0 +1,154 @@
+package org.dacrewj.harness;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.dacrewj.agent.jira.JiraConstants;
+import org.dacrewj.agent.stub.LatencyProfile;
+
+/**
+ * Local stand-in for the Jira Cloud REST endpoints the agent writes to: issue comments (create, update, delete) and
+ * issue transitions (list, apply).
+ * <p>
+ * Every response is delayed by the latency profile. A fraction of the requests, chosen deterministically, is
+ * answered with 429 Too Many Requests and a Retry-After header, as Jira Cloud does when rate limiting.
+ * The time each issue was transitioned is recorded; the agent transitions an issue once its review comment is posted.
+ */
+final class FakeJira implements AutoCloseable {
+
+	private static final Pattern PATH = Pattern.compile("/rest/api/3/issue/([^/]+)/(comment|transitions)(?:/([^/]+))?");
+	private static final String TRANSITIONS = """
+			{"transitions":[\
+			{"id":"31","name":"%s","to":{"name":"%s"}},\
+			{"id":"41","name":"%s","to":{"name":"%s"}}]}"""
+			.formatted(JiraConstants.APPROVED, JiraConstants.APPROVED, JiraConstants.REJECTED, JiraConstants.REJECTED);
+
+	private final HttpServer server;
+	private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+	private final LatencyProfile latency;
+	private final double throttling;
+	private final long seed;
+	private final AtomicLong requests = new AtomicLong();
+	private final AtomicLong throttled = new AtomicLong();
+	private final AtomicLong comments = new AtomicLong();
+	private final Map<String, Long> transitioned = new ConcurrentHashMap<>();
+
+	/**
+	 * @param throttling fraction of requests answered with 429
+	 */
+	FakeJira(LatencyProfile latency, double throttling, long seed) throws IOException {
+		this.latency = latency;
+		this.throttling = throttling;
+		this.seed = seed;
+		this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		server.createContext("/rest/api/3/issue/", this::handle);
+		server.setExecutor(executor);
+		server.start();
+	}
+
+	String baseUrl() {
+		return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		try (exchange) {
+			exchange.getRequestBody().readAllBytes();
+			long request = requests.getAndIncrement();
+			sleep(latency.next());
+			if (new SplittableRandom(seed + request).nextDouble() < throttling) {
+				throttled.incrementAndGet();
+				exchange.getResponseHeaders().set("Retry-After", "1");
+				respond(exchange, 429, "{\"errorMessages\":[\"Rate limit exceeded\"]}");
+				return;
+			}
+			Matcher path = PATH.matcher(exchange.getRequestURI().getPath());
+			if (!path.matches()) {
+				respond(exchange, 404, "{\"errorMessages\":[\"Not found\"]}");
+				return;
+			}
+			String key = path.group(1);
+			String commentId = path.group(3);
+			String method = exchange.getRequestMethod();
+			if (path.group(2).equals("comment")) {
+				if (commentId == null && method.equals("POST")) {
+					String id = String.valueOf(10000 + comments.incrementAndGet());
+					respond(exchange, 201, "{\"id\":\"%s\",\"self\":\"%s/rest/api/3/issue/%s/comment/%s\"}".formatted(id, baseUrl(), key, id));
+				} else if (commentId != null && method.equals("PUT")) {
+					respond(exchange, 200, "{\"id\":\"%s\"}".formatted(commentId));
+				} else if (commentId != null && method.equals("DELETE")) {
+					respond(exchange, 204, "");
+				} else {
+					respond(exchange, 405, "");
+				}
+			} else if (method.equals("GET")) {
+				respond(exchange, 200, TRANSITIONS);
+			} else if (method.equals("POST")) {
+				transitioned.putIfAbsent(key, System.nanoTime());
+				respond(exchange, 204, "");
+			} else {
+				respond(exchange, 405, "");
+			}
+		}
+	}
+
+	private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+		if (bytes.length > 0) {
+			exchange.getResponseBody().write(bytes);
+		}
+	}
+
+	private static void sleep(Duration duration) {
+		if (duration.isZero() || duration.isNegative()) {
+			return;
+		}
+		try {
+			Thread.sleep(duration);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * @return System.nanoTime() of the first transition of the issue, null if it was not transitioned
+	 */
+	Long transitionedAt(String issueKey) {
+		return transitioned.get(issueKey);
+	}
+
+	long requests() {
+		return requests.get();
+	}
+
+	long throttled() {
+		return throttled.get();
+	}
+
+	long comments() {
+		return comments.get();
+	}
+
+	long transitions() {
+		return transitioned.size();
+	}
+
+	@Override
+	public void close() {
+		server.stop(0);
+		executor.shutdownNow();
+	}
+}
@@ -0,0 +1,82 @@
+package org.dacrewj.harness;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.springframework.boot.convert.DurationStyle;
+
+/**
+ * Options of the {@link ThroughputHarness}, given as --name=value arguments. Arguments which are not harness options
+ * are Spring properties passed to both applications, e.g. --dacrew.handlers.draft-requirement.concurrency=8.
+ *
+ * @param rate           webhooks sent per second
+ * @param duration       how long webhooks are sent
+ * @param warmup         initial part of the run left out of the statistics
+ * @param drainTimeout   how long to wait after the last webhook for the outstanding reviews
+ * @param llmMedian      median latency of the stub LLM (log-normal)
+ * @param jiraLatency    latency of every fake Jira response
+ * @param jiraThrottling fraction of fake Jira requests answered with 429 Too Many Requests
+ * @param prefetch       maximum number of unacknowledged messages, as the listener container's prefetch
+ * @param consumers      number of consumers taking messages off the in-memory queue
+ * @param properties     Spring properties for both applications
+ */
+record HarnessOptions(
+		double rate,
+		Duration duration,
+		Duration warmup,
+		Duration drainTimeout,
+		Duration llmMedian,
+		Duration jiraLatency,
+		double jiraThrottling,
+		int prefetch,
+		int consumers,
+		Map<String, String> properties) {
+
+	static HarnessOptions parse(String... args) {
+		var values = new LinkedHashMap<String, String>();
+		for (String arg : args) {
+			int equals = arg.indexOf('=');
+			if (!arg.startsWith("--") || equals < 0) {
+				throw new IllegalArgumentException("Expected --name=value but got '" + arg + "'");
+			}
+			values.put(arg.substring(2, equals), arg.substring(equals + 1));
+		}
+		var options = new HarnessOptions(
+				Double.parseDouble(take(values, "rate", "2")),
+				duration(take(values, "duration", "60s")),
+				duration(take(values, "warmup", "10s")),
+				duration(take(values, "drain-timeout", "2m")),
+				duration(take(values, "llm-median", "800ms")),
+				duration(take(values, "jira-latency", "150ms")),
+				Double.parseDouble(take(values, "jira-429-rate", "0.05")),
+				Integer.parseInt(take(values, "prefetch", "250")),
+				Integer.parseInt(take(values, "consumers", "10")),
+				Map.copyOf(values));
+		if (options.rate() <= 0) {
+			throw new IllegalArgumentException("rate must be positive");
+		}
+		if (options.warmup().compareTo(options.duration()) >= 0) {
+			throw new IllegalArgumentException("warmup must be shorter than duration");
+		}
+		if (options.jiraThrottling() < 0 || options.jiraThrottling() > 1) {
+			throw new IllegalArgumentException("jira-429-rate must be between 0 and 1");
+		}
+		return options;
+	}
+
+	/**
+	 * Number of webhooks sent in the run.
+	 */
+	int webhooks() {
+		return (int) Math.round(rate * duration.toNanos() / 1e9);
+	}
+
+	private static String take(Map<String, String> values, String name, String defaultValue) {
+		String value = values.remove(name);
+		return value != null ? value : defaultValue;
+	}
+
+	private static Duration duration(String value) {
+		return DurationStyle.detectAndParse(value);
+	}
+}
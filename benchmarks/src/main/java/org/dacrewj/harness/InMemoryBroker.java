@@ -0,0 +1,151 @@
+package org.dacrewj.harness;
+
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import org.dacrewj.agent.concurrent.Bulkhead;
+import org.dacrewj.contract.DacrewWork;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+/**
+ * Stands in for RabbitMQ: the ingester's {@link RabbitTemplate} puts messages on an in-memory queue, from which
+ * consumer threads hand them to the agent's listener.
+ * <p>
+ * Messages are converted to and from JSON as on the wire. Like the listener container with manual acknowledgement,
+ * at most prefetch messages are unacknowledged at a time; a message is acknowledged when the future returned by the
+ * listener completes. Work rejected by a saturated handler is requeued at the head of the queue, work whose handler
+ * failed is dropped.
+ */
+final class InMemoryBroker implements AutoCloseable {
+
+	private static final Logger logger = LoggerFactory.getLogger(InMemoryBroker.class);
+
+	private final BlockingDeque<Message> queue = new LinkedBlockingDeque<>();
+	private final int prefetch;
+	private final Semaphore unacknowledged;
+	private final ExecutorService consumers = Executors.newVirtualThreadPerTaskExecutor();
+	private final AtomicLong published = new AtomicLong();
+	private final AtomicLong acknowledged = new AtomicLong();
+	private final AtomicLong requeued = new AtomicLong();
+	private final AtomicLong dropped = new AtomicLong();
+	private volatile boolean running = true;
+
+	InMemoryBroker(int prefetch) {
+		this.prefetch = prefetch;
+		this.unacknowledged = new Semaphore(prefetch);
+	}
+
+	/**
+	 * A template publishing to this broker, converting like the JSON converter of RabbitConfig. The exchange and
+	 * routing key are ignored: there is only one queue, so work passed on for retry is delivered again at once.
+	 */
+	RabbitTemplate template() {
+		var template = new RabbitTemplate() {
+			@Override
+			public void send(String exchange, String routingKey, Message message, CorrelationData correlationData) {
+				published.incrementAndGet();
+				queue.addLast(message);
+				if (correlationData != null) {
+					correlationData.getFuture().complete(new CorrelationData.Confirm(true, null));
+				}
+			}
+		};
+		template.setMessageConverter(new Jackson2JsonMessageConverter());
+		return template;
+	}
+
+	/**
+	 * Starts delivering messages to the listener.
+	 *
+	 * @param converter the converter of the consuming application
+	 */
+	void consume(MessageConverter converter, BiFunction<DacrewWork, Message, CompletableFuture<Void>> listener, int concurrency) {
+		for (int i = 0; i < concurrency; i++) {
+			consumers.submit(() -> deliver(converter, listener));
+		}
+	}
+
+	private void deliver(MessageConverter converter, BiFunction<DacrewWork, Message, CompletableFuture<Void>> listener) {
+		while (running) {
+			Message message;
+			try {
+				unacknowledged.acquire();
+				message = queue.pollFirst(100, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				return;
+			}
+			if (message == null) {
+				unacknowledged.release();
+				continue;
+			}
+			CompletableFuture<Void> result;
+			try {
+				// The listener adapter infers the payload type from the @RabbitListener method's parameter
+				message.getMessageProperties().setInferredArgumentType(DacrewWork.class);
+				result = listener.apply((DacrewWork) converter.fromMessage(message), message);
+			} catch (RuntimeException e) {
+				result = CompletableFuture.failedFuture(e);
+			}
+			result.whenComplete((ignored, failure) -> {
+				settle(message, failure);
+				unacknowledged.release();
+			});
+		}
+	}
+
+	private void settle(Message message, Throwable failure) {
+		Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+		if (cause == null) {
+			acknowledged.incrementAndGet();
+		} else if (cause instanceof Bulkhead.BulkheadFullException) {
+			requeued.incrementAndGet();
+			queue.addFirst(message);
+		} else {
+			dropped.incrementAndGet();
+			logger.warn("Dropping message: {}", cause.toString());
+		}
+	}
+
+	int depth() {
+		return queue.size();
+	}
+
+	int unacknowledged() {
+		return prefetch - unacknowledged.availablePermits();
+	}
+
+	long published() {
+		return published.get();
+	}
+
+	long acknowledged() {
+		return acknowledged.get();
+	}
+
+	long requeued() {
+		return requeued.get();
+	}
+
+	long dropped() {
+		return dropped.get();
+	}
+
+	@Override
+	public void close() {
+		running = false;
+		consumers.shutdownNow();
+	}
+}
@@ -0,0 +1,33 @@
+package org.dacrewj.harness;
+
+import java.util.List;
+
+/**
+ * Latency percentiles for the reports of the harness and the replay tool.
+ */
+final class Percentiles {
+
+	private Percentiles() {
+	}
+
+	/**
+	 * @param nanos latencies in nanoseconds
+	 * @return p50, p90, p99 and max in milliseconds (nearest rank), "n/a" if there are none
+	 */
+	static String format(List<Long> nanos) {
+		if (nanos.isEmpty()) {
+			return "n/a";
+		}
+		long[] sorted = nanos.stream().mapToLong(Long::longValue).sorted().toArray();
+		return "p50 %s  p90 %s  p99 %s  max %s".formatted(
+				millis(at(sorted, 0.5)), millis(at(sorted, 0.9)), millis(at(sorted, 0.99)), millis(sorted[sorted.length - 1]));
+	}
+
+	private static long at(long[] sorted, double quantile) {
+		return sorted[Math.max(0, (int) Math.ceil(quantile * sorted.length) - 1)];
+	}
+
+	private static String millis(long nanos) {
+		return "%.1f ms".formatted(nanos / 1e6);
+	}
+}
@@ -0,0 +1,74 @@
+package org.dacrewj.harness;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Options of the {@link WebhookReplay}, given as --name=value arguments. The secret, algorithm and signature header
+ * default to the environment variables the ingester is configured with.
+ *
+ * @param captures        a capture file or a directory of webhook-*.log files
+ * @param target          the ingester's webhook endpoint
+ * @param rate            webhooks per second; 0 keeps the captured arrival times
+ * @param speed           time compression of the captured arrival times, e.g. 10 replays an hour in six minutes
+ * @param concurrency     maximum number of requests in flight
+ * @param shuffle         whether to send the payloads in random order (the schedule stays the same)
+ * @param seed            seed of the shuffle
+ * @param repeat          number of times the captures are sent
+ */
+record ReplayOptions(
+		Path captures,
+		URI target,
+		String secret,
+		String algorithm,
+		String signatureHeader,
+		double rate,
+		double speed,
+		int concurrency,
+		boolean shuffle,
+		long seed,
+		int repeat) {
+
+	static ReplayOptions parse(String... args) {
+		var values = new LinkedHashMap<String, String>();
+		for (String arg : args) {
+			int equals = arg.indexOf('=');
+			if (!arg.startsWith("--")) {
+				throw new IllegalArgumentException("Expected --name=value but got '" + arg + "'");
+			}
+			// A bare flag, e.g. --shuffle, is true
+			values.put(equals < 0 ? arg.substring(2) : arg.substring(2, equals), equals < 0 ? "true" : arg.substring(equals + 1));
+		}
+		var options = new ReplayOptions(
+				Path.of(take(values, "captures", env("DACREW_LOG_DIR", "logs"))),
+				URI.create(take(values, "target", "http://localhost:8080/webhook/jira")),
+				take(values, "secret", env("JIRA_WEBHOOK_SECRET", "")),
+				take(values, "algorithm", env("JIRA_WEBHOOK_ALGORITHM", WebhookSigner.DEFAULT_ALGORITHM)),
+				take(values, "signature-header", env("JIRA_WEBHOOK_SIGNATURE_HEADER", "X-Hub-Signature")),
+				Double.parseDouble(take(values, "rate", "0")),
+				Double.parseDouble(take(values, "speed", "1")),
+				Integer.parseInt(take(values, "concurrency", "16")),
+				Boolean.parseBoolean(take(values, "shuffle", "false")),
+				Long.parseLong(take(values, "seed", "42")),
+				Integer.parseInt(take(values, "repeat", "1")));
+		if (!values.isEmpty()) {
+			throw new IllegalArgumentException("Unknown options " + values.keySet());
+		}
+		if (options.rate() < 0 || options.speed() <= 0 || options.concurrency() < 1 || options.repeat() < 1) {
+			throw new IllegalArgumentException("rate must not be negative, speed must be positive, concurrency and repeat at least 1");
+		}
+		return options;
+	}
+
+	private static String take(Map<String, String> values, String name, String defaultValue) {
+		String value = values.remove(name);
+		return value != null ? value : defaultValue;
+	}
+
+	private static String env(String name, String defaultValue) {
+		String value = System.getenv(name);
+		return value != null && !value.isBlank() ? value : defaultValue;
+	}
+}
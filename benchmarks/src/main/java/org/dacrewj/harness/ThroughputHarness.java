@@ -0,0 +1,206 @@
+package org.dacrewj.harness;
+
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.dacrewj.agent.DacrewAgentApplication;
+import org.dacrewj.agent.messaging.inbound.DacrewWorkConsumer;
+import org.dacrewj.agent.stub.LatencyProfile;
+import org.dacrewj.jira_ingester.JiraIngesterApplication;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+/**
+ * In-process end-to-end throughput test: boots jira_ingester and the agent in one JVM, with local stand-ins for
+ * RabbitMQ ({@link InMemoryBroker}), the LLM (the stub profile's StubChatModel) and Jira ({@link FakeJira}), sends
+ * signed webhooks at the target rate ({@link WebhookLoad}) and reports the sustained reviews per second and the
+ * end-to-end latency percentiles, from sending a webhook until its issue is transitioned in Jira.
+ * <p>
+ * Run with ./gradlew :benchmarks:throughput -PharnessArgs="--rate=5 --duration=2m"; see {@link HarnessOptions}
+ * for the options.
+ */
+public final class ThroughputHarness {
+
+	private static final Logger logger = LoggerFactory.getLogger(ThroughputHarness.class);
+
+	private static final String SECRET = "harness-secret";
+	private static final Duration SAMPLE_INTERVAL = Duration.ofMillis(200);
+	private static final int SAMPLES_PER_PROGRESS_LOG = 25;
+
+	private static final List<String> RABBIT_AUTO_CONFIGURATION = List.of(
+			"org.springframework.boot.autoconfigure.amqp",
+			"org.springframework.boot.actuate.autoconfigure.amqp",
+			"org.springframework.boot.actuate.autoconfigure.metrics.amqp");
+	private static final List<String> AGENT_AUTO_CONFIGURATION = List.of(
+			"com.embabel",
+			"org.springframework.ai",
+			"org.springframework.shell");
+
+	private ThroughputHarness() {
+	}
+
+	public static void main(String[] args) throws Exception {
+		var options = HarnessOptions.parse(args);
+		Path workDirectory = Files.createTempDirectory("dacrew-harness");
+		logger.info("Review store, comment index and Jira outbox in {}", workDirectory);
+		try (var jira = new FakeJira(LatencyProfile.fixed(options.jiraLatency()), options.jiraThrottling(), 42);
+			 var broker = new InMemoryBroker(options.prefetch());
+			 var agent = startAgent(options, jira, broker, workDirectory);
+			 var ingester = startIngester(options, broker);
+			 var load = new WebhookLoad(URI.create("http://127.0.0.1:" + port(ingester) + "/webhook/jira"), SECRET)) {
+			broker.consume(agent.getBean(MessageConverter.class), agent.getBean(DacrewWorkConsumer.class)::handleWork,
+					options.consumers());
+
+			var maxDepth = new AtomicInteger();
+			var samples = new AtomicLong();
+			var sampler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().daemon().factory());
+			sampler.scheduleAtFixedRate(() -> {
+				maxDepth.accumulateAndGet(broker.depth(), Math::max);
+				if (samples.incrementAndGet() % SAMPLES_PER_PROGRESS_LOG == 0) {
+					logger.info("Published {}, queued {}, unacknowledged {}, transitioned in Jira {}",
+							broker.published(), broker.depth(), broker.unacknowledged(), jira.transitions());
+				}
+			}, 0, SAMPLE_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+
+			logger.info("Sending {} webhooks at {}/s", options.webhooks(), options.rate());
+			long start = System.nanoTime();
+			load.run(options.webhooks(), options.rate());
+			long end = System.nanoTime();
+			drain(load.sent(), jira, options.drainTimeout());
+			sampler.shutdownNow();
+
+			report(options, load, broker, jira, start, end, maxDepth.get());
+		}
+	}
+
+	private static ConfigurableApplicationContext startAgent(HarnessOptions options, FakeJira jira, InMemoryBroker broker, Path workDirectory) {
+		var properties = commonProperties(RABBIT_AUTO_CONFIGURATION);
+		properties.put("dacrew.stub-llm.latency.profile", "lognormal");
+		properties.put("dacrew.stub-llm.latency.median", options.llmMedian().toMillis() + "ms");
+		properties.put("dacrew.jira.base-url", jira.baseUrl());
+		properties.put("dacrew.jira.auth-token", "harness");
+		properties.put("dacrew.jira.dry-run", "false");
+		properties.put("dacrew.jira.comment-index-file", workDirectory.resolve("jira-comments.json").toString());
+		properties.put("dacrew.jira.write-behind.directory", workDirectory.resolve("jira-outbox").toString());
+		properties.put("dacrew.review-store.directory", workDirectory.resolve("review-store").toString());
+		// Every webhook is a requirement of its own; reusing reviews would measure the similarity index instead
+		properties.put("dacrew.agents.requirement-reviewer.deduplication.enabled", "false");
+		properties.put("dacrew.agents.requirement-reviewer.deduplication.file", workDirectory.resolve("review-similarity.jsonl").toString());
+		properties.putAll(options.properties());
+		// The listener container is replaced by the in-memory broker; the starter finds no container to start
+		return start(new SpringApplicationBuilder(DacrewAgentApplication.class).profiles("server", "stub"), properties,
+				context -> {
+					context.getBeanFactory().registerSingleton("rabbitListenerEndpointRegistry", new RabbitListenerEndpointRegistry());
+					// Failed work is passed on for retry through the broker
+					context.getBeanFactory().registerSingleton("rabbitTemplate", broker.template());
+				});
+	}
+
+	private static ConfigurableApplicationContext startIngester(HarnessOptions options, InMemoryBroker broker) {
+		var excluded = new ArrayList<>(RABBIT_AUTO_CONFIGURATION);
+		excluded.addAll(AGENT_AUTO_CONFIGURATION);
+		var properties = commonProperties(excluded);
+		properties.put("app.webhook.secret", SECRET);
+		properties.put("app.webhook.signature-header", WebhookLoad.SIGNATURE_HEADER);
+		properties.put("management.server.port", "0");
+		properties.putAll(options.properties());
+		return start(new SpringApplicationBuilder(JiraIngesterApplication.class).profiles("server"), properties,
+				context -> context.getBeanFactory().registerSingleton("rabbitTemplate", broker.template()));
+	}
+
+	private static Map<String, Object> commonProperties(List<String> excludedAutoConfiguration) {
+		var properties = new LinkedHashMap<String, Object>();
+		properties.put("server.port", "0");
+		properties.put(AutoConfigurationPackageFilter.PROPERTY, String.join(",", excludedAutoConfiguration));
+		properties.put("management.health.rabbit.enabled", "false");
+		properties.put("spring.shell.interactive.enabled", "false");
+		properties.put("spring.shell.noninteractive.enabled", "false");
+		// Per-webhook logging would dominate the run
+		properties.put("logging.level.org.dacrewj", "WARN");
+		properties.put("logging.level.org.dacrewj.agent", "WARN");
+		properties.put("logging.level.org.dacrewj.harness", "INFO");
+		properties.put("logging.level.com.embabel", "WARN");
+		return properties;
+	}
+
+	/**
+	 * The harness properties take precedence over the applications' own configuration files.
+	 */
+	private static ConfigurableApplicationContext start(SpringApplicationBuilder builder, Map<String, Object> properties,
+			ApplicationContextInitializer<ConfigurableApplicationContext> initializer) {
+		var environment = new StandardEnvironment();
+		environment.getPropertySources().addFirst(new MapPropertySource("harness", properties));
+		return builder.environment(environment).initializers(initializer).run();
+	}
+
+	private static int port(ConfigurableApplicationContext context) {
+		return ((WebServerApplicationContext) context).getWebServer().getPort();
+	}
+
+	private static void drain(List<WebhookLoad.Sent> sent, FakeJira jira, Duration timeout) throws InterruptedException {
+		long deadline = System.nanoTime() + timeout.toNanos();
+		var accepted = sent.stream().filter(WebhookLoad.Sent::accepted).map(WebhookLoad.Sent::key).toList();
+		while (System.nanoTime() < deadline && accepted.stream().anyMatch(key -> jira.transitionedAt(key) == null)) {
+			Thread.sleep(SAMPLE_INTERVAL);
+		}
+	}
+
+	private static void report(HarnessOptions options, WebhookLoad load, InMemoryBroker broker, FakeJira jira,
+			long start, long end, int maxDepth) {
+		var sent = load.sent();
+		var accepted = sent.stream().filter(WebhookLoad.Sent::accepted).toList();
+		long warmupEnd = start + options.warmup().toNanos();
+
+		List<Long> ingest = accepted.stream().map(s -> s.respondedAt() - s.sentAt()).toList();
+		List<Long> endToEnd = accepted.stream()
+				.filter(s -> s.sentAt() >= warmupEnd)
+				.map(s -> {
+					Long transitioned = jira.transitionedAt(s.key());
+					return transitioned != null ? transitioned - s.sentAt() : null;
+				})
+				.filter(Objects::nonNull)
+				.toList();
+		long completed = accepted.stream().filter(s -> jira.transitionedAt(s.key()) != null).count();
+		// Reviews completed while the load was on, after the warm-up: the rate the system sustains under this load
+		long completedInWindow = accepted.stream()
+				.map(s -> jira.transitionedAt(s.key()))
+				.filter(t -> t != null && t >= warmupEnd && t <= end)
+				.count();
+		double sustained = completedInWindow / ((end - warmupEnd) / 1e9);
+
+		var out = System.out;
+		out.println();
+		out.printf("Throughput harness: %d webhooks at %.2f/s for %ds (first %ds left out), stub LLM median %dms, Jira latency %dms with %.0f%% 429s%n",
+				sent.size(), options.rate(), options.duration().toSeconds(), options.warmup().toSeconds(),
+				options.llmMedian().toMillis(), options.jiraLatency().toMillis(), options.jiraThrottling() * 100);
+		out.printf("  Webhooks     responses by status %s%n", load.statuses());
+		out.printf("  Ingest       %s%n", Percentiles.format(ingest));
+		out.printf("  Reviews      %d of %d accepted webhooks reviewed and transitioned, %d outstanding%n",
+				completed, accepted.size(), accepted.size() - completed);
+		out.printf("  Sustained    %.2f reviews/s%n", sustained);
+		out.printf("  End to end   %s (%d reviews)%n", Percentiles.format(endToEnd), endToEnd.size());
+		out.printf("  Broker       published %d, acknowledged %d, requeued %d, dropped %d, max depth %d%n",
+				broker.published(), broker.acknowledged(), broker.requeued(), broker.dropped(), maxDepth);
+		out.printf("  Jira         %d requests, %d comments created, %d issues transitioned, %d answered 429%n",
+				jira.requests(), jira.comments(), jira.transitions(), jira.throttled());
+		out.println();
+	}
+}
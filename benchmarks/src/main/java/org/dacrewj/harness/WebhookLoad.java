@@ -0,0 +1,129 @@
+package org.dacrewj.harness;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.security.GeneralSecurityException;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import org.dacrewj.agent.jira.JiraConstants;
+import org.dacrewj.contract.Fixtures;
+
+/**
+ * Sends signed Jira webhooks to the ingester at a fixed rate (open loop: a slow response does not delay the next
+ * webhook). Each webhook is the valid test fixture turned into a Draft Requirement with an issue key and
+ * description of its own, so that every webhook leads to a review of its own.
+ */
+final class WebhookLoad implements AutoCloseable {
+
+	static final String PROJECT = "LOAD";
+	static final String SIGNATURE_HEADER = "X-Hub-Signature";
+
+	private final ObjectMapper mapper = new ObjectMapper();
+	private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+	private final HttpClient http = HttpClient.newHttpClient();
+	private final URI endpoint;
+	private final WebhookSigner signer;
+	private final ObjectNode template;
+	private final ConcurrentLinkedQueue<Sent> sent = new ConcurrentLinkedQueue<>();
+	private final ConcurrentHashMap<Integer, AtomicLong> statuses = new ConcurrentHashMap<>();
+
+	WebhookLoad(URI endpoint, String secret) throws IOException {
+		this.endpoint = endpoint;
+		this.signer = new WebhookSigner(secret, WebhookSigner.DEFAULT_ALGORITHM);
+		this.template = (ObjectNode) mapper.readTree(Fixtures.read(Fixtures.VALID_WEBHOOK));
+	}
+
+	/**
+	 * Sends count webhooks, rate per second, and waits for the ingester's responses.
+	 */
+	void run(int count, double rate) throws InterruptedException {
+		long start = System.nanoTime();
+		long interval = Math.round(1e9 / rate);
+		for (int i = 0; i < count; i++) {
+			long due = start + i * interval;
+			for (long wait = due - System.nanoTime(); wait > 0; wait = due - System.nanoTime()) {
+				LockSupport.parkNanos(wait);
+			}
+			int n = i + 1;
+			senders.submit(() -> send(n));
+		}
+		senders.shutdown();
+		senders.awaitTermination(1, TimeUnit.MINUTES);
+	}
+
+	private void send(int n) {
+		String key = PROJECT + "-" + n;
+		int status;
+		long sentAt = System.nanoTime();
+		long respondedAt;
+		try {
+			byte[] body = payload(n, key);
+			var request = HttpRequest.newBuilder(endpoint)
+					.header("Content-Type", "application/json")
+					.header(SIGNATURE_HEADER, signer.sign(body))
+					.POST(HttpRequest.BodyPublishers.ofByteArray(body))
+					.build();
+			sentAt = System.nanoTime();
+			status = http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+		} catch (IOException | GeneralSecurityException e) {
+			status = -1;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			status = -1;
+		}
+		respondedAt = System.nanoTime();
+		statuses.computeIfAbsent(status, s -> new AtomicLong()).incrementAndGet();
+		sent.add(new Sent(key, sentAt, respondedAt, status >= 200 && status < 300));
+	}
+
+	private byte[] payload(int n, String key) throws IOException {
+		ObjectNode webhook = template.deepCopy();
+		webhook.put("timestamp", System.currentTimeMillis());
+		ObjectNode issue = webhook.withObject("/issue");
+		issue.put("id", String.valueOf(100000 + n));
+		issue.put("key", key);
+		ObjectNode fields = issue.withObject("/fields");
+		fields.withObject("/project").put("key", PROJECT);
+		fields.withObject("/issuetype").put("description", JiraConstants.DRAFT_REQUIREMENT);
+		fields.put("summary", "Load test requirement " + n);
+		fields.put("description", fields.path("description").asText() + "\nVariant " + n + ": the upgrade must be completed for module " + n + " before release " + (n % 7 + 1) + ".");
+		return mapper.writeValueAsBytes(webhook);
+	}
+
+	List<Sent> sent() {
+		return List.copyOf(sent);
+	}
+
+	/**
+	 * Number of responses per HTTP status; -1 counts webhooks which could not be sent.
+	 */
+	Map<Integer, Long> statuses() {
+		var counts = new TreeMap<Integer, Long>();
+		statuses.forEach((status, count) -> counts.put(status, count.get()));
+		return counts;
+	}
+
+	@Override
+	public void close() {
+		senders.shutdownNow();
+		http.close();
+	}
+
+	/**
+	 * A webhook sent, with System.nanoTime() of sending and of the ingester's response.
+	 */
+	record Sent(String key, long sentAt, long respondedAt, boolean accepted) {}
+}
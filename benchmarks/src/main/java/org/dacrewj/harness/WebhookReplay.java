@@ -0,0 +1,149 @@
+package org.dacrewj.harness;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays webhooks captured by the ingester (see {@link CapturedWebhook}) against a running ingester: every body is
+ * re-signed with the configured secret and algorithm and posted to the webhook endpoint.
+ * <p>
+ * By default the captured arrival times are kept, compressed by --speed; --rate sends at a fixed rate instead.
+ * At most --concurrency requests are in flight; if the ingester cannot keep up, sending falls behind the schedule,
+ * which the report shows as the maximum lag.
+ * <p>
+ * Run with ./gradlew :benchmarks:replay -PreplayArgs="--captures=logs --speed=10"; see {@link ReplayOptions}
+ * for the options.
+ */
+public final class WebhookReplay {
+
+	private WebhookReplay() {
+	}
+
+	public static void main(String[] args) throws Exception {
+		var options = ReplayOptions.parse(args);
+		var captures = CapturedWebhook.readAll(options.captures());
+		if (captures.isEmpty()) {
+			throw new IllegalStateException("No captured webhooks (webhook-*.log) in " + options.captures());
+		}
+		var signer = new WebhookSigner(options.secret(), options.algorithm());
+		var schedule = schedule(captures, options);
+
+		var http = HttpClient.newHttpClient();
+		var inFlight = new Semaphore(options.concurrency());
+		var statuses = new ConcurrentHashMap<Integer, AtomicLong>();
+		var latencies = new ConcurrentLinkedQueue<Long>();
+		var firstError = new AtomicReference<Exception>();
+		long maxLag = 0;
+		long start = System.nanoTime();
+		try (var senders = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (Scheduled scheduled : schedule) {
+				long due = start + scheduled.offsetNanos();
+				for (long wait = due - System.nanoTime(); wait > 0; wait = due - System.nanoTime()) {
+					LockSupport.parkNanos(wait);
+				}
+				inFlight.acquire();
+				maxLag = Math.max(maxLag, System.nanoTime() - due);
+				var webhook = scheduled.webhook();
+				senders.submit(() -> {
+					int status = -1;
+					long sentAt = System.nanoTime();
+					try {
+						var request = HttpRequest.newBuilder(uri(options.target(), webhook.query()))
+								.header("Content-Type", "application/json")
+								.header(options.signatureHeader(), signer.sign(webhook.body()))
+								.POST(HttpRequest.BodyPublishers.ofByteArray(webhook.body()))
+								.build();
+						sentAt = System.nanoTime();
+						status = http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+						latencies.add(System.nanoTime() - sentAt);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					} catch (Exception e) {
+						firstError.compareAndSet(null, e);
+					} finally {
+						statuses.computeIfAbsent(status, s -> new AtomicLong()).incrementAndGet();
+						inFlight.release();
+					}
+				});
+			}
+		}
+		long elapsed = System.nanoTime() - start;
+
+		var counts = new TreeMap<Integer, Long>();
+		statuses.forEach((status, count) -> counts.put(status, count.get()));
+		report(options, schedule.size(), captures.size(), elapsed, counts, List.copyOf(latencies), maxLag, firstError.get());
+	}
+
+	/**
+	 * Send times relative to the start of the replay. A repetition starts one average interval after the last
+	 * webhook of the previous one.
+	 */
+	static List<Scheduled> schedule(List<CapturedWebhook> captures, ReplayOptions options) {
+		int count = captures.size();
+		long[] offsets = new long[count];
+		var first = captures.getFirst().receivedAt();
+		for (int i = 0; i < count; i++) {
+			offsets[i] = options.rate() > 0
+					? Math.round(i * 1e9 / options.rate())
+					: Math.round(Duration.between(first, captures.get(i).receivedAt()).toNanos() / options.speed());
+		}
+		long last = offsets[count - 1];
+		long period = count > 1 ? last + last / (count - 1) : Math.round(1e9 / (options.rate() > 0 ? options.rate() : options.speed()));
+
+		var payloads = new ArrayList<>(captures);
+		var random = new Random(options.seed());
+		var schedule = new ArrayList<Scheduled>(count * options.repeat());
+		for (int repetition = 0; repetition < options.repeat(); repetition++) {
+			if (options.shuffle()) {
+				Collections.shuffle(payloads, random);
+			}
+			for (int i = 0; i < count; i++) {
+				schedule.add(new Scheduled(payloads.get(i), repetition * period + offsets[i]));
+			}
+		}
+		return schedule;
+	}
+
+	private static URI uri(URI target, String query) {
+		if (query == null || query.isEmpty()) {
+			return target;
+		}
+		return URI.create(target + (target.getRawQuery() == null ? "?" : "&") + query);
+	}
+
+	private static void report(ReplayOptions options, int sent, int captured, long elapsedNanos, Map<Integer, Long> statuses,
+			List<Long> latencies, long maxLagNanos, Exception firstError) {
+		var out = System.out;
+		double seconds = elapsedNanos / 1e9;
+		out.println();
+		out.printf("Replayed %d webhooks (%d captured x %d) to %s in %.1fs, %.2f/s, %s, concurrency %d%s%n",
+				sent, captured, options.repeat(), options.target(), seconds, sent / seconds,
+				options.rate() > 0 ? "at %.2f/s".formatted(options.rate()) : "at the captured times, speed %.1f".formatted(options.speed()),
+				options.concurrency(), options.shuffle() ? ", shuffled" : "");
+		out.printf("  Responses    by status %s (-1: not sent)%n", statuses);
+		out.printf("  Latency      %s%n", Percentiles.format(latencies));
+		out.printf("  Max lag      %.1f ms behind schedule%n", maxLagNanos / 1e6);
+		if (firstError != null) {
+			out.printf("  First error  %s%n", firstError);
+		}
+		out.println();
+	}
+
+	record Scheduled(CapturedWebhook webhook, long offsetNanos) {}
+}
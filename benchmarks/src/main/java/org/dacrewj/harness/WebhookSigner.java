@@ -0,0 +1,34 @@
+package org.dacrewj.harness;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.HexFormat;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Signs webhook bodies the way WebhookSecurityConfig verifies them: the hex HMAC of the body, prefixed with "sha256="
+ * for HmacSHA256 (the format Jira sends) and bare for any other algorithm.
+ */
+final class WebhookSigner {
+
+	static final String DEFAULT_ALGORITHM = "HmacSHA256";
+
+	private final SecretKeySpec key;
+	private final String algorithm;
+
+	WebhookSigner(String secret, String algorithm) {
+		if (secret == null || secret.isEmpty()) {
+			throw new IllegalArgumentException("The webhook secret is missing");
+		}
+		this.key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), algorithm);
+		this.algorithm = algorithm;
+	}
+
+	String sign(byte[] body) throws GeneralSecurityException {
+		Mac mac = Mac.getInstance(algorithm);
+		mac.init(key);
+		String hex = HexFormat.of().formatHex(mac.doFinal(body));
+		return DEFAULT_ALGORITHM.equalsIgnoreCase(algorithm) ? "sha256=" + hex : hex;
+	}
+}
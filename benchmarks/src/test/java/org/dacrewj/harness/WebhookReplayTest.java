@@ -0,0 +1,95 @@
+package org.dacrewj.harness;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WebhookReplayTest {
+
+	@TempDir
+	Path captures;
+
+	@Test
+	void readsCapturesInTheOrderTheyWereReceived() throws Exception {
+		capture("webhook-20250828T155445.log", """
+				Webhook received at: 2025-08-28T15:54:45.500+02:00[Europe/Zurich]
+				Webhook payload:
+				{
+				  "timestamp" : 2,
+				  "webhookEvent" : "jira:issue_updated"
+				}
+				""");
+		capture("webhook-20250828T155444.log", """
+				Webhook received at: 2025-08-28T15:54:44.250+02:00[Europe/Zurich]
+				Query parameters: user_id=abc&user_key=def
+				Webhook payload (raw):
+				not json
+				""");
+		capture("other.log", "ignored");
+
+		var webhooks = CapturedWebhook.readAll(captures);
+
+		assertThat(webhooks).hasSize(2);
+		assertThat(webhooks.get(0).receivedAt()).isEqualTo(Instant.parse("2025-08-28T13:54:44.250Z"));
+		assertThat(webhooks.get(0).query()).isEqualTo("user_id=abc&user_key=def");
+		assertThat(new String(webhooks.get(0).body(), StandardCharsets.UTF_8)).isEqualTo("not json");
+		assertThat(webhooks.get(1).query()).isNull();
+		// Pretty-printed JSON is compacted again
+		assertThat(new String(webhooks.get(1).body(), StandardCharsets.UTF_8))
+				.isEqualTo("{\"timestamp\":2,\"webhookEvent\":\"jira:issue_updated\"}");
+	}
+
+	@Test
+	void rejectsFilesWhichAreNoCaptures() throws Exception {
+		Path file = capture("webhook-broken.log", "something else\n");
+
+		assertThatThrownBy(() -> CapturedWebhook.read(file)).hasMessageContaining("not a captured webhook");
+	}
+
+	@Test
+	void keepsTheCapturedIntervalsCompressedBySpeed() {
+		var webhooks = List.of(webhook(0), webhook(1000), webhook(4000));
+
+		var schedule = WebhookReplay.schedule(webhooks, ReplayOptions.parse("--secret=s", "--speed=10", "--repeat=2"));
+
+		assertThat(schedule).extracting(WebhookReplay.Scheduled::offsetNanos)
+				.containsExactly(0L, 100_000_000L, 400_000_000L, 600_000_000L, 700_000_000L, 1_000_000_000L);
+	}
+
+	@Test
+	void sendsAtAFixedRateInShuffledOrder() {
+		var webhooks = List.of(webhook(0), webhook(1), webhook(2), webhook(3), webhook(4), webhook(5));
+
+		var schedule = WebhookReplay.schedule(webhooks, ReplayOptions.parse("--secret=s", "--rate=4", "--shuffle"));
+
+		assertThat(schedule).extracting(WebhookReplay.Scheduled::offsetNanos)
+				.containsExactly(0L, 250_000_000L, 500_000_000L, 750_000_000L, 1_000_000_000L, 1_250_000_000L);
+		assertThat(schedule).extracting(WebhookReplay.Scheduled::webhook)
+				.containsExactlyInAnyOrderElementsOf(webhooks)
+				.isNotEqualTo(webhooks);
+	}
+
+	@Test
+	void signsLikeTheIngesterExpects() throws Exception {
+		// RFC 4231, test case 2
+		var signer = new WebhookSigner("Jefe", "HmacSHA256");
+
+		assertThat(signer.sign("what do ya want for nothing?".getBytes(StandardCharsets.UTF_8)))
+				.isEqualTo("sha256=5bdcc146bf60754e6a042426089575c75a003f089d2739839dec58b964ec3843");
+	}
+
+	private Path capture(String name, String content) throws Exception {
+		return Files.writeString(captures.resolve(name), content);
+	}
+
+	private static CapturedWebhook webhook(long millis) {
+		return new CapturedWebhook(Path.of("webhook-" + millis + ".log"), Instant.ofEpochMilli(millis), null, new byte[0]);
+	}
+}
@@ -1,10 +1,28 @@
 plugins {
     kotlin("jvm") version "2.1.0"
+    // Versions for the modules that apply them
+    id("org.springframework.boot") version "3.5.5" apply false
+    id("io.spring.dependency-management") version "1.1.7" apply false
 }
 
 allprojects {
     repositories {
         mavenCentral()
+        // Embabel and Spring AI, for the agent and for the modules that run it
+        maven {
+            name = "embabel-releases"
+            url = uri("https://repo.embabel.com/artifactory/libs-release")
+            mavenContent { releasesOnly() }
+        }
+        maven {
+            name = "embabel-snapshots"
+            url = uri("https://repo.embabel.com/artifactory/libs-snapshot")
+            mavenContent { snapshotsOnly() }
+        }
+        maven {
+            name = "spring-milestones"
+            url = uri("https://repo.spring.io/milestone")
+        }
     }
 }
 
@@ -12,6 +30,12 @@ subprojects {
     // Common configuration for all subprojects can go here in future.
     plugins.apply("java")
 
+    extensions.configure<JavaPluginExtension> {
+        toolchain {
+            languageVersion.set(JavaLanguageVersion.of(21))
+        }
+    }
+
     dependencies {
         testImplementation("org.assertj:assertj-core:3.26.0")
     }
@@ -6,12 +6,6 @@ tasks.register("prepareKotlinBuildScriptModel") {
     // no-op for IDE compatibility with Kotlin DSL model task
 }
 
-java {
-    toolchain {
-        languageVersion.set(JavaLanguageVersion.of(21))
-    }
-}
-
 repositories {
     mavenCentral()
 }
@@ -0,0 +1,228 @@
+package org.dacrewj.contract;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits an {@link AdfDocument} into several valid documents whose plain text (as counted by
+ * {@link AdfDocument#previewText(int)}) is each at most a given length.
+ * <p>
+ * Pages break between top-level blocks where possible. A block that does not fit on a page of its own is split
+ * between its children (e.g. between the list items of a bullet list), each fragment being wrapped in a copy of
+ * the enclosing node so that every page stays well-formed. Only a single text run longer than a whole page is cut,
+ * preferably at whitespace. A heading is never left as the last block of a page.
+ * <p>
+ * Text lengths are measured once, bottom-up, before any page is assembled.
+ */
+public final class AdfPaginator {
+
+	private final int maxLength;
+	private final List<AdfDocument> pages = new ArrayList<>();
+	private final List<Sized> current = new ArrayList<>();
+	private int used;
+
+	private AdfPaginator(int maxLength) {
+		this.maxLength = maxLength;
+	}
+
+	/**
+	 * @return the pages in order; the document itself if it already fits or maxLength is not positive
+	 */
+	public static List<AdfDocument> paginate(AdfDocument document, int maxLength) {
+		if (maxLength <= 0 || document.content() == null || document.content().isEmpty()) {
+			return List.of(document);
+		}
+		var blocks = new ArrayList<Sized>(document.content().size());
+		int total = 0;
+		for (AdfDocument.Node node : document.content()) {
+			if (node == null) {
+				continue;
+			}
+			Sized sized = measure(node);
+			blocks.add(sized);
+			total += sized.length();
+		}
+		if (total <= maxLength) {
+			return List.of(document);
+		}
+		var paginator = new AdfPaginator(maxLength);
+		for (Sized block : blocks) {
+			paginator.place(block);
+		}
+		paginator.flush();
+		return List.copyOf(paginator.pages);
+	}
+
+	private void place(Sized block) {
+		if (used + block.length() <= maxLength) {
+			add(block);
+			return;
+		}
+		if (block.length() <= maxLength) {
+			Sized heading = trailingHeading(maxLength - block.length());
+			flush();
+			if (heading != null) {
+				add(heading);
+			}
+			add(block);
+			return;
+		}
+		var fragments = split(block, maxLength - used);
+		if (fragments.get(0) == null) {
+			// Nothing of the block fits here: move a trailing heading over to the page where the block starts
+			Sized heading = trailingHeading(maxLength - 1);
+			if (heading != null) {
+				flush();
+				add(heading);
+				fragments = split(block, maxLength - used);
+			}
+		}
+		for (int i = 0; i < fragments.size(); i++) {
+			if (i > 0) {
+				flush();
+			}
+			if (fragments.get(i) != null) {
+				add(fragments.get(i));
+			}
+		}
+	}
+
+	private void add(Sized block) {
+		current.add(block);
+		used += block.length();
+	}
+
+	/**
+	 * Removes and returns the last block of the current page if it is a heading no longer than maxHeadingLength
+	 * and not the only block of the page.
+	 */
+	private Sized trailingHeading(int maxHeadingLength) {
+		if (current.size() < 2) {
+			return null;
+		}
+		Sized last = current.get(current.size() - 1);
+		if (!"heading".equals(last.node().type()) || last.length() > maxHeadingLength) {
+			return null;
+		}
+		current.remove(current.size() - 1);
+		used -= last.length();
+		return last;
+	}
+
+	private void flush() {
+		if (current.isEmpty()) {
+			return;
+		}
+		pages.add(new AdfDocument("doc", 1, current.stream().map(Sized::node).toList()));
+		current.clear();
+		used = 0;
+	}
+
+	/**
+	 * Splits an oversized node into fragments. The first fragment fits into firstBudget (null if nothing fits there),
+	 * every following fragment fits into a page of its own.
+	 */
+	private List<Sized> split(Sized sized, int firstBudget) {
+		AdfDocument.Node node = sized.node();
+		var fragments = new ArrayList<Sized>();
+		if (sized.children().isEmpty()) {
+			splitText(node, firstBudget, fragments);
+			return fragments;
+		}
+
+		int budget = firstBudget;
+		var children = new ArrayList<AdfDocument.Node>();
+		int used = 0;
+		for (Sized child : sized.children()) {
+			if (used + child.length() <= budget) {
+				children.add(child.node());
+				used += child.length();
+				continue;
+			}
+			if (child.length() <= maxLength) {
+				fragments.add(children.isEmpty() ? null : wrap(node, children, used));
+				children = new ArrayList<>();
+				children.add(child.node());
+				used = child.length();
+				budget = maxLength;
+				continue;
+			}
+			var parts = split(child, budget - used);
+			for (int i = 0; i < parts.size(); i++) {
+				Sized part = parts.get(i);
+				if (i > 0) {
+					fragments.add(children.isEmpty() ? null : wrap(node, children, used));
+					children = new ArrayList<>();
+					used = 0;
+					budget = maxLength;
+				}
+				if (part != null) {
+					children.add(part.node());
+					used += part.length();
+				}
+			}
+		}
+		fragments.add(children.isEmpty() ? null : wrap(node, children, used));
+		return fragments;
+	}
+
+	private void splitText(AdfDocument.Node node, int firstBudget, List<Sized> fragments) {
+		String text = node.text() != null ? node.text() : "";
+		int budget = firstBudget;
+		int pos = 0;
+		if (text.isEmpty()) {
+			fragments.add(new Sized(node, 0, List.of()));
+			return;
+		}
+		while (pos < text.length()) {
+			int end = breakPoint(text, pos, budget);
+			if (end == pos) {
+				fragments.add(null);
+			} else {
+				String part = text.substring(pos, end);
+				fragments.add(new Sized(new AdfDocument.Node(node.type(), node.attrs(), null, part, node.marks()), part.length(), List.of()));
+				pos = end;
+			}
+			budget = maxLength;
+		}
+	}
+
+	private static int breakPoint(String text, int pos, int budget) {
+		if (budget <= 0) {
+			return pos;
+		}
+		int end = Math.min(text.length(), pos + budget);
+		if (end < text.length()) {
+			int space = text.lastIndexOf(' ', end - 1);
+			if (space > pos) {
+				end = space + 1;
+			} else if (Character.isHighSurrogate(text.charAt(end - 1)) && end - 1 > pos) {
+				end--;
+			}
+		}
+		return end;
+	}
+
+	private static Sized wrap(AdfDocument.Node container, List<AdfDocument.Node> children, int length) {
+		return new Sized(new AdfDocument.Node(container.type(), container.attrs(), List.copyOf(children), container.text(), container.marks()), length, List.of());
+	}
+
+	private static Sized measure(AdfDocument.Node node) {
+		int length = node.text() != null ? node.text().length() : 0;
+		if (node.content() == null || node.content().isEmpty()) {
+			return new Sized(node, length, List.of());
+		}
+		var children = new ArrayList<Sized>(node.content().size());
+		for (AdfDocument.Node child : node.content()) {
+			if (child == null) {
+				continue;
+			}
+			Sized sized = measure(child);
+			children.add(sized);
+			length += sized.length();
+		}
+		return new Sized(node, length, children);
+	}
+
+	private record Sized(AdfDocument.Node node, int length, List<Sized> children) {}
+}
@@ -0,0 +1,213 @@
+package org.dacrewj.contract;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming Atlassian Document Format (ADF) builder which writes straight to a Jackson {@link JsonGenerator},
+ * without building an {@link AdfDocument.Node} tree first.
+ * <p>
+ * The writer keeps count of the plain-text characters written (the same characters
+ * {@link AdfDocument#previewText(int)} would return), so callers can enforce length limits without a second pass.
+ * Output is field-for-field identical to serialising the equivalent {@link AdfDocument} with an ObjectMapper.
+ */
+public final class AdfWriter implements Closeable {
+
+	private static final JsonFactory FACTORY = JsonFactory.builder()
+			.disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+			.build();
+
+	private final JsonGenerator generator;
+	private long textLength;
+
+	public AdfWriter(JsonGenerator generator) {
+		this.generator = generator;
+	}
+
+	/**
+	 * Creates a writer producing UTF-8 JSON on the given stream. Closing the writer flushes but does not close the stream.
+	 */
+	public static AdfWriter to(OutputStream out) throws IOException {
+		return new AdfWriter(FACTORY.createGenerator(out, JsonEncoding.UTF8));
+	}
+
+	/**
+	 * Number of plain-text characters written so far.
+	 */
+	public long textLength() {
+		return textLength;
+	}
+
+	public AdfWriter startDocument() throws IOException {
+		generator.writeStartObject();
+		generator.writeStringField("type", "doc");
+		generator.writeNumberField("version", 1);
+		generator.writeArrayFieldStart("content");
+		return this;
+	}
+
+	public AdfWriter endDocument() throws IOException {
+		generator.writeEndArray();
+		generator.writeEndObject();
+		return this;
+	}
+
+	public AdfWriter heading(int level, String text) throws IOException {
+		generator.writeStartObject();
+		generator.writeStringField("type", "heading");
+		generator.writeObjectFieldStart("attrs");
+		generator.writeNumberField("level", level);
+		generator.writeEndObject();
+		generator.writeArrayFieldStart("content");
+		text(text);
+		generator.writeEndArray();
+		generator.writeEndObject();
+		return this;
+	}
+
+	public AdfWriter paragraph(String text) throws IOException {
+		generator.writeStartObject();
+		generator.writeStringField("type", "paragraph");
+		generator.writeArrayFieldStart("content");
+		text(text);
+		generator.writeEndArray();
+		generator.writeEndObject();
+		return this;
+	}
+
+	/**
+	 * Writes a bullet list with one paragraph per item.
+	 */
+	public AdfWriter bulletList(List<String> items) throws IOException {
+		generator.writeStartObject();
+		generator.writeStringField("type", "bulletList");
+		generator.writeArrayFieldStart("content");
+		for (String item : items) {
+			generator.writeStartObject();
+			generator.writeStringField("type", "listItem");
+			generator.writeArrayFieldStart("content");
+			paragraph(item);
+			generator.writeEndArray();
+			generator.writeEndObject();
+		}
+		generator.writeEndArray();
+		generator.writeEndObject();
+		return this;
+	}
+
+	/**
+	 * Writes a complete document held as a tree.
+	 */
+	public AdfWriter document(AdfDocument document) throws IOException {
+		generator.writeStartObject();
+		generator.writeStringField("type", document.type());
+		generator.writeNumberField("version", document.version());
+		if (document.content() != null) {
+			generator.writeArrayFieldStart("content");
+			for (AdfDocument.Node node : document.content()) {
+				node(node);
+			}
+			generator.writeEndArray();
+		}
+		generator.writeEndObject();
+		return this;
+	}
+
+	/**
+	 * Writes an arbitrary node (and its children) held as a tree.
+	 */
+	public AdfWriter node(AdfDocument.Node node) throws IOException {
+		if (node == null) {
+			generator.writeNull();
+			return this;
+		}
+		generator.writeStartObject();
+		if (node.type() != null) {
+			generator.writeStringField("type", node.type());
+		}
+		if (node.attrs() != null) {
+			generator.writeFieldName("attrs");
+			value(node.attrs());
+		}
+		if (node.content() != null) {
+			generator.writeArrayFieldStart("content");
+			for (AdfDocument.Node child : node.content()) {
+				node(child);
+			}
+			generator.writeEndArray();
+		}
+		if (node.text() != null) {
+			generator.writeStringField("text", node.text());
+			textLength += node.text().length();
+		}
+		if (node.marks() != null) {
+			generator.writeArrayFieldStart("marks");
+			for (AdfDocument.Mark mark : node.marks()) {
+				generator.writeStartObject();
+				if (mark.type() != null) {
+					generator.writeStringField("type", mark.type());
+				}
+				if (mark.attrs() != null) {
+					generator.writeFieldName("attrs");
+					value(mark.attrs());
+				}
+				generator.writeEndObject();
+			}
+			generator.writeEndArray();
+		}
+		generator.writeEndObject();
+		return this;
+	}
+
+	private void text(String text) throws IOException {
+		generator.writeStartObject();
+		generator.writeStringField("type", "text");
+		generator.writeStringField("text", text);
+		generator.writeEndObject();
+		textLength += text.length();
+	}
+
+	private void value(Object value) throws IOException {
+		if (value == null) {
+			generator.writeNull();
+		} else if (value instanceof String s) {
+			generator.writeString(s);
+		} else if (value instanceof Integer i) {
+			generator.writeNumber(i);
+		} else if (value instanceof Long l) {
+			generator.writeNumber(l);
+		} else if (value instanceof Number n) {
+			generator.writeNumber(n.toString());
+		} else if (value instanceof Boolean b) {
+			generator.writeBoolean(b);
+		} else if (value instanceof Map<?, ?> map) {
+			generator.writeStartObject();
+			for (var entry : map.entrySet()) {
+				generator.writeFieldName(String.valueOf(entry.getKey()));
+				value(entry.getValue());
+			}
+			generator.writeEndObject();
+		} else if (value instanceof Iterable<?> items) {
+			generator.writeStartArray();
+			for (Object item : items) {
+				value(item);
+			}
+			generator.writeEndArray();
+		} else {
+			generator.writeString(value.toString());
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		generator.close();
+	}
+}
@@ -0,0 +1,91 @@
+package org.dacrewj.contract;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.*;
+
+class AdfPaginatorTest {
+
+    private static AdfDocument.Node text(String text) {
+        return new AdfDocument.Node("text", null, null, text, null);
+    }
+
+    private static AdfDocument.Node paragraph(String text) {
+        return new AdfDocument.Node("paragraph", null, List.of(text(text)), null, null);
+    }
+
+    private static AdfDocument.Node heading(String text) {
+        return new AdfDocument.Node("heading", Map.of("level", 2), List.of(text(text)), null, null);
+    }
+
+    private static AdfDocument.Node bulletList(String... lines) {
+        var items = new ArrayList<AdfDocument.Node>();
+        for (String line : lines) {
+            items.add(new AdfDocument.Node("listItem", null, List.of(paragraph(line)), null, null));
+        }
+        return new AdfDocument.Node("bulletList", null, items, null, null);
+    }
+
+    private static AdfDocument sample() {
+        return new AdfDocument("doc", 1, List.of(
+                heading("Title"),
+                paragraph("intro text here"),
+                heading("Feedback"),
+                bulletList("aaaaaaaaaa", "bbbbbbbbbb", "cccccccccc", "dddddddddd"),
+                heading("Conclusion"),
+                paragraph("x".repeat(45) + " yy zz")
+        ));
+    }
+
+    private static String allText(List<AdfDocument> pages) {
+        return pages.stream().map(p -> p.previewText(Integer.MAX_VALUE)).collect(Collectors.joining());
+    }
+
+    @Test
+    void documentWithinLimitIsReturnedUnchanged() {
+        var doc = sample();
+        assertThat(AdfPaginator.paginate(doc, 1000)).containsExactly(doc);
+    }
+
+    @Test
+    void everyPageRespectsLimitAndNoTextIsLost() {
+        var doc = sample();
+        for (int max : new int[]{12, 20, 30, 64}) {
+            var pages = AdfPaginator.paginate(doc, max);
+            assertThat(pages).as("max %d", max).hasSizeGreaterThan(1);
+            assertThat(pages).allSatisfy(p -> assertThat(p.previewText(Integer.MAX_VALUE).length()).isLessThanOrEqualTo(max));
+            assertThat(allText(pages)).isEqualTo(doc.previewText(Integer.MAX_VALUE));
+        }
+    }
+
+    @Test
+    void listIsSplitBetweenItemsAndEachFragmentStaysAList() {
+        var pages = AdfPaginator.paginate(sample(), 30);
+
+        var second = pages.get(1).content();
+        assertThat(second.get(0).type()).isEqualTo("heading");
+        assertThat(second.get(1).type()).isEqualTo("bulletList");
+        assertThat(second.get(1).content()).hasSize(2);
+        assertThat(second.get(1).content()).allSatisfy(item -> assertThat(item.type()).isEqualTo("listItem"));
+
+        var third = pages.get(2).content();
+        assertThat(third.get(0).type()).isEqualTo("bulletList");
+        assertThat(new AdfDocument("doc", 1, third).previewText(Integer.MAX_VALUE)).isEqualTo("ccccccccccdddddddddd");
+    }
+
+    @Test
+    void headingIsNotLeftAtTheEndOfAPage() {
+        var pages = AdfPaginator.paginate(sample(), 20);
+        for (var page : pages) {
+            var content = page.content();
+            if (content.size() > 1) {
+                assertThat(content.get(content.size() - 1).type()).isNotEqualTo("heading");
+            }
+        }
+    }
+}
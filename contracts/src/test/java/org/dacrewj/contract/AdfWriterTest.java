@@ -0,0 +1,67 @@
+package org.dacrewj.contract;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+class AdfWriterTest {
+
+    private static AdfDocument.Node text(String text) {
+        return new AdfDocument.Node("text", null, null, text, null);
+    }
+
+    private static AdfDocument.Node paragraph(String text) {
+        return new AdfDocument.Node("paragraph", null, List.of(text(text)), null, null);
+    }
+
+    private static AdfDocument.Node listItem(String text) {
+        return new AdfDocument.Node("listItem", null, List.of(paragraph(text)), null, null);
+    }
+
+    @Test
+    void builderOutputMatchesSerialisedTree() throws Exception {
+        var tree = new AdfDocument("doc", 1, List.of(
+                new AdfDocument.Node("heading", Map.of("level", 1), List.of(text("Title")), null, null),
+                paragraph("Some \"quoted\" text – with unicode"),
+                new AdfDocument.Node("bulletList", null, List.of(listItem("one"), listItem("two")), null, null)
+        ));
+
+        var out = new ByteArrayOutputStream();
+        long textLength;
+        try (var writer = AdfWriter.to(out)) {
+            writer.startDocument()
+                    .heading(1, "Title")
+                    .paragraph("Some \"quoted\" text – with unicode")
+                    .bulletList(List.of("one", "two"))
+                    .endDocument();
+            textLength = writer.textLength();
+        }
+
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo(new ObjectMapper().writeValueAsString(tree));
+        assertThat(textLength).isEqualTo(tree.previewText(Integer.MAX_VALUE).length());
+    }
+
+    @Test
+    void documentOutputMatchesObjectMapperIncludingMarks() throws Exception {
+        var marked = new AdfDocument.Node("text", null, null, "bold", List.of(new AdfDocument.Mark("strong", null)));
+        var tree = new AdfDocument("doc", 1, List.of(
+                new AdfDocument.Node("paragraph", null, List.of(marked, text(" and plain")), null, null)
+        ));
+
+        var out = new ByteArrayOutputStream();
+        long textLength;
+        try (var writer = AdfWriter.to(out)) {
+            writer.document(tree);
+            textLength = writer.textLength();
+        }
+
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo(new ObjectMapper().writeValueAsString(tree));
+        assertThat(textLength).isEqualTo("bold and plain".length());
+    }
+}
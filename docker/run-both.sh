@@ -27,9 +27,12 @@ echo "Starting jira_ingester on port ${INGESTER_PORT}..."
 sh -c "$INGESTER_CMD" >"$LOG_DIR/ingester.log" 2>&1 &
 INGESTER_PID=$!
 
+# Always-on flight recording of the agent (see DEVELOPER.md); set AGENT_JFR_OPTS="" to disable
+AGENT_JFR_OPTS=${AGENT_JFR_OPTS-"-XX:StartFlightRecording=name=dacrew,settings=default,disk=true,maxage=6h,maxsize=512m,dumponexit=true,filename=$LOG_DIR/agent-exit.jfr"}
+
 # Start agent on 8080
 AGENT_PORT=${AGENT_PORT:-8080}
-AGENT_CMD="java $JAVA_OPTS $AGENT_JAVA_OPTS -Dserver.port=${AGENT_PORT} -jar /app/agent.jar"
+AGENT_CMD="java $JAVA_OPTS $AGENT_JFR_OPTS $AGENT_JAVA_OPTS -Dserver.port=${AGENT_PORT} -jar /app/agent.jar"
 echo "Starting agent on port ${AGENT_PORT}..."
 sh -c "$AGENT_CMD" >"$LOG_DIR/agent.log" 2>&1 &
 AGENT_PID=$!
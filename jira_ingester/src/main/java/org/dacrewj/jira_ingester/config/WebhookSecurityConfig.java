@@ -1,6 +1,9 @@
 package org.dacrewj.jira_ingester.config;
 
+import io.micrometer.observation.ObservationRegistry;
 import jakarta.annotation.PostConstruct;
+import org.dacrewj.jira_ingester.metrics.IngestMetrics;
+import org.dacrewj.messaging.Stages;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -31,6 +34,14 @@ public class WebhookSecurityConfig implements WebMvcConfigurer {
     @Value("${app.webhook.algorithm:HmacSHA256}")
     private String algorithm;
 
+    private final ObservationRegistry observationRegistry;
+    private final IngestMetrics ingestMetrics;
+
+    public WebhookSecurityConfig(ObservationRegistry observationRegistry, IngestMetrics ingestMetrics) {
+        this.observationRegistry = observationRegistry;
+        this.ingestMetrics = ingestMetrics;
+    }
+
     @PostConstruct
     void logConfig() {
         if (!StringUtils.hasText(webhookSecret)) {
@@ -42,6 +53,8 @@ public class WebhookSecurityConfig implements WebMvcConfigurer {
 
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
+        // Counts every webhook request, including those rejected below
+        registry.addInterceptor(ingestMetrics.activeRequestsInterceptor()).addPathPatterns("/webhook/jira");
         // HMAC must run first
         registry.addInterceptor(new HmacInterceptor()).addPathPatterns("/webhook/jira");
         // Then log the webhook safely after signature verification
@@ -65,17 +78,12 @@ public class WebhookSecurityConfig implements WebMvcConfigurer {
                     return false;
                 }
 
-                byte[] body = request.getInputStream().readAllBytes();
-
-                // Compute HMAC
-                Mac mac = Mac.getInstance(algorithm);
-                mac.init(new SecretKeySpec(webhookSecret.getBytes(StandardCharsets.UTF_8), algorithm));
-                byte[] digest = mac.doFinal(body);
-                String expectedHex = toHex(digest);
+                byte[] body = Stages.observation(Stages.BODY_READ, observationRegistry)
+                        .observeChecked(() -> request.getInputStream().readAllBytes());
+                ingestMetrics.payloadSize(body.length);
 
-                // Common format: "sha256=hexdigest"; accept raw hex too.
-                String expectedPrefixed = "sha256=" + expectedHex;
-                boolean match = constantTimeEquals(provided, expectedPrefixed) || constantTimeEquals(provided, expectedHex);
+                boolean match = Stages.observation(Stages.HMAC, observationRegistry)
+                        .observeChecked(() -> verify(provided, body));
 
                 if (!match) {
                     log.warn("Invalid HMAC signature. Received header: {}", provided);
@@ -95,6 +103,18 @@ public class WebhookSecurityConfig implements WebMvcConfigurer {
             }
         }
 
+        private boolean verify(String provided, byte[] body) throws Exception {
+            // Compute HMAC
+            Mac mac = Mac.getInstance(algorithm);
+            mac.init(new SecretKeySpec(webhookSecret.getBytes(StandardCharsets.UTF_8), algorithm));
+            byte[] digest = mac.doFinal(body);
+            String expectedHex = toHex(digest);
+
+            // Common format: "sha256=hexdigest"; accept raw hex too.
+            String expectedPrefixed = "sha256=" + expectedHex;
+            return constantTimeEquals(provided, expectedPrefixed) || constantTimeEquals(provided, expectedHex);
+        }
+
         private String toHex(byte[] bytes) {
             StringBuilder sb = new StringBuilder(bytes.length * 2);
             for (byte b : bytes) {
@@ -121,6 +141,9 @@ public class WebhookSecurityConfig implements WebMvcConfigurer {
         @Value("${app.webhook.log-dir:}")
         private String configuredLogDir;
 
+        // Keeps the names of webhooks arriving within the same millisecond apart
+        private final java.util.concurrent.atomic.AtomicLong sequence = new java.util.concurrent.atomic.AtomicLong();
+
         @Override
         public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
             try {
@@ -138,8 +161,8 @@ public class WebhookSecurityConfig implements WebMvcConfigurer {
                 java.nio.file.Path logPath = java.nio.file.Path.of(dir);
                 java.nio.file.Files.createDirectories(logPath);
 
-                String timestamp = java.time.LocalDateTime.now().format(java.time.format.DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss"));
-                java.nio.file.Path file = logPath.resolve("webhook-" + timestamp + ".log");
+                String timestamp = java.time.LocalDateTime.now().format(java.time.format.DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmssSSS"));
+                java.nio.file.Path file = logPath.resolve("webhook-" + timestamp + "-" + sequence.incrementAndGet() + ".log");
 
                 StringBuilder sb = new StringBuilder();
                 sb.append("Webhook received at: ").append(java.time.ZonedDateTime.now().toString()).append('\n');
@@ -160,7 +183,7 @@ public class WebhookSecurityConfig implements WebMvcConfigurer {
                     sb.append("Webhook payload (raw):\n").append(new String(body, java.nio.charset.StandardCharsets.UTF_8)).append('\n');
                 }
 
-                java.nio.file.Files.writeString(file, sb.toString(), java.nio.charset.StandardCharsets.UTF_8);
+                java.nio.file.Files.writeString(file, sb.toString(), java.nio.charset.StandardCharsets.UTF_8, java.nio.file.StandardOpenOption.CREATE_NEW);
                 log.info("Webhook logged to: {}", file);
             } catch (Exception e) {
                 log.error("Failed to log webhook request", e);
@@ -2,17 +2,25 @@ package org.dacrewj.jira_ingester.controller;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.observation.ObservationRegistry;
 import jakarta.servlet.http.HttpServletRequest;
 import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import org.dacrewj.contract.DacrewWork;
 import org.dacrewj.contract.JiraModels;
 import org.dacrewj.contract.Source;
+import org.dacrewj.jira_ingester.metrics.IngestMetrics;
+import org.dacrewj.jira_ingester.shedding.LoadShedder;
+import org.dacrewj.messaging.Stages;
+import org.dacrewj.messaging.WorkLanes;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.amqp.core.Queue;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -30,19 +38,27 @@ public class WebhookController {
 	private final ObjectMapper objectMapper;
 	private final RabbitTemplate rabbitTemplate;
 	private final Queue dacrewQueue;
+	private final ObservationRegistry observationRegistry;
+	private final IngestMetrics ingestMetrics;
+	private final LoadShedder loadShedder;
 
-	public WebhookController(ObjectMapper objectMapper, RabbitTemplate rabbitTemplate, Queue dacrewQueue) {
+	public WebhookController(ObjectMapper objectMapper, RabbitTemplate rabbitTemplate, Queue dacrewQueue,
+							 ObservationRegistry observationRegistry, IngestMetrics ingestMetrics, LoadShedder loadShedder) {
 		this.objectMapper = objectMapper;
 		this.rabbitTemplate = rabbitTemplate;
 		this.dacrewQueue = dacrewQueue;
+		this.observationRegistry = observationRegistry;
+		this.ingestMetrics = ingestMetrics;
+		this.loadShedder = loadShedder;
 	}
 
 	@GetMapping(path = "/health", produces = "application/json")
-	public ResponseEntity<Map<String, String>> health() {
-		return ResponseEntity.ok(Map.of(
-				"status", "healthy",
-				"service", "jira_ingest"
-		));
+	public ResponseEntity<Map<String, Object>> health() {
+		var health = new LinkedHashMap<String, Object>();
+		health.put("status", "healthy");
+		health.put("service", "jira_ingest");
+		health.put("intake", loadShedder.details());
+		return ResponseEntity.ok(health);
 	}
 
 	@PostMapping(path = "/webhook/jira", consumes = "application/json", produces = "application/json")
@@ -63,8 +79,12 @@ public class WebhookController {
 			}
 			var payloadJson = new String(raw, StandardCharsets.UTF_8);
 			try {
-				JsonNode root = objectMapper.readTree(payloadJson);
-				JiraModels.JiraWebhook webhook = objectMapper.readValue(payloadJson, JiraModels.JiraWebhook.class);
+				Parsed parsed = Stages.observation(Stages.PARSE, observationRegistry).observeChecked(() -> new Parsed(
+						objectMapper.readTree(payloadJson),
+						objectMapper.readValue(payloadJson, JiraModels.JiraWebhook.class)));
+				JsonNode root = parsed.root();
+				JiraModels.JiraWebhook webhook = parsed.webhook();
+				ingestMetrics.event(webhook.webhookEvent(), webhook.issue_event_type_name());
 				JiraModels.JiraIssue jiraIssue = webhook.jiraIssue();
 				if (jiraIssue == null) {
 					log.info("Webhook processed but no issue data available");
@@ -73,6 +93,18 @@ public class WebhookController {
 					String projectKey = jiraIssue.fields() != null && jiraIssue.fields().project() != null ? jiraIssue.fields().project().key() : "unknown";
 					long timestamp = root.path("timestamp").asLong(Instant.now().toEpochMilli());
 					String workId = projectKey + "-" + issueKey + "-" + timestamp;
+					String priority = jiraIssue.fields() != null && jiraIssue.fields().priority() != null ? jiraIssue.fields().priority().name() : null;
+					LoadShedder.Decision decision = loadShedder.decide(priority);
+					if (decision == LoadShedder.Decision.REJECT) {
+						// Shedding started after the interceptor let this one through
+						loadShedder.shed(decision);
+						return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+								.header(HttpHeaders.RETRY_AFTER, String.valueOf(loadShedder.retryAfter().toSeconds()))
+								.body(Map.of(
+										"status", "unavailable",
+										"message", "Work queue is full, retry later"
+								));
+					}
 
 					var work = new DacrewWork(
 							workId,
@@ -81,8 +113,22 @@ public class WebhookController {
 							Instant.now()
 					);
 
-					rabbitTemplate.convertAndSend(dacrewQueue.getName(), work);
-					log.info("DacrewWork enqueued for processing: {}", workId);
+					if (decision == LoadShedder.Decision.OVERFLOW) {
+						loadShedder.shed(decision);
+						Stages.observation(Stages.PUBLISH, observationRegistry)
+								.observe(() -> rabbitTemplate.convertAndSend(loadShedder.overflowQueue(), work));
+						log.info("DacrewWork for {} priority issue deferred to {}: {}", priority, loadShedder.overflowQueue(), workId);
+						return ResponseEntity.accepted().body(Map.of(
+								"status", "deferred",
+								"message", "Webhook accepted, processing deferred"
+						));
+					}
+
+					String queue = WorkLanes.queueName(dacrewQueue.getName(), WorkLanes.lane(priority));
+					// The template's own observation, a child of this one, adds the trace context to the message headers
+					Stages.observation(Stages.PUBLISH, observationRegistry)
+							.observe(() -> rabbitTemplate.convertAndSend(queue, work));
+					log.info("DacrewWork enqueued for processing on {}: {}", queue, workId);
 				}
 			} catch (Exception e) {
 				log.error("Error processing webhook", e);
@@ -104,4 +150,6 @@ public class WebhookController {
 			));
 		}
 	}
+
+	private record Parsed(JsonNode root, JiraModels.JiraWebhook webhook) {}
 }
@@ -0,0 +1,79 @@
+package org.dacrewj.jira_ingester.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Metrics of the webhook ingest path, complementing the per-stage timers (dacrew.stage: body-read, hmac, parse,
+ * publish):
+ * <ul>
+ *     <li>dacrew.ingest.requests.active - webhook requests currently being handled</li>
+ *     <li>dacrew.ingest.payload.size - size of webhook bodies in bytes, as a histogram</li>
+ *     <li>dacrew.ingest.events - webhooks received, tagged by webhook_event and issue_event_type</li>
+ * </ul>
+ */
+@Component
+public class IngestMetrics {
+
+	static final String NONE = "none";
+
+	private final MeterRegistry meterRegistry;
+	private final AtomicInteger active = new AtomicInteger();
+	private final DistributionSummary payloadSize;
+
+	public IngestMetrics(MeterRegistry meterRegistry) {
+		this.meterRegistry = meterRegistry;
+		Gauge.builder("dacrew.ingest.requests.active", active, AtomicInteger::get)
+				.description("Webhook requests currently being handled")
+				.register(meterRegistry);
+		this.payloadSize = DistributionSummary.builder("dacrew.ingest.payload.size")
+				.description("Size of webhook bodies")
+				.baseUnit("bytes")
+				.publishPercentileHistogram()
+				.minimumExpectedValue(256.0)
+				.maximumExpectedValue(4.0 * 1024 * 1024)
+				.register(meterRegistry);
+	}
+
+	public void payloadSize(int bytes) {
+		payloadSize.record(bytes);
+	}
+
+	public void event(String webhookEvent, String issueEventType) {
+		Counter.builder("dacrew.ingest.events")
+				.description("Webhooks received")
+				.tag("webhook_event", webhookEvent != null ? webhookEvent : NONE)
+				.tag("issue_event_type", issueEventType != null ? issueEventType : NONE)
+				.register(meterRegistry)
+				.increment();
+	}
+
+	/**
+	 * Counts requests in flight; must be registered before any interceptor that may reject the request.
+	 */
+	public HandlerInterceptor activeRequestsInterceptor() {
+		return new HandlerInterceptor() {
+			@Override
+			public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+				active.incrementAndGet();
+				return true;
+			}
+
+			@Override
+			public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+				active.decrementAndGet();
+			}
+		};
+	}
+
+	int active() {
+		return active.get();
+	}
+}
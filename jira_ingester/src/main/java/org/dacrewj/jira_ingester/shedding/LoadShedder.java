@@ -0,0 +1,337 @@
+package org.dacrewj.jira_ingester.shedding;
+
+import com.rabbitmq.client.GetResponse;
+import com.rabbitmq.client.ReturnListener;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import org.dacrewj.messaging.WorkLanes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Protects the broker from an agent which has fallen behind: samples the depth and consumer count of the work queue,
+ * summed over its {@link WorkLanes lanes}, every app.shedding.sample-interval and sheds load while the depth is high.
+ * <p>
+ * Shedding starts when the depth reaches the high watermark and stops when it is back at the low watermark. While
+ * shedding, depending on app.shedding.mode, either
+ * <ul>
+ *     <li>reject: webhooks are refused with 503 and Retry-After before their signature is checked, or</li>
+ *     <li>overflow: webhooks for issues with a low priority (app.shedding.low-priorities) are diverted to the overflow
+ *     queue and all others enqueued as usual. Once the depth is below the low watermark, diverted work is moved back
+ *     to the low lane, at most up to the low watermark per sample. A message leaves the overflow queue only once the
+ *     broker has confirmed its copy in the low lane (app.shedding.confirm-timeout).</li>
+ * </ul>
+ * If the queue cannot be sampled, the last decision stands; without an {@link AmqpAdmin} (no broker configured)
+ * nothing is shed.
+ * <p>
+ * Metrics: dacrew.ingest.queue.depth, dacrew.ingest.queue.consumers, dacrew.ingest.shedding (1 while shedding),
+ * dacrew.ingest.shed (webhooks shed, tagged by action reject/overflow) and dacrew.ingest.overflow.restored.
+ */
+@Component
+public class LoadShedder implements HealthIndicator {
+
+	private static final Logger log = LoggerFactory.getLogger(LoadShedder.class);
+
+	public enum Mode { REJECT, OVERFLOW }
+
+	public enum Decision { ENQUEUE, OVERFLOW, REJECT }
+
+	private final AmqpAdmin amqpAdmin;
+	private final RabbitTemplate rabbitTemplate;
+	private final String queueName;
+	private final MeterRegistry meterRegistry;
+	private final boolean enabled;
+	private final Duration sampleInterval;
+	private final long highWatermark;
+	private final long lowWatermark;
+	private final Mode mode;
+	private final Duration retryAfter;
+	private final String overflowQueue;
+	private final Set<String> lowPriorities;
+	private final Duration confirmTimeout;
+	private final ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread thread = new Thread(r, "ingest-load-shedder");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private volatile boolean shedding;
+	private volatile Sample sample = new Sample(-1, -1, null, "not sampled yet");
+
+	public LoadShedder(
+			ObjectProvider<AmqpAdmin> amqpAdmin,
+			RabbitTemplate rabbitTemplate,
+			Queue dacrewQueue,
+			MeterRegistry meterRegistry,
+			@Value("${app.shedding.enabled:true}") boolean enabled,
+			@Value("${app.shedding.sample-interval:2s}") Duration sampleInterval,
+			@Value("${app.shedding.high-watermark:5000}") long highWatermark,
+			@Value("${app.shedding.low-watermark:1000}") long lowWatermark,
+			@Value("${app.shedding.mode:reject}") String mode,
+			@Value("${app.shedding.retry-after:30s}") Duration retryAfter,
+			@Value("${app.shedding.overflow-queue:dacrew.work.overflow}") String overflowQueue,
+			@Value("${app.shedding.low-priorities:Low,Lowest}") List<String> lowPriorities,
+			@Value("${app.shedding.confirm-timeout:10s}") Duration confirmTimeout
+	) {
+		if (lowWatermark > highWatermark) {
+			throw new IllegalArgumentException("app.shedding.low-watermark (" + lowWatermark
+					+ ") must not exceed app.shedding.high-watermark (" + highWatermark + ")");
+		}
+		this.amqpAdmin = amqpAdmin.getIfAvailable();
+		this.rabbitTemplate = rabbitTemplate;
+		this.queueName = dacrewQueue.getName();
+		this.meterRegistry = meterRegistry;
+		this.enabled = enabled && this.amqpAdmin != null;
+		this.sampleInterval = sampleInterval;
+		this.highWatermark = highWatermark;
+		this.lowWatermark = lowWatermark;
+		this.mode = Mode.valueOf(mode.strip().toUpperCase(Locale.ROOT));
+		this.retryAfter = retryAfter;
+		this.overflowQueue = overflowQueue;
+		this.lowPriorities = lowPriorities.stream().map(p -> p.strip().toLowerCase(Locale.ROOT)).collect(Collectors.toUnmodifiableSet());
+		this.confirmTimeout = confirmTimeout;
+		Gauge.builder("dacrew.ingest.queue.depth", this, shedder -> shedder.sample.depth())
+				.description("Messages in the work queue at the last sample, -1 if unknown")
+				.register(meterRegistry);
+		Gauge.builder("dacrew.ingest.queue.consumers", this, shedder -> shedder.sample.consumers())
+				.description("Consumers of the work queue at the last sample, -1 if unknown")
+				.register(meterRegistry);
+		Gauge.builder("dacrew.ingest.shedding", this, shedder -> shedder.shedding ? 1 : 0)
+				.description("1 while the ingester sheds load")
+				.register(meterRegistry);
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void start() {
+		if (!enabled) {
+			log.info("Load shedding disabled{}", amqpAdmin == null ? ": no broker to sample" : "");
+			return;
+		}
+		log.info("Load shedding on {} above {} messages until back at {} ({} mode), sampling every {}",
+				queueName, highWatermark, lowWatermark, mode.name().toLowerCase(Locale.ROOT), sampleInterval);
+		sampler.scheduleWithFixedDelay(this::sample, 0, sampleInterval.toMillis(), TimeUnit.MILLISECONDS);
+	}
+
+	@PreDestroy
+	void shutdown() {
+		sampler.shutdownNow();
+	}
+
+	void sample() {
+		try {
+			long depth = 0;
+			int consumers = 0;
+			boolean found = false;
+			for (WorkLanes.Lane lane : WorkLanes.Lane.values()) {
+				QueueInformation info = amqpAdmin.getQueueInfo(WorkLanes.queueName(queueName, lane));
+				if (info != null) {
+					depth += info.getMessageCount();
+					consumers += info.getConsumerCount();
+					found = true;
+				}
+			}
+			if (!found) {
+				failed("queue " + queueName + " does not exist");
+				return;
+			}
+			update(depth, consumers);
+			if (mode == Mode.OVERFLOW && !shedding && sample.depth() < lowWatermark) {
+				restore(lowWatermark - sample.depth());
+			}
+		} catch (RuntimeException e) {
+			failed(e.toString());
+		}
+	}
+
+	/**
+	 * Applies a sample of the work queue.
+	 */
+	void update(long depth, int consumers) {
+		sample = new Sample(depth, consumers, Instant.now(), null);
+		if (!shedding && depth >= highWatermark) {
+			shedding = true;
+			log.warn("Work queue {} holds {} messages ({} consumers), at or above {}: shedding load ({} mode)",
+					queueName, depth, consumers, highWatermark, mode.name().toLowerCase(Locale.ROOT));
+		} else if (shedding && depth <= lowWatermark) {
+			shedding = false;
+			log.info("Work queue {} is down to {} messages ({} consumers): accepting all work again", queueName, depth, consumers);
+		}
+	}
+
+	private void failed(String error) {
+		if (sample.error() == null) {
+			log.warn("Unable to sample work queue {}; keeping the last decision ({}): {}",
+					queueName, shedding ? "shedding" : "accepting", error);
+		}
+		sample = new Sample(sample.depth(), sample.consumers(), sample.sampledAt(), error);
+	}
+
+	/**
+	 * Moves up to max messages from the overflow queue to the low lane, unchanged (headers included). Each message is
+	 * published as mandatory and acknowledged only once the broker has confirmed it; if the low lane does not take it,
+	 * it is put back on the overflow queue and the move stops until the next sample.
+	 */
+	private void restore(long max) {
+		String lowLane = WorkLanes.queueName(queueName, WorkLanes.Lane.LOW);
+		var restored = new AtomicLong();
+		try {
+			rabbitTemplate.execute(channel -> {
+				channel.confirmSelect();
+				var returned = new AtomicBoolean();
+				ReturnListener returns = channel.addReturnListener(r -> returned.set(true));
+				try {
+					while (restored.get() < max) {
+						GetResponse response = channel.basicGet(overflowQueue, false);
+						if (response == null) {
+							break;
+						}
+						long tag = response.getEnvelope().getDeliveryTag();
+						returned.set(false);
+						channel.basicPublish("", lowLane, true, response.getProps(), response.getBody());
+						// A nack or no confirm in time throws and closes the channel, which requeues the message
+						channel.waitForConfirmsOrDie(confirmTimeout.toMillis());
+						if (returned.get()) {
+							channel.basicNack(tag, false, true);
+							log.warn("{} did not take the work from {}; leaving it there", lowLane, overflowQueue);
+							break;
+						}
+						channel.basicAck(tag, false);
+						restored.incrementAndGet();
+					}
+					return null;
+				} finally {
+					channel.removeReturnListener(returns);
+				}
+			});
+		} catch (AmqpException e) {
+			log.warn("Unable to move work from {} back to {}: {}", overflowQueue, lowLane, e.toString());
+		}
+		if (restored.get() > 0) {
+			Counter.builder("dacrew.ingest.overflow.restored").register(meterRegistry).increment(restored.get());
+			log.info("Moved {} messages from {} back to {}", restored.get(), overflowQueue, lowLane);
+		}
+	}
+
+	/**
+	 * Where to put work for an issue of the given Jira priority.
+	 */
+	public Decision decide(String priority) {
+		if (!enabled || !shedding) {
+			return Decision.ENQUEUE;
+		}
+		if (mode == Mode.REJECT) {
+			return Decision.REJECT;
+		}
+		return priority != null && lowPriorities.contains(priority.strip().toLowerCase(Locale.ROOT))
+				? Decision.OVERFLOW : Decision.ENQUEUE;
+	}
+
+	public void shed(Decision decision) {
+		Counter.builder("dacrew.ingest.shed")
+				.tag("action", decision.name().toLowerCase(Locale.ROOT))
+				.register(meterRegistry)
+				.increment();
+	}
+
+	public boolean shedding() {
+		return shedding;
+	}
+
+	public String overflowQueue() {
+		return overflowQueue;
+	}
+
+	public Mode mode() {
+		return mode;
+	}
+
+	public Duration retryAfter() {
+		return retryAfter;
+	}
+
+	/**
+	 * Rejects webhooks with 503 and Retry-After while shedding in reject mode, before any work is done on them.
+	 */
+	public HandlerInterceptor rejectingInterceptor() {
+		return new HandlerInterceptor() {
+			@Override
+			public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+				if (decide(null) != Decision.REJECT) {
+					return true;
+				}
+				shed(Decision.REJECT);
+				response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+				response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter.toSeconds()));
+				response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+				response.getWriter().write("{\"status\":\"unavailable\",\"message\":\"Work queue is full, retry later\"}");
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * The current state, for the health endpoints.
+	 */
+	public Map<String, Object> details() {
+		var details = new LinkedHashMap<String, Object>();
+		details.put("state", !enabled ? "disabled" : shedding ? "shedding" : "accepting");
+		details.put("mode", mode.name().toLowerCase(Locale.ROOT));
+		details.put("queue", queueName);
+		details.put("depth", sample.depth());
+		details.put("consumers", sample.consumers());
+		details.put("highWatermark", highWatermark);
+		details.put("lowWatermark", lowWatermark);
+		if (sample.sampledAt() != null) {
+			details.put("sampledAt", sample.sampledAt().toString());
+		}
+		if (sample.error() != null) {
+			details.put("error", sample.error());
+		}
+		return details;
+	}
+
+	/**
+	 * Up while shedding too: the ingester works as intended, and taking it out of service would only move the
+	 * webhooks elsewhere.
+	 */
+	@Override
+	public Health health() {
+		return Health.up().withDetails(details()).build();
+	}
+
+	private record Sample(long depth, int consumers, Instant sampledAt, String error) {}
+}
@@ -0,0 +1,36 @@
+package org.dacrewj.jira_ingester.shedding;
+
+import org.springframework.amqp.core.Declarables;
+import org.springframework.amqp.core.Queue;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class LoadSheddingConfig implements WebMvcConfigurer {
+
+	private final LoadShedder loadShedder;
+
+	public LoadSheddingConfig(LoadShedder loadShedder) {
+		this.loadShedder = loadShedder;
+	}
+
+	@Override
+	public void addInterceptors(InterceptorRegistry registry) {
+		// Ahead of the signature check and the body capture: a rejected webhook costs next to nothing
+		registry.addInterceptor(loadShedder.rejectingInterceptor()).addPathPatterns("/webhook/jira").order(Ordered.HIGHEST_PRECEDENCE);
+	}
+
+	/**
+	 * Declared as {@link Declarables} rather than a {@link Queue} bean, which would make the work queue ambiguous.
+	 */
+	@Bean
+	@ConditionalOnProperty(prefix = "app.shedding", name = "mode", havingValue = "overflow")
+	Declarables overflowQueue(@Value("${app.shedding.overflow-queue:dacrew.work.overflow}") String name) {
+		return new Declarables(new Queue(name, true));
+	}
+}
@@ -88,6 +88,22 @@ class WebhookControllerIT {
         assertThat(work.payload()).isNotNull();
     }
 
+    @Test
+    @DisplayName("Work on a Highest priority issue should be enqueued on the high lane")
+    void highestPriority_enqueuedOnHighLane() throws Exception {
+        String body = new String(getContent("/jira-webhook-payload-valid.json"), StandardCharsets.UTF_8)
+                .replace("\"name\": \"Medium\"", "\"name\": \"Highest\"");
+        String signature = sign(body, SECRET);
+
+        mockMvc.perform(post("/webhook/jira")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(SIG_HEADER, signature)
+                        .content(body))
+                .andExpect(status().isOk());
+
+        verify(rabbitTemplate).convertAndSend(eq("dacrew.work.high"), any(DacrewWork.class));
+    }
+
     @Test
     @DisplayName("Valid payload 2 with leading log text should still be rejected by JSON parse (invalid for controller)")
     void payload2_isInvalid_andNotEnqueued() throws Exception {
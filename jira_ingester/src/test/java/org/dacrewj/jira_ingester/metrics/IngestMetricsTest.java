@@ -0,0 +1,50 @@
+package org.dacrewj.jira_ingester.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IngestMetricsTest {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final IngestMetrics metrics = new IngestMetrics(registry);
+
+	@Test
+	void countsEventsByWebhookAndIssueEventType() {
+		metrics.event("jira:issue_updated", "issue_generic");
+		metrics.event("jira:issue_updated", "issue_generic");
+		metrics.event("jira:issue_created", null);
+
+		assertThat(registry.counter("dacrew.ingest.events", "webhook_event", "jira:issue_updated", "issue_event_type", "issue_generic").count())
+				.isEqualTo(2);
+		assertThat(registry.counter("dacrew.ingest.events", "webhook_event", "jira:issue_created", "issue_event_type", IngestMetrics.NONE).count())
+				.isEqualTo(1);
+	}
+
+	@Test
+	void recordsPayloadSizes() {
+		metrics.payloadSize(1000);
+		metrics.payloadSize(3000);
+
+		var summary = registry.get("dacrew.ingest.payload.size").summary();
+		assertThat(summary.count()).isEqualTo(2);
+		assertThat(summary.totalAmount()).isEqualTo(4000);
+	}
+
+	@Test
+	void tracksRequestsInFlight() throws Exception {
+		var interceptor = metrics.activeRequestsInterceptor();
+		var request = new MockHttpServletRequest();
+		var response = new MockHttpServletResponse();
+
+		interceptor.preHandle(request, response, new Object());
+		interceptor.preHandle(request, response, new Object());
+		assertThat(registry.get("dacrew.ingest.requests.active").gauge().value()).isEqualTo(2);
+
+		interceptor.afterCompletion(request, response, new Object(), null);
+		assertThat(metrics.active()).isEqualTo(1);
+	}
+}
@@ -0,0 +1,157 @@
+package org.dacrewj.jira_ingester.shedding;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Envelope;
+import com.rabbitmq.client.GetResponse;
+import com.rabbitmq.client.Return;
+import com.rabbitmq.client.ReturnCallback;
+import com.rabbitmq.client.ReturnListener;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.amqp.rabbit.core.ChannelCallback;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LoadShedderTest {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final AmqpAdmin amqpAdmin = mock(AmqpAdmin.class);
+	private final RabbitTemplate rabbitTemplate = mock(RabbitTemplate.class);
+
+	private LoadShedder shedder(String mode) {
+		var admin = new StaticListableBeanFactory(Map.of("amqpAdmin", amqpAdmin)).getBeanProvider(AmqpAdmin.class);
+		return new LoadShedder(admin, rabbitTemplate, new Queue("dacrew.work"), registry, true,
+				Duration.ofSeconds(2), 100, 20, mode, Duration.ofSeconds(30), "dacrew.work.overflow", List.of("Low", "Lowest"),
+				Duration.ofSeconds(10));
+	}
+
+	@Test
+	void shedsFromTheHighWatermarkUntilBackAtTheLowWatermark() {
+		var shedder = shedder("reject");
+
+		shedder.update(99, 2);
+		assertThat(shedder.shedding()).isFalse();
+		shedder.update(100, 2);
+		assertThat(shedder.shedding()).isTrue();
+		shedder.update(50, 2);
+		assertThat(shedder.shedding()).isTrue();
+		shedder.update(20, 2);
+		assertThat(shedder.shedding()).isFalse();
+		assertThat(registry.get("dacrew.ingest.queue.depth").gauge().value()).isEqualTo(20);
+	}
+
+	@Test
+	void rejectsEverythingWhileSheddingInRejectMode() throws Exception {
+		var shedder = shedder("reject");
+		var interceptor = shedder.rejectingInterceptor();
+		assertThat(interceptor.preHandle(new MockHttpServletRequest(), new MockHttpServletResponse(), new Object())).isTrue();
+
+		shedder.update(500, 0);
+		var response = new MockHttpServletResponse();
+
+		assertThat(shedder.decide("High")).isEqualTo(LoadShedder.Decision.REJECT);
+		assertThat(interceptor.preHandle(new MockHttpServletRequest(), response, new Object())).isFalse();
+		assertThat(response.getStatus()).isEqualTo(503);
+		assertThat(response.getHeader("Retry-After")).isEqualTo("30");
+		assertThat(registry.counter("dacrew.ingest.shed", "action", "reject").count()).isEqualTo(1);
+	}
+
+	@Test
+	void divertsOnlyLowPriorityIssuesInOverflowMode() throws Exception {
+		var shedder = shedder("overflow");
+		shedder.update(500, 1);
+
+		assertThat(shedder.decide("lowest")).isEqualTo(LoadShedder.Decision.OVERFLOW);
+		assertThat(shedder.decide("Highest")).isEqualTo(LoadShedder.Decision.ENQUEUE);
+		assertThat(shedder.decide(null)).isEqualTo(LoadShedder.Decision.ENQUEUE);
+		assertThat(shedder.rejectingInterceptor().preHandle(new MockHttpServletRequest(), new MockHttpServletResponse(), new Object())).isTrue();
+	}
+
+	@Test
+	void samplesAllLanesOfTheWorkQueueAndReportsTheStateAsHealthDetails() {
+		var shedder = shedder("reject");
+		when(amqpAdmin.getQueueInfo("dacrew.work")).thenReturn(new QueueInformation("dacrew.work", 150, 3));
+		when(amqpAdmin.getQueueInfo("dacrew.work.high")).thenReturn(new QueueInformation("dacrew.work.high", 50, 1));
+
+		shedder.sample();
+
+		var health = shedder.health();
+		assertThat(health.getStatus()).isEqualTo(Status.UP);
+		assertThat(health.getDetails())
+				.containsEntry("state", "shedding")
+				.containsEntry("depth", 200L)
+				.containsEntry("consumers", 4)
+				.containsKey("sampledAt");
+	}
+
+	@Test
+	void keepsTheLastDecisionWhenTheQueueCannotBeSampled() {
+		var shedder = shedder("reject");
+		shedder.update(150, 3);
+		when(amqpAdmin.getQueueInfo("dacrew.work")).thenThrow(new IllegalStateException("connection refused"));
+
+		shedder.sample();
+
+		assertThat(shedder.shedding()).isTrue();
+		assertThat(shedder.details()).containsEntry("depth", 150L).containsKey("error");
+	}
+
+	@Test
+	void movesOverflowBackOnlyOnceTheLowLaneHasTakenIt() throws Exception {
+		var shedder = shedder("overflow");
+		when(amqpAdmin.getQueueInfo("dacrew.work")).thenReturn(new QueueInformation("dacrew.work", 0, 1));
+		var channel = mock(Channel.class);
+		when(rabbitTemplate.execute(any())).thenAnswer(invocation ->
+				invocation.<ChannelCallback<?>>getArgument(0).doInRabbit(channel));
+		var props = new AMQP.BasicProperties.Builder().build();
+		byte[] body = "{}".getBytes(StandardCharsets.UTF_8);
+		when(channel.basicGet("dacrew.work.overflow", false)).thenReturn(
+				new GetResponse(new Envelope(1, false, "", "dacrew.work.overflow"), props, body, 1),
+				new GetResponse(new Envelope(2, false, "", "dacrew.work.overflow"), props, body, 0));
+		var returns = new ReturnCallback[1];
+		doAnswer(invocation -> {
+			returns[0] = invocation.getArgument(0);
+			return mock(ReturnListener.class);
+		}).when(channel).addReturnListener(any(ReturnCallback.class));
+		// The broker takes the first message and returns the second as unroutable
+		var published = new int[1];
+		doAnswer(invocation -> {
+			if (++published[0] == 2) {
+				returns[0].handle(new Return(312, "NO_ROUTE", "", "dacrew.work.low", props, body));
+			}
+			return null;
+		}).when(channel).basicPublish(eq(""), eq("dacrew.work.low"), anyBoolean(), any(), any());
+
+		shedder.sample();
+
+		verify(channel).confirmSelect();
+		verify(channel, times(2)).basicPublish("", "dacrew.work.low", true, props, body);
+		verify(channel, times(2)).waitForConfirmsOrDie(10_000);
+		verify(channel).basicAck(1, false);
+		verify(channel).basicNack(2, false, true);
+		verify(channel, never()).basicAck(2, false);
+		assertThat(registry.counter("dacrew.ingest.overflow.restored").count()).isEqualTo(1);
+	}
+}
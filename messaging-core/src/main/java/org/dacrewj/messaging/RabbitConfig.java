@@ -1,6 +1,8 @@
 package org.dacrewj.messaging;
 
+import org.springframework.amqp.core.Declarables;
 import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
 import org.springframework.beans.factory.annotation.Value;
@@ -8,6 +10,9 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
 
+import java.time.Duration;
+import java.util.List;
+
 @Profile("server")
 @Configuration
 public class RabbitConfig {
@@ -15,11 +20,41 @@ public class RabbitConfig {
     @Value("${app.rabbit.queue-name:dacrew.work}")
     private String queueName;
 
+    @Value("${app.rabbit.retry.delays:10s,1m,10m}")
+    private List<Duration> retryDelays;
+
+    @Value("${app.rabbit.retry.max-attempts:4}")
+    private int maxAttempts;
+
+    @Value("${app.rabbit.retry.confirm-timeout:10s}")
+    private Duration confirmTimeout;
+
     @Bean
     public Queue dacrewQueue() {
         return new Queue(queueName, true);
     }
 
+    /**
+     * The high and low priority lanes next to the work queue, which is the normal lane (see {@link WorkLanes}).
+     * Declared as {@link Declarables} so that the work queue remains the only {@link Queue} bean.
+     */
+    @Bean
+    public Declarables workLanes() {
+        return new Declarables(
+                new Queue(WorkLanes.queueName(queueName, WorkLanes.Lane.HIGH), true),
+                new Queue(WorkLanes.queueName(queueName, WorkLanes.Lane.LOW), true));
+    }
+
+    @Bean
+    public WorkRetries workRetries(RabbitTemplate rabbitTemplate) {
+        return new WorkRetries(rabbitTemplate, queueName, retryDelays, maxAttempts, confirmTimeout);
+    }
+
+    @Bean
+    public Declarables retryTopology(WorkRetries workRetries) {
+        return workRetries.topology();
+    }
+
     @Bean
     public MessageConverter jacksonMessageConverter() {
         return new Jackson2JsonMessageConverter();
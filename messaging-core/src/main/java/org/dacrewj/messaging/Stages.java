@@ -0,0 +1,44 @@
+package org.dacrewj.messaging;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+
+/**
+ * The stages a piece of work passes through, from webhook receipt in the ingester to the Jira comment posted by the
+ * agent.
+ * <p>
+ * Each stage is observed as "dacrew.stage" with the low-cardinality key "stage": with tracing on the classpath it
+ * becomes a span of the work's trace (whose context travels from the ingester to the agent in the AMQP message
+ * headers), and the metrics handler records it in the "dacrew.stage" timer tagged by stage and error.
+ */
+public final class Stages {
+
+    public static final String OBSERVATION = "dacrew.stage";
+    public static final String STAGE_KEY = "stage";
+
+    public static final String BODY_READ = "body-read";
+    public static final String HMAC = "hmac";
+    public static final String PARSE = "parse";
+    public static final String PUBLISH = "publish";
+    /** Time between enqueueing in the ingester and receipt in the agent; recorded as a timer only. */
+    public static final String QUEUE_WAIT = "queue-wait";
+    public static final String HANDLE = "handle";
+    public static final String REVIEW = "review";
+    public static final String DRAFT = "draft";
+    public static final String CRITIQUE = "critique";
+    public static final String SUGGESTION = "suggestion";
+    public static final String COMMENT = "comment";
+    public static final String TRANSITION = "transition";
+
+    private Stages() {
+    }
+
+    /**
+     * Creates a not yet started observation of the stage, a child of the current observation if there is one.
+     */
+    public static Observation observation(String stage, ObservationRegistry registry) {
+        return Observation.createNotStarted(OBSERVATION, registry)
+                .contextualName(stage)
+                .lowCardinalityKeyValue(STAGE_KEY, stage);
+    }
+}
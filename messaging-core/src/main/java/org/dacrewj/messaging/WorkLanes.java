@@ -0,0 +1,54 @@
+package org.dacrewj.messaging;
+
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Work is queued in one of three lanes by the Jira priority of its issue, so that urgent requirements do not wait
+ * behind a bulk import of minor ones. The normal lane is the work queue itself (app.rabbit.queue-name), the others
+ * are queues of their own next to it, e.g. dacrew.work.high and dacrew.work.low.
+ * <p>
+ * The agent consumes each lane with its own listener; the number of consumers of a lane is its weight.
+ */
+public final class WorkLanes {
+
+    public enum Lane { HIGH, NORMAL, LOW }
+
+    private static final Set<String> HIGH_PRIORITIES = Set.of("highest", "high", "blocker", "critical");
+    private static final Set<String> LOW_PRIORITIES = Set.of("low", "lowest", "minor", "trivial");
+
+    private WorkLanes() {
+    }
+
+    /**
+     * The lane for work on an issue with the given Jira priority name; the normal lane for none or an unknown one.
+     */
+    public static Lane lane(String priority) {
+        if (priority == null) {
+            return Lane.NORMAL;
+        }
+        String name = priority.strip().toLowerCase(Locale.ROOT);
+        if (HIGH_PRIORITIES.contains(name)) {
+            return Lane.HIGH;
+        }
+        return LOW_PRIORITIES.contains(name) ? Lane.LOW : Lane.NORMAL;
+    }
+
+    /**
+     * The queue of the lane, given the name of the work queue.
+     */
+    public static String queueName(String workQueue, Lane lane) {
+        return switch (lane) {
+            case HIGH -> workQueue + ".high";
+            case NORMAL -> workQueue;
+            case LOW -> workQueue + ".low";
+        };
+    }
+
+    /**
+     * The lane name as used in metric tags and configuration.
+     */
+    public static String tag(Lane lane) {
+        return lane.name().toLowerCase(Locale.ROOT);
+    }
+}
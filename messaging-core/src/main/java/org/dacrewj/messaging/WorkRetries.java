@@ -0,0 +1,268 @@
+package org.dacrewj.messaging;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.GetResponse;
+import com.rabbitmq.client.ReturnListener;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Declarable;
+import org.springframework.amqp.core.Declarables;
+import org.springframework.amqp.core.FanoutExchange;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+/**
+ * Delayed retries and quarantine for work whose handling failed, so that a poison message is neither redelivered
+ * in a tight loop nor lost.
+ * <p>
+ * The failed message is published, unchanged apart from its headers, to retry exchange n (dacrew.work.retry.n, a
+ * fanout exchange) with its lane queue as routing key. Exchange n feeds retry queue n, whose messages expire after
+ * the n-th delay and are then dead-lettered to the default exchange, which delivers them back to the lane queue under
+ * their routing key. The number of failed attempts travels in {@link #ATTEMPTS_HEADER}; when it reaches the maximum
+ * the message goes to the quarantine queue (dacrew.work.quarantine) instead, where it stays until it is replayed.
+ * <p>
+ * The lane queues themselves are not given a dead-letter exchange: RabbitMQ refuses to redeclare an existing queue
+ * with different arguments.
+ * <p>
+ * A failed message is acknowledged by the consumer only once it has been passed on, so every publish here waits for
+ * the broker's confirm and is mandatory: {@link #failed} needs a template on a connection factory with correlated
+ * publisher confirms and returns (spring.rabbitmq.publisher-confirm-type: correlated, publisher-returns: true,
+ * template.mandatory: true).
+ */
+public class WorkRetries {
+
+    public static final String ATTEMPTS_HEADER = "x-dacrew-attempts";
+    public static final String ORIGIN_QUEUE_HEADER = "x-dacrew-origin-queue";
+    public static final String ERROR_HEADER = "x-dacrew-error";
+    public static final String FAILED_AT_HEADER = "x-dacrew-failed-at";
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final RabbitTemplate rabbitTemplate;
+    private final String workQueue;
+    private final List<Duration> delays;
+    private final int maxAttempts;
+    private final Duration confirmTimeout;
+
+    public WorkRetries(RabbitTemplate rabbitTemplate, String workQueue, List<Duration> delays, int maxAttempts,
+                       Duration confirmTimeout) {
+        if (delays.isEmpty() || maxAttempts < 1) {
+            throw new IllegalArgumentException("Work retries need at least one delay and one attempt");
+        }
+        this.rabbitTemplate = rabbitTemplate;
+        this.workQueue = workQueue;
+        this.delays = List.copyOf(delays);
+        this.maxAttempts = maxAttempts;
+        this.confirmTimeout = confirmTimeout;
+    }
+
+    public String retryExchange(int n) {
+        return workQueue + ".retry." + n;
+    }
+
+    public String retryQueue(int n) {
+        return workQueue + ".retry." + n;
+    }
+
+    public String quarantineQueue() {
+        return workQueue + ".quarantine";
+    }
+
+    /**
+     * The retry exchanges and queues and the quarantine queue.
+     */
+    public Declarables topology() {
+        var declarables = new ArrayList<Declarable>();
+        for (int n = 1; n <= delays.size(); n++) {
+            var exchange = new FanoutExchange(retryExchange(n), true, false);
+            Queue queue = QueueBuilder.durable(retryQueue(n))
+                    .ttl((int) delays.get(n - 1).toMillis())
+                    .deadLetterExchange("")
+                    .build();
+            declarables.add(exchange);
+            declarables.add(queue);
+            declarables.add(BindingBuilder.bind(queue).to(exchange));
+        }
+        declarables.add(QueueBuilder.durable(quarantineQueue()).build());
+        return new Declarables(declarables);
+    }
+
+    /**
+     * Passes on a message whose handling failed: to the retry queue for its attempt, or to the quarantine queue once
+     * it has failed maxAttempts times. Blocks the calling thread until the broker has confirmed the message, for up
+     * to the confirm timeout, so callers should not call it from a thread that others are waiting for.
+     *
+     * @param lane the lane the message was consumed from, and is retried on
+     * @throws AmqpException if the broker did not confirm the message, returned it as unroutable (e.g. a retry
+     *                       exchange is missing) or did not answer within the confirm timeout; the message has then
+     *                       not been passed on and must not be acknowledged
+     */
+    public Disposition failed(Message message, WorkLanes.Lane lane, Throwable cause) {
+        MessageProperties properties = message.getMessageProperties();
+        int attempt = attempts(properties) + 1;
+        String origin = WorkLanes.queueName(workQueue, lane);
+        properties.setHeader(ATTEMPTS_HEADER, attempt);
+        properties.setHeader(ORIGIN_QUEUE_HEADER, origin);
+        properties.setHeader(ERROR_HEADER, truncate(String.valueOf(cause)));
+        properties.setHeader(FAILED_AT_HEADER, Instant.now().toString());
+        // A received message carries its delivery mode as receivedDeliveryMode only
+        properties.setDeliveryMode(MessageDeliveryMode.PERSISTENT);
+        if (attempt >= maxAttempts) {
+            publish("", quarantineQueue(), message);
+            return new Disposition(attempt, quarantineQueue(), null);
+        }
+        int n = Math.min(attempt, delays.size());
+        publish(retryExchange(n), origin, message);
+        return new Disposition(attempt, retryQueue(n), delays.get(n - 1));
+    }
+
+    private void publish(String exchange, String routingKey, Message message) {
+        var correlation = new CorrelationData();
+        rabbitTemplate.send(exchange, routingKey, message, correlation);
+        CorrelationData.Confirm confirm;
+        try {
+            confirm = correlation.getFuture().get(confirmTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmqpException("Interrupted while waiting for the confirm of " + routingKey + " on '" + exchange + "'", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new AmqpException("No confirm within " + confirmTimeout + " for " + routingKey + " on '" + exchange + "'", e);
+        }
+        if (!confirm.isAck()) {
+            throw new AmqpException("Broker refused " + routingKey + " on '" + exchange + "': " + confirm.getReason());
+        }
+        if (correlation.getReturned() != null) {
+            throw new AmqpException("Unroutable: " + routingKey + " on '" + exchange + "' ("
+                    + correlation.getReturned().getReplyText() + ")");
+        }
+    }
+
+    /**
+     * Lists up to limit messages from the head of the quarantine queue without removing them.
+     */
+    public List<QuarantinedWork> quarantined(int limit) {
+        return rabbitTemplate.execute(channel -> {
+            var quarantined = new ArrayList<QuarantinedWork>();
+            long lastTag = -1;
+            try {
+                while (quarantined.size() < limit) {
+                    GetResponse response = channel.basicGet(quarantineQueue(), false);
+                    if (response == null) {
+                        break;
+                    }
+                    lastTag = response.getEnvelope().getDeliveryTag();
+                    quarantined.add(QuarantinedWork.of(response.getProps(), response.getBody()));
+                }
+            } finally {
+                if (lastTag >= 0) {
+                    // Back to their original positions, also if one could not be read
+                    channel.basicNack(lastTag, true, true);
+                }
+            }
+            return quarantined;
+        });
+    }
+
+    /**
+     * Moves up to limit messages from the quarantine queue back to the lanes they failed on, with their attempts
+     * reset. Each message is published mandatory and acknowledged only once the broker has confirmed it. Replay stops
+     * at a message whose lane queue does not exist; that message stays quarantined.
+     */
+    public Replay replay(int limit) {
+        Replay replay = rabbitTemplate.execute(channel -> {
+            channel.confirmSelect();
+            var returned = new AtomicBoolean();
+            ReturnListener returns = channel.addReturnListener(r -> returned.set(true));
+            try {
+                int count = 0;
+                while (count < limit) {
+                    GetResponse response = channel.basicGet(quarantineQueue(), false);
+                    if (response == null) {
+                        break;
+                    }
+                    long tag = response.getEnvelope().getDeliveryTag();
+                    AMQP.BasicProperties props = response.getProps();
+                    Map<String, Object> headers = props.getHeaders() != null ? new HashMap<>(props.getHeaders()) : new HashMap<>();
+                    headers.remove(ATTEMPTS_HEADER);
+                    Object origin = headers.get(ORIGIN_QUEUE_HEADER);
+                    String target = origin != null ? origin.toString() : workQueue;
+                    returned.set(false);
+                    channel.basicPublish("", target, true, props.builder().headers(headers).build(), response.getBody());
+                    // A nack or no confirm in time throws and closes the channel, which requeues the message
+                    channel.waitForConfirmsOrDie(confirmTimeout.toMillis());
+                    if (returned.get()) {
+                        channel.basicNack(tag, false, true);
+                        return new Replay(count, target);
+                    }
+                    channel.basicAck(tag, false);
+                    count++;
+                }
+                return new Replay(count, null);
+            } finally {
+                channel.removeReturnListener(returns);
+            }
+        });
+        return replay != null ? replay : new Replay(0, null);
+    }
+
+    static int attempts(MessageProperties properties) {
+        return properties.getHeader(ATTEMPTS_HEADER) instanceof Number attempts ? attempts.intValue() : 0;
+    }
+
+    private static String truncate(String text) {
+        return text.length() > MAX_ERROR_LENGTH ? text.substring(0, MAX_ERROR_LENGTH) : text;
+    }
+
+    /**
+     * Where a failed message went: to a retry queue, to be handled again after the delay, or to the quarantine queue
+     * (delay null).
+     */
+    public record Disposition(int attempt, String queue, Duration delay) {
+        public boolean quarantined() {
+            return delay == null;
+        }
+    }
+
+    /**
+     * The outcome of a replay: the messages replayed, and the queue of the message it stopped at because that queue
+     * does not exist (null if it did not stop early).
+     */
+    public record Replay(int replayed, String unroutableQueue) {}
+
+    /**
+     * A message in the quarantine queue, with the body as text.
+     */
+    public record QuarantinedWork(String originQueue, int attempts, String error, String failedAt, String body) {
+
+        static QuarantinedWork of(AMQP.BasicProperties props, byte[] body) {
+            Map<String, Object> headers = props.getHeaders() != null ? props.getHeaders() : Map.of();
+            return new QuarantinedWork(
+                    text(headers.get(ORIGIN_QUEUE_HEADER)),
+                    headers.get(ATTEMPTS_HEADER) instanceof Number attempts ? attempts.intValue() : 0,
+                    text(headers.get(ERROR_HEADER)),
+                    text(headers.get(FAILED_AT_HEADER)),
+                    new String(body, StandardCharsets.UTF_8));
+        }
+
+        // Header strings arrive as LongString
+        private static String text(Object value) {
+            return value != null ? value.toString() : null;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package org.dacrewj.messaging;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.ReturnedMessage;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WorkRetriesTest {
+
+    private final List<Sent> sent = new ArrayList<>();
+    // How the broker answers a publish: the confirm (none if null) and whether the message is returned as unroutable
+    private CorrelationData.Confirm confirm = new CorrelationData.Confirm(true, null);
+    private boolean unroutable;
+    private final RabbitTemplate template = new RabbitTemplate() {
+        @Override
+        public void send(String exchange, String routingKey, Message message, CorrelationData correlationData) {
+            sent.add(new Sent(exchange, routingKey, message));
+            if (unroutable) {
+                correlationData.setReturned(new ReturnedMessage(message, 312, "NO_ROUTE", exchange, routingKey));
+            }
+            if (confirm != null) {
+                correlationData.getFuture().complete(confirm);
+            }
+        }
+    };
+    private final WorkRetries retries = new WorkRetries(template, "dacrew.work",
+            List.of(Duration.ofSeconds(10), Duration.ofMinutes(1)), 4, Duration.ofMillis(200));
+
+    @Test
+    void retriesWithIncreasingDelaysOnTheLaneThenQuarantines() {
+        var message = new Message("{}".getBytes(StandardCharsets.UTF_8), new MessageProperties());
+        var failure = new NullPointerException("description");
+
+        var first = retries.failed(message, WorkLanes.Lane.HIGH, failure);
+        var second = retries.failed(message, WorkLanes.Lane.HIGH, failure);
+        var third = retries.failed(message, WorkLanes.Lane.HIGH, failure);
+        var fourth = retries.failed(message, WorkLanes.Lane.HIGH, failure);
+
+        assertEquals(Duration.ofSeconds(10), first.delay());
+        assertEquals(Duration.ofMinutes(1), second.delay());
+        // Beyond the configured delays the longest one is used again
+        assertEquals(Duration.ofMinutes(1), third.delay());
+        assertTrue(fourth.quarantined());
+        assertNull(fourth.delay());
+        assertEquals(4, fourth.attempt());
+
+        assertEquals(new Route("dacrew.work.retry.1", "dacrew.work.high"), sent.get(0).route());
+        assertEquals(new Route("dacrew.work.retry.2", "dacrew.work.high"), sent.get(1).route());
+        assertEquals(new Route("dacrew.work.retry.2", "dacrew.work.high"), sent.get(2).route());
+        assertEquals(new Route("", "dacrew.work.quarantine"), sent.get(3).route());
+
+        MessageProperties properties = sent.get(3).message().getMessageProperties();
+        assertEquals(4, properties.<Integer>getHeader(WorkRetries.ATTEMPTS_HEADER));
+        assertEquals("dacrew.work.high", properties.getHeader(WorkRetries.ORIGIN_QUEUE_HEADER));
+        assertTrue(properties.<String>getHeader(WorkRetries.ERROR_HEADER).contains("NullPointerException"));
+    }
+
+    @Test
+    void failsIfTheBrokerRefusesTheRetry() {
+        confirm = new CorrelationData.Confirm(false, "channel closed: NOT_FOUND - no exchange 'dacrew.work.retry.1'");
+        var message = new Message("{}".getBytes(StandardCharsets.UTF_8), new MessageProperties());
+
+        var e = assertThrows(AmqpException.class, () -> retries.failed(message, WorkLanes.Lane.NORMAL, new IllegalStateException()));
+        assertTrue(e.getMessage().contains("NOT_FOUND"));
+    }
+
+    @Test
+    void failsIfTheRetryIsUnroutableOrNotConfirmedInTime() {
+        var message = new Message("{}".getBytes(StandardCharsets.UTF_8), new MessageProperties());
+
+        unroutable = true;
+        assertThrows(AmqpException.class, () -> retries.failed(message, WorkLanes.Lane.LOW, new IllegalStateException()));
+
+        unroutable = false;
+        confirm = null;
+        assertThrows(AmqpException.class, () -> retries.failed(message, WorkLanes.Lane.LOW, new IllegalStateException()));
+    }
+
+    @Test
+    void retryQueuesDeadLetterBackThroughTheDefaultExchangeAfterTheirDelay() {
+        List<Queue> queues = retries.topology().getDeclarablesByType(Queue.class);
+
+        Queue retry = queues.stream().filter(q -> q.getName().equals("dacrew.work.retry.2")).findFirst().orElseThrow();
+        assertEquals(60_000, retry.getArguments().get("x-message-ttl"));
+        assertEquals("", retry.getArguments().get("x-dead-letter-exchange"));
+        assertFalse(retry.getArguments().containsKey("x-dead-letter-routing-key"));
+        assertTrue(queues.stream().map(Queue::getName).anyMatch("dacrew.work.quarantine"::equals));
+        // An exchange, a queue and a binding per delay, and the quarantine queue
+        assertEquals(2 * 3 + 1, retries.topology().getDeclarables().size());
+    }
+
+    private record Route(String exchange, String routingKey) {}
+
+    private record Sent(String exchange, String routingKey, Message message) {
+        Route route() {
+            return new Route(exchange, routingKey);
+        }
+    }
+}
@@ -1,5 +1,5 @@
 rootProject.name = "dacrewj"
-include(":agent", ":contracts", ":jira_ingester", ":messaging-core", ":common")
+include(":agent", ":contracts", ":jira_ingester", ":messaging-core", ":common", ":benchmarks")
 
 // Explicitly set subproject names to ensure correct display in IDE Gradle tool window
 project(":agent").name = "agent"
@@ -7,3 +7,4 @@ project(":contracts").name = "contracts"
 project(":jira_ingester").name = "jira_ingester"
 project(":messaging-core").name = "messaging-core"
 project(":common").name = "common"
+project(":benchmarks").name = "benchmarks"